@@ -13,6 +13,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 /**
@@ -38,14 +39,15 @@ public enum AsterismLoader implements StarCatalogue.Loader {
         try (final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream,
                 StandardCharsets.US_ASCII))) {
 
-            final Map<Integer, Star> hipparcosToStarMap = builder.stars().stream()
-                    .collect(Collectors.toMap(Star::hipparcosId, Function.identity(), (v1, v2) -> v2, HashMap::new)); //(*)
-            //Using the function: star -> (hipparcosOf(star),star), and wrapping the result in a Map
+            final Map<Integer, Integer> hipparcosToIndexMap = IntStream.range(0, builder.starCount()).boxed()
+                    .collect(Collectors.toMap(builder::hipparcosId, Function.identity(), (v1, v2) -> v2, HashMap::new)); //(*)
+            //Using the function: index -> (hipparcosOf(star at index),index), and wrapping the result in a Map. Going
+            //through the builder's columns avoids materializing the stars that are not part of any asterism.
 
             reader.lines().forEach(
                     line -> builder.addAsterism(new Asterism(Arrays.stream(line.split(","))
-                            .map(hipparcos -> hipparcosToStarMap.get(Integer.parseInt(hipparcos))).collect(
-                                    Collectors.toCollection(ArrayList::new))))); //(**)
+                            .map(hipparcos -> builder.star(hipparcosToIndexMap.get(Integer.parseInt(hipparcos))))
+                            .collect(Collectors.toCollection(ArrayList::new))))); //(**)
             //Mapping each line in inputStream to a List of stars via their hipparcos
 
         } catch (UncheckedIOException e) { //Streams throw UncheckedIOExceptions, and need not to modify the API
@@ -0,0 +1,127 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static ch.epfl.rigel.astronomy.CompiledCatalogueLoader.FORMAT_VERSION;
+import static ch.epfl.rigel.astronomy.CompiledCatalogueLoader.MAGIC;
+
+/**
+ * Offline compiler turning the HYG database and the asterisms file into a binary catalogue readable by
+ * CompiledCatalogueLoader. The output only depends on its inputs, so resources/catalogue.rglc has to be regenerated
+ * (and committed) whenever one of the text files changes, from the repository root:
+ * {@code java ch.epfl.rigel.astronomy.CatalogueCompiler resources/hygdata_v3.csv resources/asterisms.txt
+ * resources/catalogue.rglc}
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class CatalogueCompiler {
+
+    //Non instantiable
+    private CatalogueCompiler() {
+        throw new UnsupportedOperationException("Fatal error: tried to instantiate " +
+                "non instantiable class CatalogueCompiler.");
+    }
+
+    /**
+     * Compiles the catalogue given as command line arguments
+     *
+     * @param args (String[]) HYG database path, asterisms path, output path
+     * @throws IOException (as expected from I/O methods)
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: CatalogueCompiler <hygdata.csv> <asterisms.txt> <output.rglc>");
+            return;
+        }
+        StarCatalogue.Builder builder = new StarCatalogue.Builder();
+        try (InputStream hygStream = Files.newInputStream(Path.of(args[0]));
+             InputStream astStream = Files.newInputStream(Path.of(args[1]))) {
+            builder.loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(astStream, AsterismLoader.INSTANCE);
+        }
+        compile(builder.build(), Path.of(args[2]));
+    }
+
+    /**
+     * Writes a catalogue in the compiled binary format
+     *
+     * @param catalogue (StarCatalogue) catalogue to compile
+     * @param output    (Path) compiled file, overwritten if it already exists
+     * @throws IOException (as expected from I/O methods)
+     * @see CompiledCatalogueLoader for the binary layout
+     */
+    public static void compile(StarCatalogue catalogue, Path output) throws IOException {
+        final int starCount = catalogue.starCount();
+        //The catalogue's asterisms are a set: they are sorted for the output to be reproducible
+        final List<Asterism> asterisms = new ArrayList<>(catalogue.asterisms());
+        asterisms.sort(Comparator.comparing(catalogue::asterismIndices, CatalogueCompiler::compareIndices));
+
+        byte[][] names = new byte[starCount][];
+        int namesLength = 0;
+        for (int i = 0; i < starCount; ++i) {
+            names[i] = catalogue.name(i).getBytes(StandardCharsets.UTF_8);
+            namesLength += names[i].length;
+        }
+        int asterismStarsCount = 0;
+        for (Asterism asterism : asterisms) {
+            asterismStarsCount += catalogue.asterismIndices(asterism).size();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 * Integer.BYTES
+                + starCount * (2 * Double.BYTES + Float.BYTES + 3 * Integer.BYTES) + Integer.BYTES + namesLength
+                + (asterisms.size() + 1 + asterismStarsCount) * Integer.BYTES);
+
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(starCount).putInt(asterisms.size());
+        //Doubles first: they stay 8-byte aligned right after the 16-byte header
+        for (int i = 0; i < starCount; ++i) buffer.putDouble(catalogue.ra(i));
+        for (int i = 0; i < starCount; ++i) buffer.putDouble(catalogue.dec(i));
+        for (int i = 0; i < starCount; ++i) buffer.putFloat(catalogue.magnitude(i));
+        for (int i = 0; i < starCount; ++i) buffer.putInt(catalogue.colorTemperature(i));
+        for (int i = 0; i < starCount; ++i) buffer.putInt(catalogue.hipparcosId(i));
+
+        int nameOffset = 0;
+        for (byte[] name : names) {
+            buffer.putInt(nameOffset);
+            nameOffset += name.length;
+        }
+        buffer.putInt(nameOffset);
+        for (byte[] name : names) buffer.put(name);
+
+        int asterismOffset = 0;
+        for (Asterism asterism : asterisms) {
+            buffer.putInt(asterismOffset);
+            asterismOffset += catalogue.asterismIndices(asterism).size();
+        }
+        buffer.putInt(asterismOffset);
+        for (Asterism asterism : asterisms) {
+            for (int index : catalogue.asterismIndices(asterism)) buffer.putInt(index);
+        }
+
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static int compareIndices(List<Integer> first, List<Integer> second) {
+        for (int k = 0; k < Math.min(first.size(), second.size()); ++k) {
+            int comparison = Integer.compare(first.get(k), second.get(k));
+            if (comparison != 0) return comparison;
+        }
+        return Integer.compare(first.size(), second.size());
+    }
+}
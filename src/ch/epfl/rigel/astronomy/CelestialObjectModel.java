@@ -1,5 +1,6 @@
 package ch.epfl.rigel.astronomy;
 
+import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
 
 /**
@@ -10,4 +11,45 @@ import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
  */
 public interface CelestialObjectModel<O> {
     O at(double daysSinceJ2010, EclipticToEquatorialConversion eclipticToEquatorialConversion);
+
+    /**
+     * Computes the object from state shared with the other models at the same instant, so that evaluating all the
+     * solar system's objects at an instant only computes the Sun and the Earth once
+     *
+     * @param context (EphemerisContext) shared state at the instant
+     * @return (O) the object at the context's instant
+     */
+    default O at(EphemerisContext context) {
+        return at(context.daysSinceJ2010(), context.conversion());
+    }
+
+    /**
+     * Batch form of at: computes the object at many instants, filling the series' columns at the same indices as the
+     * instants, in parallel chunks. This default implementation goes through objects, which must then be
+     * CelestialObjects; the solar system's models create none.
+     *
+     * @param daysSinceJ2010 (double[]) instants, in days since J2010
+     * @param conversion     (EclipticToEquatorialConversion) conversion used at all the instants
+     * @param out            (EphemerisSeries) output series
+     * @throws IllegalArgumentException if the series cannot hold all the instants, or if the model's objects are not
+     *                                  CelestialObjects
+     */
+    default void at(double[] daysSinceJ2010, EclipticToEquatorialConversion conversion, EphemerisSeries out) {
+        out.checkCanHold(daysSinceJ2010);
+        //Checked on the first object, in the calling thread, rather than failing in a chunk
+        if (daysSinceJ2010.length > 0) {
+            Preconditions.checkArgument(at(daysSinceJ2010[0], conversion) instanceof CelestialObject,
+                    "CelestialObjectModel.at: the model's objects are not celestial objects.");
+        }
+        EphemerisSeries.inChunks(daysSinceJ2010.length, (from, to) -> {
+            for (int i = from; i < to; ++i) {
+                final CelestialObject object = (CelestialObject) at(daysSinceJ2010[i], conversion);
+                out.ra[i] = object.equatorialPos().ra();
+                out.dec[i] = object.equatorialPos().dec();
+                out.angularSize[i] = object.angularSize();
+                out.magnitude[i] = object.magnitude();
+                out.phase[i] = object instanceof Moon ? ((Moon) object).phase() : Double.NaN;
+            }
+        });
+    }
 }
\ No newline at end of file
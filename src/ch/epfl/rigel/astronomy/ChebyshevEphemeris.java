@@ -0,0 +1,263 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.rigel.math.Polynomial;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.LongStream;
+
+import static ch.epfl.rigel.astronomy.InterpolableModel.*;
+import static java.lang.Math.*;
+
+/**
+ * Caching layer over the Sun's, the Moon's or a planet's model: time is cut into spans of fixed length, over each of
+ * which the model's ecliptic longitude and latitude, angular size and extra value (magnitude, phase or mean anomaly)
+ * are interpolated by polynomials at the Chebyshev nodes. Later requests falling in a fitted span are answered by
+ * evaluating these polynomials instead of the model.
+ *
+ * Error bound: when a span is fitted, the polynomials are compared to the model halfway between every two nodes and
+ * at the span's ends. The span is only used if the longitude, latitude and angular size are all within
+ * ANGLE_TOLERANCE radians of the model there, and the extra value within EXTRA_TOLERANCE; otherwise requests in
+ * it keep going to the model.
+ *
+ * Spans are fitted lazily on an executor: a request in a span which is not fitted yet is answered by the model, the
+ * span being fitted in the background. Only the most recently used spans are kept.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class ChebyshevEphemeris<O> implements CelestialObjectModel<O> {
+
+    public static final double ANGLE_TOLERANCE = 1e-7; //About 0.02 arcseconds
+    public static final double EXTRA_TOLERANCE = 1e-4;
+    private static final int DEFAULT_DEGREE = 12;
+    private static final double MOON_SPAN_DAYS = 4;
+    private static final double DEFAULT_SPAN_DAYS = 16;
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final InterpolableModel<O> model;
+    private final double spanDays;
+    private final int nodeCount;
+    private final ExecutorService executor;
+    private final Map<Long, Span> spans;
+    private final Set<Long> pendingSpans = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Cache with default parameters: spans of 16 days (4 days for the Moon, which moves faster), polynomials of degree
+     * 12 and room for 1024 spans
+     *
+     * @param model    (CelestialObjectModel<O>) the Sun's, the Moon's or a planet's model
+     * @param executor (ExecutorService) executor on which spans are fitted
+     * @return (ChebyshevEphemeris<O>) cache over the model
+     * @throws IllegalArgumentException if the model cannot be interpolated
+     */
+    public static <O> ChebyshevEphemeris<O> of(CelestialObjectModel<O> model, ExecutorService executor) {
+        return new ChebyshevEphemeris<>(model, model == MoonModel.MOON ? MOON_SPAN_DAYS : DEFAULT_SPAN_DAYS,
+                DEFAULT_DEGREE, DEFAULT_CAPACITY, executor);
+    }
+
+    /**
+     * @param model    (CelestialObjectModel<O>) the Sun's, the Moon's or a planet's model
+     * @param spanDays (double) length of the spans, in days
+     * @param degree   (int) degree of the interpolating polynomials
+     * @param capacity (int) maximum number of spans kept
+     * @param executor (ExecutorService) executor on which spans are fitted
+     * @throws IllegalArgumentException if the model cannot be interpolated or a parameter is not strictly positive
+     */
+    public ChebyshevEphemeris(CelestialObjectModel<O> model, double spanDays, int degree, int capacity,
+                              ExecutorService executor) {
+        Preconditions.checkArgument(model instanceof InterpolableModel && spanDays > 0 && degree > 0 && capacity > 0);
+        this.model = (InterpolableModel<O>) model;
+        this.spanDays = spanDays;
+        this.nodeCount = degree + 1;
+        this.executor = executor;
+        this.spans = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Span> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param daysSinceJ2010        (double) days between J2010 and the instant
+     * @param eclipToEquaConversion (EclipticToEquatorialConversion) conversion at the instant
+     * @return (O) the object at the instant, interpolated if its span is fitted and accurate enough
+     */
+    @Override
+    public O at(double daysSinceJ2010, EclipticToEquatorialConversion eclipToEquaConversion) {
+        final long index = spanIndex(daysSinceJ2010);
+        final Span span;
+        synchronized (spans) {
+            span = spans.get(index);
+        }
+        if (span == null) {
+            fitLater(index);
+            return model.at(daysSinceJ2010, eclipToEquaConversion);
+        }
+        if (!span.isAccurate) {
+            return model.at(daysSinceJ2010, eclipToEquaConversion);
+        }
+        return model.fromChannels(span.channelsAt(daysSinceJ2010), eclipToEquaConversion);
+    }
+
+    /**
+     * Batch form of at: instants in fitted, accurate spans are interpolated, the others go to the model, no object
+     * being created either way
+     *
+     * @see CelestialObjectModel#at(double[], EclipticToEquatorialConversion, EphemerisSeries)
+     */
+    @Override
+    public void at(double[] daysSinceJ2010, EclipticToEquatorialConversion eclipToEquaConversion,
+                   EphemerisSeries out) {
+        out.checkCanHold(daysSinceJ2010);
+        EphemerisSeries.inChunks(daysSinceJ2010.length, (from, to) -> {
+            final double[] channels = new double[CHANNEL_COUNT];
+            long lastIndex = Long.MIN_VALUE;
+            Span span = null;
+            for (int i = from; i < to; ++i) {
+                final long index = spanIndex(daysSinceJ2010[i]);
+                //Instants usually come in order: the span is only looked up again when it changes
+                if (index != lastIndex) {
+                    synchronized (spans) {
+                        span = spans.get(index);
+                    }
+                    if (span == null) {
+                        fitLater(index);
+                    }
+                    lastIndex = index;
+                }
+                if (span != null && span.isAccurate) {
+                    span.channelsAt(daysSinceJ2010[i], channels);
+                } else {
+                    model.channels(daysSinceJ2010[i], channels);
+                }
+                model.toColumns(channels, eclipToEquaConversion, out, i);
+            }
+        });
+    }
+
+    /**
+     * Fits in the background all the spans covering the given time interval which are not fitted yet
+     *
+     * @param fromDays (double) start of the interval, in days since J2010
+     * @param toDays   (double) end of the interval, in days since J2010
+     * @return (CompletableFuture<Void>) completed once all these spans are fitted
+     */
+    public CompletableFuture<Void> prefetch(double fromDays, double toDays) {
+        return CompletableFuture.allOf(LongStream.rangeClosed(spanIndex(min(fromDays, toDays)),
+                spanIndex(max(fromDays, toDays)))
+                .mapToObj(this::fitLater)
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * @return (int) number of spans currently fitted
+     */
+    public int fittedSpanCount() {
+        synchronized (spans) {
+            return spans.size();
+        }
+    }
+
+    private long spanIndex(double daysSinceJ2010) {
+        return (long) floor(daysSinceJ2010 / spanDays);
+    }
+
+    /**
+     * Fits the span on the executor unless it is fitted or being fitted
+     */
+    private CompletableFuture<Void> fitLater(long index) {
+        synchronized (spans) {
+            if (spans.containsKey(index)) {
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+        if (!pendingSpans.add(index)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+            try {
+                final Span span = new Span(index * spanDays);
+                synchronized (spans) {
+                    spans.put(index, span);
+                }
+            } finally {
+                pendingSpans.remove(index);
+            }
+        }, executor);
+    }
+
+    /**
+     * Interpolating polynomials of the model's channels over [start, start + spanDays[, in the variable u in [-1, 1]
+     */
+    private final class Span {
+
+        private final double start;
+        private final Polynomial[] polynomials = new Polynomial[CHANNEL_COUNT];
+        private final boolean isAccurate;
+
+        private Span(double start) {
+            this.start = start;
+
+            final double[][] samples = new double[CHANNEL_COUNT][nodeCount];
+            final double[] channels = new double[CHANNEL_COUNT];
+            for (int k = 0; k < nodeCount; ++k) {
+                model.channels(timeOf(Polynomial.chebyshevNode(k, nodeCount)), channels);
+                for (int c = 0; c < CHANNEL_COUNT; ++c) {
+                    samples[c][k] = channels[c];
+                }
+                //The longitude is unwrapped so as to be continuous over the span
+                if (k > 0) {
+                    samples[LON][k] += Angle.TAU * rint((samples[LON][k - 1] - samples[LON][k]) / Angle.TAU);
+                }
+            }
+            for (int c = 0; c < CHANNEL_COUNT; ++c) {
+                polynomials[c] = Polynomial.ofChebyshevSamples(samples[c]);
+            }
+
+            //Checked halfway between every two nodes and at both ends, where the interpolation error peaks
+            boolean accurate = true;
+            final double[] expected = new double[CHANNEL_COUNT];
+            for (int k = 0; k <= nodeCount && accurate; ++k) {
+                final double u = cos(PI * k / nodeCount);
+                model.channels(timeOf(u), expected);
+                final double[] actual = new double[CHANNEL_COUNT];
+                channelsAtU(u, actual);
+                accurate = abs(Angle.normalizePositive(actual[LON] - expected[LON] + PI) - PI) <= ANGLE_TOLERANCE
+                        && abs(actual[LAT] - expected[LAT]) <= ANGLE_TOLERANCE
+                        && abs(actual[SIZE] - expected[SIZE]) <= ANGLE_TOLERANCE
+                        && abs(actual[EXTRA] - expected[EXTRA]) <= EXTRA_TOLERANCE;
+            }
+            this.isAccurate = accurate;
+        }
+
+        private double timeOf(double u) {
+            return start + (u + 1) / 2 * spanDays;
+        }
+
+        private double[] channelsAt(double daysSinceJ2010) {
+            final double[] channels = new double[CHANNEL_COUNT];
+            channelsAt(daysSinceJ2010, channels);
+            return channels;
+        }
+
+        private void channelsAt(double daysSinceJ2010, double[] channels) {
+            channelsAtU(2 * (daysSinceJ2010 - start) / spanDays - 1, channels);
+        }
+
+        private void channelsAtU(double u, double[] channels) {
+            for (int c = 0; c < CHANNEL_COUNT; ++c) {
+                channels[c] = polynomials[c].at(u);
+            }
+            channels[LON] = Angle.normalizePositive(channels[LON]);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for loading a catalogue precompiled by CatalogueCompiler. Unlike the text loaders, no line is parsed:
+ * columns are bulk-copied out of a (memory-mapped whenever possible) buffer.
+ *
+ * Binary layout (big endian), version 1:
+ * [int magic][int version][int starCount n][int asterismCount a]
+ * [double[n] ra][double[n] dec][float[n] magnitude][int[n] colorTemperature][int[n] hipparcosId]
+ * [int[n + 1] name offsets][byte[] UTF-8 names]
+ * [int[a + 1] asterism offsets][int[] asterism star indices]
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public enum CompiledCatalogueLoader implements StarCatalogue.Loader {
+
+    INSTANCE;
+
+    static final int MAGIC = 0x52474C43; //"RGLC"
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Loads a compiled catalogue into a builder; file streams are memory-mapped, other streams are read at once
+     *
+     * @param inputStream (InputStream)
+     * @param builder     (StarCatalogue.Builder)
+     * @throws IOException if the stream is not a compiled catalogue of a supported version (as expected from I/O
+     *                     methods otherwise)
+     */
+    @Override
+    public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
+        if (inputStream instanceof FileInputStream) {
+            FileChannel channel = ((FileInputStream) inputStream).getChannel();
+            load(channel.map(FileChannel.MapMode.READ_ONLY, channel.position(), channel.size() - channel.position()),
+                    builder);
+        } else {
+            load(ByteBuffer.wrap(inputStream.readAllBytes()), builder);
+        }
+    }
+
+    /**
+     * Memory-maps a compiled catalogue file and loads it into a builder
+     *
+     * @param file    (Path) compiled catalogue
+     * @param builder (StarCatalogue.Builder)
+     * @throws IOException if the file is not a compiled catalogue of a supported version (as expected from I/O
+     *                     methods otherwise)
+     */
+    public void load(Path file, StarCatalogue.Builder builder) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), builder);
+        }
+        //The mapping stays valid after the channel is closed, and is released along with the buffer
+    }
+
+    /**
+     * Reads the columns and asterisms of a compiled catalogue
+     *
+     * @param buffer  (ByteBuffer) compiled catalogue, positioned at its first byte
+     * @param builder (StarCatalogue.Builder)
+     * @throws IOException if the buffer is not a compiled catalogue of a supported version
+     */
+    private static void load(ByteBuffer buffer, StarCatalogue.Builder builder) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("CompiledCatalogueLoader: not a compiled catalogue.");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("CompiledCatalogueLoader: unsupported version " + version + " (expected " +
+                        FORMAT_VERSION + "), the catalogue has to be recompiled.");
+            }
+            final int starCount = buffer.getInt();
+            final int asterismCount = buffer.getInt();
+
+            double[] ra = new double[starCount];
+            double[] dec = new double[starCount];
+            float[] magnitude = new float[starCount];
+            int[] colorTemperature = new int[starCount];
+            int[] hipparcosId = new int[starCount];
+            buffer.asDoubleBuffer().get(ra);
+            skip(buffer, Double.BYTES * starCount);
+            buffer.asDoubleBuffer().get(dec);
+            skip(buffer, Double.BYTES * starCount);
+            buffer.asFloatBuffer().get(magnitude);
+            skip(buffer, Float.BYTES * starCount);
+            buffer.asIntBuffer().get(colorTemperature);
+            skip(buffer, Integer.BYTES * starCount);
+            buffer.asIntBuffer().get(hipparcosId);
+            skip(buffer, Integer.BYTES * starCount);
+
+            int[] nameOffsets = readInts(buffer, starCount + 1);
+            byte[] nameBytes = new byte[nameOffsets[starCount]];
+            buffer.get(nameBytes);
+            String[] names = new String[starCount];
+            for (int i = 0; i < starCount; ++i) {
+                names[i] = new String(nameBytes, nameOffsets[i], nameOffsets[i + 1] - nameOffsets[i],
+                        StandardCharsets.UTF_8);
+            }
+
+            final int firstIndex = builder.appendColumns(ra, dec, magnitude, colorTemperature, hipparcosId, names);
+
+            int[] asterismOffsets = readInts(buffer, asterismCount + 1);
+            int[] asterismIndices = readInts(buffer, asterismOffsets[asterismCount]);
+            for (int a = 0; a < asterismCount; ++a) {
+                List<Star> asterismStars = new ArrayList<>(asterismOffsets[a + 1] - asterismOffsets[a]);
+                for (int k = asterismOffsets[a]; k < asterismOffsets[a + 1]; ++k) {
+                    asterismStars.add(builder.star(firstIndex + asterismIndices[k]));
+                }
+                builder.addAsterism(new Asterism(asterismStars));
+            }
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            throw new IOException("CompiledCatalogueLoader: truncated or corrupted catalogue.", e);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] ints = new int[count];
+        buffer.asIntBuffer().get(ints);
+        skip(buffer, Integer.BYTES * count);
+        return ints;
+    }
+
+    private static void skip(ByteBuffer buffer, int bytes) {
+        buffer.position(buffer.position() + bytes);
+    }
+}
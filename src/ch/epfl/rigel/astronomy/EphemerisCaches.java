@@ -0,0 +1,68 @@
+package ch.epfl.rigel.astronomy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Chebyshev caches of the solar system's models, one per model, shared by whoever evaluates them on the same executor
+ * (the sky pipeline and the orbit service): each span is then fitted and kept once.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class EphemerisCaches {
+
+    /**
+     * Models which are cached: the Sun, the Moon and the planets other than the Earth
+     */
+    public static final List<CelestialObjectModel<? extends CelestialObject>> MODELS = modelsList();
+
+    private final ExecutorService executor;
+    private final Map<CelestialObjectModel<?>, ChebyshevEphemeris<?>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param executor (ExecutorService) executor on which the caches' spans are fitted
+     */
+    public EphemerisCaches(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return (ExecutorService) executor on which the caches' spans are fitted
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * @param model (CelestialObjectModel<T>) model of an object
+     * @return (CelestialObjectModel<T>) the model's cache, created on first call, if it is one of MODELS; the model
+     *         itself otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CelestialObjectModel<T> of(CelestialObjectModel<T> model) {
+        if (!MODELS.contains(model)) {
+            return model;
+        }
+        return (CelestialObjectModel<T>) caches.computeIfAbsent(model, m -> ChebyshevEphemeris.of(m, executor));
+    }
+
+    /**
+     * @return (int) number of caches created so far
+     */
+    public int cacheCount() {
+        return caches.size();
+    }
+
+    private static List<CelestialObjectModel<? extends CelestialObject>> modelsList() {
+        final List<CelestialObjectModel<? extends CelestialObject>> models = new ArrayList<>();
+        models.add(SunModel.SUN);
+        models.add(MoonModel.MOON);
+        models.addAll(PlanetModel.EXTRATERRESTRIAL);
+        return Collections.unmodifiableList(models);
+    }
+}
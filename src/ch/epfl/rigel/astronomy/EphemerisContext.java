@@ -0,0 +1,90 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+
+import java.time.ZonedDateTime;
+
+/**
+ * State shared by all the solar system's models at a given instant, computed once: the Sun, which the Moon's model
+ * depends on, and the Earth's heliocentric position, which every planet's model depends on. Each is only computed
+ * when first needed, so that models not using it (like cached ones) do not pay for it.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ * @see CelestialObjectModel#at(EphemerisContext)
+ */
+public final class EphemerisContext {
+
+    private final double daysSinceJ2010;
+    private final EclipticToEquatorialConversion conversion;
+    //Computed at most a few times if first needed by several threads at once, which is harmless
+    private volatile Sun sun;
+    private volatile double[] earth;
+
+    /**
+     * Shared state at a given instant
+     *
+     * @param daysSinceJ2010 (double) days between J2010 and the instant
+     * @param conversion     (EclipticToEquatorialConversion) conversion at the instant
+     */
+    public EphemerisContext(double daysSinceJ2010, EclipticToEquatorialConversion conversion) {
+        this.daysSinceJ2010 = daysSinceJ2010;
+        this.conversion = conversion;
+    }
+
+    /**
+     * @param when (ZonedDateTime) instant
+     * @return (EphemerisContext) shared state at the given instant, with the conversion at that instant
+     */
+    public static EphemerisContext at(ZonedDateTime when) {
+        return new EphemerisContext(Epoch.J2010.daysUntil(when), new EclipticToEquatorialConversion(when));
+    }
+
+    /**
+     * @return (double) days between J2010 and the instant
+     */
+    public double daysSinceJ2010() {
+        return daysSinceJ2010;
+    }
+
+    /**
+     * @return (EclipticToEquatorialConversion) conversion at the instant
+     */
+    public EclipticToEquatorialConversion conversion() {
+        return conversion;
+    }
+
+    /**
+     * @return (Sun) the Sun at the instant
+     */
+    public Sun sun() {
+        Sun s = sun;
+        if (s == null) {
+            sun = s = SunModel.SUN.at(daysSinceJ2010, conversion);
+        }
+        return s;
+    }
+
+    /**
+     * @return (double) the Earth's heliocentric longitude, in radians (not normalized)
+     */
+    double earthHelioLon() {
+        return earth()[0];
+    }
+
+    /**
+     * @return (double) the Earth's distance to the Sun, in AU
+     */
+    double earthDistanceToSun() {
+        return earth()[1];
+    }
+
+    private double[] earth() {
+        double[] e = earth;
+        if (e == null) {
+            earth = e = new double[]{PlanetModel.EARTH.helioLon(daysSinceJ2010),
+                    PlanetModel.EARTH.distanceToSun(daysSinceJ2010)};
+        }
+        return e;
+    }
+}
@@ -0,0 +1,109 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+
+import java.util.stream.IntStream;
+
+/**
+ * Time series of a celestial object's properties, stored in columns rather than as one object per instant: filled by
+ * the batch form of CelestialObjectModel.at, read by index.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ * @see CelestialObjectModel#at(double[], ch.epfl.rigel.coordinates.EclipticToEquatorialConversion, EphemerisSeries)
+ */
+public final class EphemerisSeries {
+
+    //Instants per ForkJoin task when filling a series
+    private static final int INSTANTS_PER_TASK = 1 << 10;
+
+    final double[] ra, dec, angularSize, magnitude, phase;
+
+    /**
+     * @param size (int) number of instants the series can hold
+     * @throws IllegalArgumentException if size is negative
+     */
+    public EphemerisSeries(int size) {
+        Preconditions.checkArgument(size >= 0);
+        this.ra = new double[size];
+        this.dec = new double[size];
+        this.angularSize = new double[size];
+        this.magnitude = new double[size];
+        this.phase = new double[size];
+    }
+
+    /**
+     * @return (int) number of instants the series holds
+     */
+    public int size() {
+        return ra.length;
+    }
+
+    /**
+     * @param index (int) index of the instant
+     * @return (double) right ascension at the instant, in radians
+     */
+    public double ra(int index) {
+        return ra[index];
+    }
+
+    /**
+     * @param index (int) index of the instant
+     * @return (double) declination at the instant, in radians
+     */
+    public double dec(int index) {
+        return dec[index];
+    }
+
+    /**
+     * @param index (int) index of the instant
+     * @return (double) angular size at the instant, in radians
+     */
+    public double angularSize(int index) {
+        return angularSize[index];
+    }
+
+    /**
+     * @param index (int) index of the instant
+     * @return (double) apparent magnitude at the instant
+     */
+    public double magnitude(int index) {
+        return magnitude[index];
+    }
+
+    /**
+     * @param index (int) index of the instant
+     * @return (double) phase at the instant, in [0, 1], NaN for objects without phases (all but the Moon)
+     */
+    public double phase(int index) {
+        return phase[index];
+    }
+
+    /**
+     * Functional interface receiving ranges of instants
+     */
+    interface RangeConsumer {
+        void accept(int from, int to);
+    }
+
+    /**
+     * Splits [0, size[ into ranges handed to action in parallel, on the common ForkJoin pool
+     *
+     * @param size   (int) number of instants
+     * @param action (RangeConsumer) action filling the series over a range
+     */
+    static void inChunks(int size, RangeConsumer action) {
+        IntStream.range(0, (size + INSTANTS_PER_TASK - 1) / INSTANTS_PER_TASK).parallel().forEach(task -> {
+            final int from = task * INSTANTS_PER_TASK;
+            action.accept(from, Math.min(size, from + INSTANTS_PER_TASK));
+        });
+    }
+
+    /**
+     * @param days (double[]) instants
+     * @throws IllegalArgumentException if the series cannot hold all the instants
+     */
+    void checkCanHold(double[] days) {
+        Preconditions.checkArgument(days.length <= size());
+    }
+}
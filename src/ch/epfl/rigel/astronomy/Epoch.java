@@ -17,11 +17,18 @@ public enum Epoch {
     private static final double COEFF_JULIAN = 1d / 36525;
     private static final long MILLIS_IN_DAY = 86_400_000L;
     private static final long NANOS_IN_DAY = 86_400_000_000_000L;
+    private static final double NANOS_TO_MILLIS = 1e-6;
+    //Julian Date of the Unix epoch, 1970-01-01T00:00Z
+    private static final double UNIX_EPOCH_JULIAN_DATE = 2_440_587.5;
 
     private final ZonedDateTime epoch;
+    private final long epochMillis;
+    private final double epochJulianDate;
 
     Epoch(ZonedDateTime date) {
         this.epoch = date;
+        this.epochMillis = date.toInstant().toEpochMilli();
+        this.epochJulianDate = julianDate(epochMillis);
     }
 
     /**
@@ -29,7 +36,36 @@ public enum Epoch {
      * @return (double) the distance in days from our epoch to when
      */
     public double daysUntil(ZonedDateTime when) {
-        return until(epoch, when) * COEFF_TO_DAYS;
+        //Read from the date's fields directly: no conversion between zones, no intermediate date object
+        return ((when.toEpochSecond() * 1000 - epochMillis) + when.getNano() * NANOS_TO_MILLIS) * COEFF_TO_DAYS;
+    }
+
+    /**
+     * Same as daysUntil(ZonedDateTime), creating no object: for evaluations at many instants
+     *
+     * @param epochMillis (long) the time we want to know the distance of, in milliseconds since 1970-01-01T00:00Z
+     * @return (double) the distance in days from our epoch to when
+     */
+    public double daysUntil(long epochMillis) {
+        return (epochMillis - this.epochMillis) * COEFF_TO_DAYS;
+    }
+
+    /**
+     * Same as daysUntil(ZonedDateTime), creating no object: for evaluations at many instants
+     *
+     * @param julianDate (double) the time we want to know the distance of, as a Julian Date (UT)
+     * @return (double) the distance in days from our epoch to when
+     */
+    public double daysUntilJulianDate(double julianDate) {
+        return julianDate - epochJulianDate;
+    }
+
+    /**
+     * @param epochMillis (long) milliseconds since 1970-01-01T00:00Z
+     * @return (double) the corresponding Julian Date
+     */
+    public static double julianDate(long epochMillis) {
+        return UNIX_EPOCH_JULIAN_DATE + epochMillis * COEFF_TO_DAYS;
     }
 
     /**
@@ -41,6 +77,22 @@ public enum Epoch {
         return daysUntil(when) * COEFF_JULIAN;
     }
 
+    /**
+     * @param epochMillis (long) the time we want to know the distance of, in milliseconds since 1970-01-01T00:00Z
+     * @return (double) the distance in julian centuries from our epoch to when
+     */
+    public double julianCenturiesUntil(long epochMillis) {
+        return daysUntil(epochMillis) * COEFF_JULIAN;
+    }
+
+    /**
+     * @param julianDate (double) the time we want to know the distance of, as a Julian Date (UT)
+     * @return (double) the distance in julian centuries from our epoch to when
+     */
+    public double julianCenturiesUntilJulianDate(double julianDate) {
+        return daysUntilJulianDate(julianDate) * COEFF_JULIAN;
+    }
+
     /**
      * Custom made until function from Java sources, this implementation is ~3x faster than the classic Java function
      * This function will be public in part 7 as the public interface may be changed from now on
@@ -1,18 +1,23 @@
 package ch.epfl.rigel.astronomy;
 
-import ch.epfl.rigel.coordinates.EquatorialCoordinates;
-
-import java.io.BufferedReader;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.function.Function;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Utility class for loading the HYG database
  *
+ * Lines are not decoded into Strings: a byte-level parser scans the (memory-mapped whenever possible) file, only
+ * decodes the 8 columns it needs and parses numbers in place. The file is cut into line-aligned chunks which are
+ * parsed in parallel on the common ForkJoin pool, then added to the builder in their original order.
+ *
  * @author Alexandre Sallinen (303162)
  * @author Salim Najib (310003)
  */
@@ -27,8 +32,24 @@ public enum HygDatabaseLoader implements StarCatalogue.Loader {
         COMP, COMP_PRIMARY, BASE, LUM, VAR, VAR_MIN, VAR_MAX
     }
 
+    private static final int SCANNED_COLUMNS = Column.CON.ordinal() + 1; //Columns after CON are never looked at
+    private static final int CHUNK_SIZE = 1 << 18;
+    private static final byte SEPARATOR = ',';
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    //Clinger's fast path bounds: below them, mantissa and power of ten are exact and so is their quotient/product
+    private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+    private static final long MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+    private static final int MAX_EXACT_DOUBLE_EXPONENT = 22;
+    private static final int MAX_EXACT_FLOAT_EXPONENT = 10;
+    private static final double[] POWERS_OF_TEN = IntStream.rangeClosed(0, MAX_EXACT_DOUBLE_EXPONENT)
+            .mapToDouble(i -> Double.parseDouble("1e" + i)).toArray();
+    private static final float[] FLOAT_POWERS_OF_TEN = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f,
+            1e10f};
+
     /**
-     * Loads an HYG database into a builder
+     * Loads an HYG database into a builder, closing the given stream
      *
      * @param inputStream (InputStream)
      * @param builder     (StarCatalogue.Builder)
@@ -37,45 +58,288 @@ public enum HygDatabaseLoader implements StarCatalogue.Loader {
     @Override
     public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
 
-        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream,
-                StandardCharsets.US_ASCII))) {
-
-            //Skipping the first line
-            reader.readLine();
-            reader.lines().forEach(lineInFile -> {
-                final String[] line = lineInFile.split(",");
-                builder.addStar(
-                        new Star(
-                                /*hipparcos*/ buildWithDefault(line[Column.HIP.ordinal()], 0, Integer::parseInt),
+        final ByteBuffer buffer;
+        try (final InputStream stream = inputStream) {
+            if (stream instanceof FileInputStream) {
+                FileChannel channel = ((FileInputStream) stream).getChannel();
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, channel.position(),
+                        channel.size() - channel.position());
+            } else {
+                buffer = ByteBuffer.wrap(stream.readAllBytes());
+            }
+        }
+        //The mapping stays valid after the stream and its channel are closed
 
-                                /*name*/ buildWithDefault(line[Column.PROPER.ordinal()], buildWithDefault(line[Column.BAYER.ordinal()],
-                                "? " + line[Column.CON.ordinal()], x -> (x + " " + line[Column.CON.ordinal()])), Function.identity()),
+        //Skipping the first line
+        final int[] chunkBounds = chunkBounds(buffer, nextLine(buffer, 0));
 
-                                /*EquatorialCoords*/ EquatorialCoordinates.of(Double.parseDouble(line[Column.RARAD.ordinal()]),
-                                Double.parseDouble(line[Column.DECRAD.ordinal()])),
+        final List<Rows> chunks = IntStream.range(0, chunkBounds.length - 1)
+                .parallel()
+                .mapToObj(i -> parseChunk(buffer, chunkBounds[i], chunkBounds[i + 1]))
+                .collect(Collectors.toList());
+        //The stream is ordered: chunks are collected in file order even though they are parsed concurrently
 
-                                /*magnitude*/ buildWithDefault(line[Column.MAG.ordinal()], 0, Float::parseFloat).floatValue(),
+        for (Rows rows : chunks) {
+            for (int i = 0; i < rows.count; ++i) {
+                builder.addStar(rows.hipparcosId[i], rows.names[i], rows.ra[i], rows.dec[i], rows.magnitude[i],
+                        rows.colorIndex[i]);
+                //Columnar addition: no Star is created, the builder only stores primitive columns
+            }
+        }
+    }
 
-                                /*colorIndex*/ buildWithDefault(line[Column.CI.ordinal()], 0, Float::parseFloat).floatValue()
-                        ));
-            });
+    /**
+     * Cuts [from, buffer.limit()[ into chunks of roughly CHUNK_SIZE bytes, each ending right after a new line
+     *
+     * @param buffer (ByteBuffer) whole file
+     * @param from   (int) first byte of the first chunk
+     * @return (int[]) chunk bounds: chunk i is [bounds[i], bounds[i + 1][
+     */
+    private static int[] chunkBounds(ByteBuffer buffer, int from) {
+        final int limit = buffer.limit();
+        int[] bounds = new int[(limit - from) / CHUNK_SIZE + 2];
+        int count = 0;
+        bounds[count++] = from;
+        while (from < limit) {
+            from = nextLine(buffer, Math.min(limit, from + CHUNK_SIZE));
+            bounds[count++] = from;
+        }
+        return Arrays.copyOf(bounds, count);
+    }
 
-        } catch (UncheckedIOException e) { //Streams throw UncheckedIOExceptions, and need not to modify the API
-            throw e.getCause();
+    /**
+     * @param buffer (ByteBuffer)
+     * @param from   (int) index to start looking from
+     * @return (int) index right after the first new line at or after from, buffer's limit if there is none
+     */
+    private static int nextLine(ByteBuffer buffer, int from) {
+        final int limit = buffer.limit();
+        while (from < limit && buffer.get(from) != NEW_LINE) {
+            ++from;
         }
+        return Math.min(limit, from + 1);
     }
 
     /**
-     * Auxiliary method associating a string to a return value of type T, either default if string's empty or
-     * obtained via function convert
+     * Parses all the lines of a chunk, only reading absolutely from the buffer so that chunks can be parsed
+     * concurrently
      *
-     * @param sub     (String) targeted string
-     * @param def     (T) default return value
-     * @param convert (Function<String, T>) transformation to apply upon sub if non-empty
-     * @param <T>     return value type
-     * @return (T)
+     * @param buffer (ByteBuffer) whole file
+     * @param from   (int) first byte of the chunk, at the start of a line
+     * @param to     (int) byte after the last one of the chunk, right after a new line or at buffer's limit
+     * @return (Rows) parsed rows
+     */
+    private static Rows parseChunk(ByteBuffer buffer, int from, int to) {
+        final Rows rows = new Rows();
+        final int[] fieldStarts = new int[SCANNED_COLUMNS];
+        final int[] fieldEnds = new int[SCANNED_COLUMNS];
+        byte[] scratch = new byte[64];
+
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            while (lineEnd < to && buffer.get(lineEnd) != NEW_LINE) {
+                ++lineEnd;
+            }
+            final int nextLineStart = lineEnd + 1;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == CARRIAGE_RETURN) {
+                --lineEnd;
+            }
+
+            if (lineEnd > lineStart) {
+                //Splitting the line: only the fields' bounds are stored, missing fields are empty
+                int column = 0;
+                fieldStarts[0] = lineStart;
+                for (int i = lineStart; i < lineEnd && column < SCANNED_COLUMNS; ++i) {
+                    if (buffer.get(i) == SEPARATOR) {
+                        fieldEnds[column++] = i;
+                        if (column < SCANNED_COLUMNS) fieldStarts[column] = i + 1;
+                    }
+                }
+                if (column < SCANNED_COLUMNS) {
+                    fieldEnds[column] = lineEnd;
+                    for (int c = column + 1; c < SCANNED_COLUMNS; ++c) {
+                        fieldStarts[c] = fieldEnds[c] = lineEnd;
+                    }
+                }
+
+                scratch = ensureScratch(scratch, lineEnd - lineStart);
+                rows.add(
+                        /*hipparcos*/ parseInt(buffer, fieldStarts, fieldEnds, Column.HIP),
+
+                        /*name*/ name(buffer, fieldStarts, fieldEnds, scratch),
+
+                        /*right ascension*/ parseDouble(buffer, fieldStarts, fieldEnds, Column.RARAD, scratch),
+
+                        /*declination*/ parseDouble(buffer, fieldStarts, fieldEnds, Column.DECRAD, scratch),
+
+                        /*magnitude*/ parseFloat(buffer, fieldStarts, fieldEnds, Column.MAG, scratch),
+
+                        /*colorIndex*/ parseFloat(buffer, fieldStarts, fieldEnds, Column.CI, scratch));
+            }
+            lineStart = nextLineStart;
+        }
+        return rows;
+    }
+
+    /**
+     * Builds a star's name: its proper name if it has one, else its bayer designation followed by its constellation,
+     * else "?" followed by its constellation
+     */
+    private static String name(ByteBuffer buffer, int[] starts, int[] ends, byte[] scratch) {
+        final int proper = Column.PROPER.ordinal(), bayer = Column.BAYER.ordinal(), con = Column.CON.ordinal();
+        if (ends[proper] > starts[proper]) {
+            return decode(buffer, starts[proper], ends[proper], scratch);
+        }
+        final String constellation = decode(buffer, starts[con], ends[con], scratch);
+        return (ends[bayer] > starts[bayer] ? decode(buffer, starts[bayer], ends[bayer], scratch) : "?")
+                + " " + constellation;
+    }
+
+    /**
+     * @return (int) integer in given column, 0 if it is empty
+     * @throws NumberFormatException if the column does not hold an integer
+     */
+    private static int parseInt(ByteBuffer buffer, int[] starts, int[] ends, Column column) {
+        final int from = starts[column.ordinal()], to = ends[column.ordinal()];
+        int value = 0;
+        for (int i = from; i < to; ++i) {
+            final int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10) {
+                return Integer.parseInt(decode(buffer, from, to, new byte[to - from])); //Throws the right exception
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return (double) number in given column, parsed in place when it is exactly representable that way
+     * @throws NumberFormatException if the column is empty or does not hold a number
+     */
+    private static double parseDouble(ByteBuffer buffer, int[] starts, int[] ends, Column column, byte[] scratch) {
+        final int from = starts[column.ordinal()], to = ends[column.ordinal()];
+        final long decimal = parseDecimal(buffer, from, to, MAX_EXACT_DOUBLE_MANTISSA, MAX_EXACT_DOUBLE_EXPONENT);
+        if (decimal == NOT_FAST) {
+            return Double.parseDouble(decode(buffer, from, to, scratch));
+        }
+        final double value = (double) mantissaOf(decimal) / POWERS_OF_TEN[fractionDigitsOf(decimal)];
+        return isNegative(decimal) ? -value : value;
+    }
+
+    /**
+     * @return (float) number in given column, parsed in place when it is exactly representable that way, 0 if the
+     *         column is empty
+     * @throws NumberFormatException if the column does not hold a number
+     */
+    private static float parseFloat(ByteBuffer buffer, int[] starts, int[] ends, Column column, byte[] scratch) {
+        final int from = starts[column.ordinal()], to = ends[column.ordinal()];
+        if (from == to) {
+            return 0;
+        }
+        final long decimal = parseDecimal(buffer, from, to, MAX_EXACT_FLOAT_MANTISSA, MAX_EXACT_FLOAT_EXPONENT);
+        if (decimal == NOT_FAST) {
+            return Float.parseFloat(decode(buffer, from, to, scratch));
+        }
+        final float value = (float) mantissaOf(decimal) / FLOAT_POWERS_OF_TEN[fractionDigitsOf(decimal)];
+        return isNegative(decimal) ? -value : value;
+    }
+
+    /*
+      A decimal of the form [-]digits[.digits] is packed in a long: bit 63 is unused, bit 62 the sign, bits 61 to 56
+      the number of fraction digits and bits 55 to 0 the mantissa. NOT_FAST signals anything else (exponents, too many
+      digits, malformed input...), which is then handed to the JDK's parsers.
      */
-    private static <T> T buildWithDefault(String sub, T def, Function<String, T> convert) {
-        return sub.equals("") ? def : convert.apply(sub);
+    private static final long NOT_FAST = -1;
+    private static final int SIGN_SHIFT = 62;
+    private static final int EXPONENT_SHIFT = 56;
+    private static final long MANTISSA_MASK = (1L << EXPONENT_SHIFT) - 1;
+
+    private static long parseDecimal(ByteBuffer buffer, int from, int to, long maxMantissa, int maxExponent) {
+        if (from == to) {
+            return NOT_FAST;
+        }
+        long sign = 0;
+        byte first = buffer.get(from);
+        if (first == '-' || first == '+') {
+            sign = (first == '-') ? 1 : 0;
+            ++from;
+        }
+        long mantissa = 0;
+        int fractionDigits = 0, digits = 0;
+        boolean inFraction = false;
+        for (int i = from; i < to; ++i) {
+            final byte b = buffer.get(i);
+            if (b == '.' && !inFraction) {
+                inFraction = true;
+            } else if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                ++digits;
+                if (inFraction) ++fractionDigits;
+                if (mantissa > maxMantissa || fractionDigits > maxExponent) {
+                    return NOT_FAST;
+                }
+            } else {
+                return NOT_FAST;
+            }
+        }
+        return digits == 0 ? NOT_FAST :
+                (sign << SIGN_SHIFT) | ((long) fractionDigits << EXPONENT_SHIFT) | mantissa;
+    }
+
+    private static long mantissaOf(long decimal) {
+        return decimal & MANTISSA_MASK;
+    }
+
+    private static int fractionDigitsOf(long decimal) {
+        return (int) ((decimal >>> EXPONENT_SHIFT) & ((1 << (SIGN_SHIFT - EXPONENT_SHIFT)) - 1));
+    }
+
+    private static boolean isNegative(long decimal) {
+        return (decimal >>> SIGN_SHIFT) == 1;
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to, byte[] scratch) {
+        buffer.get(from, scratch, 0, to - from);
+        return new String(scratch, 0, to - from, StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] ensureScratch(byte[] scratch, int length) {
+        return scratch.length >= length ? scratch : new byte[Math.max(length, 2 * scratch.length)];
+    }
+
+    /**
+     * Growable columns of parsed rows
+     */
+    private static final class Rows {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private int count;
+        private int[] hipparcosId = new int[INITIAL_CAPACITY];
+        private String[] names = new String[INITIAL_CAPACITY];
+        private double[] ra = new double[INITIAL_CAPACITY];
+        private double[] dec = new double[INITIAL_CAPACITY];
+        private float[] magnitude = new float[INITIAL_CAPACITY];
+        private float[] colorIndex = new float[INITIAL_CAPACITY];
+
+        private void add(int hipparcosId, String name, double ra, double dec, float magnitude, float colorIndex) {
+            if (count == this.ra.length) {
+                final int newCapacity = 2 * count;
+                this.hipparcosId = Arrays.copyOf(this.hipparcosId, newCapacity);
+                this.names = Arrays.copyOf(this.names, newCapacity);
+                this.ra = Arrays.copyOf(this.ra, newCapacity);
+                this.dec = Arrays.copyOf(this.dec, newCapacity);
+                this.magnitude = Arrays.copyOf(this.magnitude, newCapacity);
+                this.colorIndex = Arrays.copyOf(this.colorIndex, newCapacity);
+            }
+            this.hipparcosId[count] = hipparcosId;
+            this.names[count] = name;
+            this.ra[count] = ra;
+            this.dec[count] = dec;
+            this.magnitude[count] = magnitude;
+            this.colorIndex[count] = colorIndex;
+            ++count;
+        }
     }
 }
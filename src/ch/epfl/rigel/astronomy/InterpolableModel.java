@@ -0,0 +1,62 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+
+/**
+ * Model whose objects are fully determined by a few smooth real functions of time, the channels: the object's
+ * ecliptic longitude and latitude, its angular size and a model specific fourth value. These can be interpolated,
+ * the objects then being rebuilt from the interpolated channels.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ * @see ChebyshevEphemeris
+ */
+interface InterpolableModel<O> extends CelestialObjectModel<O> {
+
+    int CHANNEL_COUNT = 4;
+    int LON = 0, LAT = 1, SIZE = 2, EXTRA = 3;
+
+    /**
+     * Computes the channels at a given time
+     *
+     * @param daysSinceJ2010 (double) days between J2010 and the instant
+     * @param out            (double[]) output channels: longitude in [0, 2pi[, latitude, angular size and extra value
+     */
+    void channels(double daysSinceJ2010, double[] out);
+
+    /**
+     * Builds the object from its channels, which may have been interpolated
+     *
+     * @param channels   (double[]) channels, the longitude being normalized in [0, 2pi[
+     * @param conversion (EclipticToEquatorialConversion) conversion at the instant
+     * @return (O) object with the given channels
+     */
+    O fromChannels(double[] channels, EclipticToEquatorialConversion conversion);
+
+    /**
+     * Writes the object with the given channels into a series, like fromChannels but creating no object
+     *
+     * @param channels   (double[]) channels, the longitude being normalized in [0, 2pi[
+     * @param conversion (EclipticToEquatorialConversion) conversion at the instant
+     * @param out        (EphemerisSeries) output series
+     * @param index      (int) index written to
+     */
+    void toColumns(double[] channels, EclipticToEquatorialConversion conversion, EphemerisSeries out, int index);
+
+    /**
+     * Batch form of at going through channels only
+     *
+     * @see CelestialObjectModel#at(double[], EclipticToEquatorialConversion, EphemerisSeries)
+     */
+    @Override
+    default void at(double[] daysSinceJ2010, EclipticToEquatorialConversion conversion, EphemerisSeries out) {
+        out.checkCanHold(daysSinceJ2010);
+        EphemerisSeries.inChunks(daysSinceJ2010.length, (from, to) -> {
+            final double[] channels = new double[CHANNEL_COUNT];
+            for (int i = from; i < to; ++i) {
+                channels(daysSinceJ2010[i], channels);
+                toColumns(channels, conversion, out, i);
+            }
+        });
+    }
+}
@@ -16,7 +16,7 @@ import static java.lang.Math.*;
  * @author Alexandre Sallinen (303162)
  * @author Salim Najib (310003)
  */
-public enum MoonModel implements CelestialObjectModel<Moon> {
+public enum MoonModel implements InterpolableModel<Moon> {
 
     MOON;
 
@@ -46,16 +46,70 @@ public enum MoonModel implements CelestialObjectModel<Moon> {
      */
     @Override
     public Moon at(double daysSinceJ2010, EclipticToEquatorialConversion eclipToEquaConversion) {
+        final double[] channels = new double[CHANNEL_COUNT];
+        channels(daysSinceJ2010, channels);
+        return fromChannels(channels, eclipToEquaConversion);
+    }
+
+    /**
+     * Computes the Moon's position from the context's Sun
+     *
+     * @param context (EphemerisContext) shared state at the instant
+     * @return (Moon) fully parametrized Moon
+     */
+    @Override
+    public Moon at(EphemerisContext context) {
+        final double[] channels = new double[CHANNEL_COUNT];
+        channels(context.daysSinceJ2010(), context.sun().eclipticPos().lon(), context.sun().meanAnomaly(), channels);
+        return fromChannels(channels, context.conversion());
+    }
+
+    /**
+     * Computes the Moon's channels, the extra one being its phase
+     *
+     * @param daysSinceJ2010 (double) days between J2010 and the instant
+     * @param out            (double[]) output channels
+     */
+    @Override
+    public void channels(double daysSinceJ2010, double[] out) {
+        SunModel.SUN.channels(daysSinceJ2010, out);
+        //The Sun's mean anomaly is rounded like in Sun objects
+        channels(daysSinceJ2010, out[LON], (float) out[EXTRA], out);
+    }
+
+    /**
+     * @param channels   (double[]) channels
+     * @param conversion (EclipticToEquatorialConversion) conversion at the instant
+     * @return (Moon) the Moon with the given channels
+     */
+    @Override
+    public Moon fromChannels(double[] channels, EclipticToEquatorialConversion conversion) {
+        //Interpolated channels may slightly overshoot their bounds
+        return new Moon(conversion.apply(EclipticCoordinates.of(channels[LON],
+                        max(-PI / 2, min(PI / 2, channels[LAT])))),
+                (float) channels[SIZE],
+                0, (float) max(0, min(1, channels[EXTRA])));
+    }
+
+    /**
+     * @see InterpolableModel#toColumns(double[], EclipticToEquatorialConversion, EphemerisSeries, int)
+     */
+    @Override
+    public void toColumns(double[] channels, EclipticToEquatorialConversion conversion, EphemerisSeries out,
+                          int index) {
+        conversion.apply(channels[LON], max(-PI / 2, min(PI / 2, channels[LAT])), out.ra, out.dec, index);
+        out.angularSize[index] = (float) channels[SIZE];
+        out.magnitude[index] = 0;
+        out.phase[index] = (float) max(0, min(1, channels[EXTRA]));
+    }
+
+    private void channels(double daysSinceJ2010, double sunLon, double sunMeanAnomaly, double[] out) {
 
         //Mean anomaly
         double lonOrbM = c[0] * daysSinceJ2010 + LON_M;
         double AnMoy = lonOrbM - c[1] * daysSinceJ2010 - LON_PER;
 
-        //Computation of Sun's values
-        Sun sun = SunModel.SUN.at(daysSinceJ2010, eclipToEquaConversion);
-
-        double sunLon = sun.eclipticPos().lon();
-        double sin_sunMeanAnomaly = sin(sun.meanAnomaly());
+        double sin_sunMeanAnomaly = sin(sunMeanAnomaly);
 
         //Computing ingredients for Moon's position, phase and angular size
         double evection = c[2] * sin(2 * (lonOrbM - sunLon) - AnMoy);
@@ -69,11 +123,9 @@ public enum MoonModel implements CelestialObjectModel<Moon> {
         double lonCorrAsc = LON_ASC - c[7] * daysSinceJ2010 - c[8] * sin_sunMeanAnomaly;
         double lonOrb_lonCorrAsc = lonOrb - lonCorrAsc;
 
-        return new Moon(eclipToEquaConversion.apply(
-                EclipticCoordinates.of(
-                        Angle.normalizePositive(atan2(sin(lonOrb_lonCorrAsc) * COS_INC, cos(lonOrb_lonCorrAsc)) + lonCorrAsc),
-                            asin(sin(lonOrb_lonCorrAsc) * SIN_INC))),
-                (float) (((1 + EXC * cos(anomaly + CorrC)) / (ONE_MIN_EXC2)) * c[9]),
-                0, (float) ((1 - cos(lonOrb - sunLon)) / 2));
+        out[LON] = Angle.normalizePositive(atan2(sin(lonOrb_lonCorrAsc) * COS_INC, cos(lonOrb_lonCorrAsc)) + lonCorrAsc);
+        out[LAT] = asin(sin(lonOrb_lonCorrAsc) * SIN_INC);
+        out[SIZE] = ((1 + EXC * cos(anomaly + CorrC)) / (ONE_MIN_EXC2)) * c[9];
+        out[EXTRA] = (1 - cos(lonOrb - sunLon)) / 2;
     }
 }
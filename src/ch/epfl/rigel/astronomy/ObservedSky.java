@@ -1,22 +1,25 @@
 package ch.epfl.rigel.astronomy;
 
+import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.coordinates.*;
+import ch.epfl.rigel.math.ClosedInterval;
 
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static ch.epfl.rigel.coordinates.PlanarTransformation.euclideanDistSquared;
-import static ch.epfl.rigel.coordinates.PlanarTransformation.euclideanDistance;
+import static java.lang.Math.PI;
 
 /**
  * Pooling all the models and corresponding celestial objects, creating a representation of the Observed Sky at a
@@ -27,69 +30,157 @@ import static ch.epfl.rigel.coordinates.PlanarTransformation.euclideanDistance;
  */
 public final class ObservedSky {
 
+    private static final int STARS_PER_TASK = 1 << 11;
+    private static final ClosedInterval VIEW_RADIUS_INTERVAL = ClosedInterval.of(0, PI);
+    //Keeps the stars just out of view while a new sky is being computed for a slightly zoomed out or moved view
+    private static final double VIEW_MARGIN = 1.15;
+    //Limiting magnitude when a degree spans REFERENCE_DENSITY pixels, gaining 5 per tenfold zoom, as for a telescope
+    private static final double REFERENCE_MAGNITUDE = 6.5;
+    private static final double REFERENCE_DENSITY = 10;
+
     private Map<Sun, CartesianCoordinates> sunMap;
     private Map<Moon, CartesianCoordinates> moonMap;
-    private Map<Star, CartesianCoordinates> starMap;
     private Map<Planet, CartesianCoordinates> planetMap;
 
-    private Map<CelestialObject, CartesianCoordinates> celestObjToCoordsMap;
+    //Star positions are written by ProjectionKernel into these buffers, indexed like the catalogue and read through
+    //x(i) and y(i); the maps below are only built from them if asked for
+    private final double[] starX, starY;
+    //Catalogue indices of the stars which go through the kernel when culling, asterisms' stars first
+    private final int[] culledIndices;
+    private final StarGrid starGrid;
+    private int processedStarCount;
+    //Stars whose positions were written: the computedCount first of culledIndices, unless they all were
+    private boolean allStarsComputed;
+    private int computedCount;
+    private volatile boolean isRecycled;
+    private volatile Map<Star, CartesianCoordinates> starMap;
+    private volatile Map<CelestialObject, CartesianCoordinates> celestObjToCoordsMap;
 
     private final StereographicProjection stereoProj;
     private final EquatorialToHorizontalConversion eqToHor;
-    private final EclipticToEquatorialConversion eclToEqu;
-    private final double daysUntilJ2010;
+    private final ProjectionKernel kernel;
+    private final SkyPipeline.HorizontalSky horizontal;
     private final StarCatalogue catalogue;
+    private final double viewRadius;
+    private final boolean aboveHorizonOnly;
+    private final double limitingMagnitude;
+    //Center of projection, as an equatorial unit vector
+    private final double axisX, axisY, axisZ;
 
     private final CartesianCoordinates sunPosition;
     private final CartesianCoordinates moonPosition;
     private final Moon moon;
     private final Sun sun;
 
-    private static final Function<CartesianCoordinates, BiFunction<CartesianCoordinates, CartesianCoordinates, Integer>>
-            CLOSEST_TO_C = c -> (a, b) -> Double.compare(euclideanDistSquared(a, c), euclideanDistSquared(b, c));
-
-    private static final Function<CartesianCoordinates, BiFunction<CartesianCoordinates, Double, Boolean>>
-            IS_IN_SQUARE_AROUND = point -> (cartes, distance) -> cartes.x() - point.x() <= distance &&
-                                                                 cartes.y() - point.y() <= distance;
-
     /**
-     * Constructs an ObservedSky at a given time, place, center of projection and a set list of stars,
-     * also performing prerequisite computations and collections management ensuring greater efficiency
-     * for methods below.
+     * Constructs an ObservedSky at a given time, place, center of projection and a set list of stars, in the calling
+     * thread, which is meant to be a background one (see SkyPipeline and SkyCanvasManager), reusing the star position
+     * buffers of a sky which is no longer used so that recomputing the sky at every frame does not allocate them anew.
+     * Once recycled, a sky's star positions are overwritten: its accessors reading them throw from then on.
      *
      * @param date       (ZonedDateTime) observation date and time, with timezone
      * @param geoCoords  (GeographicCoordinates) point of observation
      * @param projection (StereographicProjection) center of projection
      * @param catalogue  (StarCatalogue) stars and their asterisms
-     * @param execServ   (ExecutorService) executor service for mapObjectToPosition
+     * @param recycled   (ObservedSky) sky no longer in use whose buffers are taken over, may be null
      */
-    public ObservedSky(ZonedDateTime date, GeographicCoordinates geoCoords,
-                       StereographicProjection projection, StarCatalogue catalogue, ExecutorService execServ) {
-        this.stereoProj = projection;
-        this.eqToHor = new EquatorialToHorizontalConversion(date, geoCoords);
-        this.eclToEqu = new EclipticToEquatorialConversion(date);
-        this.daysUntilJ2010 = Epoch.J2010.daysUntil(date);
-        this.catalogue = catalogue;
-
-        try {
-            execServ.submit (() -> {
-
-                this.sunMap = mapSingleObjectToPosition(SunModel.SUN, this::applyModel);
-                this.moonMap = mapSingleObjectToPosition(MoonModel.MOON, this::applyModel);
-                this.planetMap = mapObjectsToPosition(PlanetModel.EXTRATERRESTRIAL, this::applyModel);
-                this.starMap = mapObjectsToPosition(catalogue.stars());
+    public ObservedSky(ZonedDateTime date, GeographicCoordinates geoCoords, StereographicProjection projection,
+                       StarCatalogue catalogue, ObservedSky recycled) {
+        this(horizontalAt(date, geoCoords), projection, catalogue, PI, false, Double.POSITIVE_INFINITY, recycled);
+    }
 
-                this.celestObjToCoordsMap = Collections.unmodifiableMap(Stream.of(starMap, planetMap, sunMap, moonMap)
-                        .flatMap(l -> l.entrySet().stream())
-                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (u, v) -> v)));
+    /**
+     * Constructs an ObservedSky like above, culling the stars which cannot be seen: only the stars within viewRadius of
+     * the center of projection (and above the horizon if asked so) go through conversion and projection, the others'
+     * positions being NaN. Stars of asterisms are kept whatever their distance to the center, so that the lines
+     * leaving the view can still be drawn.
+     *
+     * @param date             (ZonedDateTime) observation date and time, with timezone
+     * @param geoCoords        (GeographicCoordinates) point of observation
+     * @param projection       (StereographicProjection) center of projection
+     * @param catalogue        (StarCatalogue) stars and their asterisms
+     * @param viewRadius       (double) angular radius of the visible cap around the center of projection, in radians
+     * @param aboveHorizonOnly (boolean) whether stars below the horizon are culled as well
+     * @param recycled         (ObservedSky) sky no longer in use whose buffers are taken over, may be null
+     * @throws IllegalArgumentException if viewRadius is not in [0, pi]
+     * @see #viewRadius(double, double, double)
+     */
+    public ObservedSky(ZonedDateTime date, GeographicCoordinates geoCoords, StereographicProjection projection,
+                       StarCatalogue catalogue, double viewRadius, boolean aboveHorizonOnly, ObservedSky recycled) {
+        this(horizontalAt(date, geoCoords), projection, catalogue, viewRadius, aboveHorizonOnly, Double.POSITIVE_INFINITY,
+                recycled);
+    }
 
-            }).get();
+    /**
+     * Constructs an ObservedSky like above from an already computed horizontal stage, only projecting: the stage is
+     * shared by all the views at its instant and place.
+     *
+     * @param horizontal       (SkyPipeline.HorizontalSky) solar system objects and conversion at an instant and place
+     * @param projection       (StereographicProjection) center of projection
+     * @param catalogue        (StarCatalogue) stars and their asterisms
+     * @param viewRadius       (double) angular radius of the visible cap around the center of projection, in radians
+     * @param aboveHorizonOnly (boolean) whether stars below the horizon are culled as well
+     * @param recycled         (ObservedSky) sky no longer in use whose buffers are taken over, may be null
+     * @throws IllegalArgumentException if viewRadius is not in [0, pi]
+     * @see SkyPipeline
+     */
+    public ObservedSky(SkyPipeline.HorizontalSky horizontal, StereographicProjection projection,
+                       StarCatalogue catalogue, double viewRadius, boolean aboveHorizonOnly, ObservedSky recycled) {
+        this(horizontal, projection, catalogue, viewRadius, aboveHorizonOnly, Double.POSITIVE_INFINITY, recycled);
+    }
 
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+    /**
+     * Constructs an ObservedSky like above, also leaving out the stars fainter than a limiting magnitude (apart from
+     * the asterisms' ones): when few stars are bright enough, only the start of the catalogue's magnitude order is
+     * processed, so that the work done scales with the stars shown rather than with the catalogue's size
+     *
+     * @param horizontal        (SkyPipeline.HorizontalSky) solar system objects and conversion at an instant and place
+     * @param projection        (StereographicProjection) center of projection
+     * @param catalogue         (StarCatalogue) stars and their asterisms
+     * @param viewRadius        (double) angular radius of the visible cap around the center of projection, in radians
+     * @param aboveHorizonOnly  (boolean) whether stars below the horizon are culled as well
+     * @param limitingMagnitude (double) faintest magnitude of the stars kept, infinite to keep them all
+     * @param recycled          (ObservedSky) sky no longer in use whose buffers are taken over, may be null
+     * @throws IllegalArgumentException if viewRadius is not in [0, pi] or limitingMagnitude is NaN
+     * @see #limitingMagnitude(double, double)
+     */
+    public ObservedSky(SkyPipeline.HorizontalSky horizontal, StereographicProjection projection,
+                       StarCatalogue catalogue, double viewRadius, boolean aboveHorizonOnly,
+                       double limitingMagnitude, ObservedSky recycled) {
+        Preconditions.checkInInterval(VIEW_RADIUS_INTERVAL, viewRadius);
+        Preconditions.checkArgument(!Double.isNaN(limitingMagnitude));
+        this.viewRadius = viewRadius;
+        this.aboveHorizonOnly = aboveHorizonOnly;
+        this.limitingMagnitude = limitingMagnitude;
+        this.stereoProj = projection;
+        this.horizontal = horizontal;
+        this.eqToHor = horizontal.conversion();
+        this.kernel = new ProjectionKernel(eqToHor, projection);
+        this.catalogue = catalogue;
+        final EquatorialCoordinates axis = eqToHor.inverseApply(stereoProj.center());
+        this.axisX = Math.cos(axis.dec()) * Math.cos(axis.ra());
+        this.axisY = Math.cos(axis.dec()) * Math.sin(axis.ra());
+        this.axisZ = Math.sin(axis.dec());
+
+        final int starCount = catalogue.starCount();
+        if (recycled != null && recycled.starX.length == starCount) {
+            recycled.isRecycled = true;
+            recycled.clearComputedPositions();
+            this.starX = recycled.starX;
+            this.starY = recycled.starY;
+            this.culledIndices = recycled.culledIndices;
+            this.starGrid = recycled.starGrid;
+        } else {
+            this.starX = new double[starCount];
+            this.starY = new double[starCount];
+            Arrays.fill(starX, Double.NaN);
+            Arrays.fill(starY, Double.NaN);
+            this.culledIndices = new int[starCount + catalogue.asterismStarsColumn().length];
+            this.starGrid = new StarGrid();
         }
+        //Every position is NaN from here on: culling only writes the positions of the stars it keeps
 
-
+        computePositions();
 
         this.sunPosition = (CartesianCoordinates) sunMap.values().toArray()[0];
         this.sun = (Sun) sunMap.keySet().toArray()[0];
@@ -105,23 +196,199 @@ public final class ObservedSky {
      * @param maxDistance (double) max allowed distance
      * @return (Optional <CelestialObject>) Optional.empty if no object within maxDistance radius, otherwise, the
      * closest CelestialObject wrapped in an Optional cell.
+     * @throws IllegalStateException if this sky has been recycled
      */
     public Optional<CelestialObject> objectClosestTo(CartesianCoordinates point, double maxDistance) {
-        return celestObjToCoordsMap.entrySet().parallelStream()
-                .filter(celest -> IS_IN_SQUARE_AROUND.apply(point).apply(celest.getValue(), maxDistance))
-                .min((celestObj1, celestObj2) -> CLOSEST_TO_C.apply(point).apply(celestObj1.getValue(), celestObj2.getValue()))
-                .filter(celestObj -> euclideanDistance(celestObj.getValue(), point) <= maxDistance)
-                .map(Map.Entry::getKey);
+        checkNotRecycled();
+        final double px = point.x(), py = point.y();
+        double closestDistSquared = maxDistance * maxDistance;
+        CelestialObject closest = null;
+
+        final int closestStar = starGrid.nearest(px, py, maxDistance);
+        if (closestStar >= 0) {
+            final double dx = starX[closestStar] - px, dy = starY[closestStar] - py;
+            closestDistSquared = dx * dx + dy * dy;
+            closest = catalogue.star(closestStar);
+        }
+        //Only the winning star is materialized
+
+        for (Map<? extends CelestialObject, CartesianCoordinates> map : List.of(planetMap, sunMap, moonMap)) {
+            for (Map.Entry<? extends CelestialObject, CartesianCoordinates> entry : map.entrySet()) {
+                final double distSquared = euclideanDistSquared(entry.getValue(), point);
+                if (distSquared <= closestDistSquared) {
+                    closestDistSquared = distSquared;
+                    closest = entry.getKey();
+                }
+            }
+        }
+        return Optional.ofNullable(closest);
+    }
+
+    /**
+     * @param point  (CartesianCoordinates) center of the disc
+     * @param radius (double) radius of the disc
+     * @return (int[]) catalogue indices of the stars within radius of point, in increasing order
+     * @throws IllegalStateException if this sky has been recycled
+     */
+    public int[] starIndicesWithin(CartesianCoordinates point, double radius) {
+        checkNotRecycled();
+        final IntStream.Builder indices = IntStream.builder();
+        starGrid.forEachWithin(point.x(), point.y(), radius, indices);
+        return indices.build().sorted().toArray();
+    }
+
+    /**
+     * Angular radius of the spherical cap seen through a canvas: the cap around the center of projection holding the
+     * whole canvas, whatever its rotation about its center, with a margin
+     *
+     * @param fieldOfView (double) angle covered by the canvas' width, in radians
+     * @param width       (double) canvas' width
+     * @param height      (double) canvas' height
+     * @return (double) angular radius in [0, pi], pi meaning that nothing is culled
+     */
+    public static double viewRadius(double fieldOfView, double width, double height) {
+        if (width <= 0) {
+            return PI;
+        }
+        //The canvas' half diagonal on the plane is at angle c from the center, with tan(c / 2) = planeRadius
+        final double planeRadius = VIEW_MARGIN * Math.hypot(width, height) / 2
+                * StereographicProjection.applyToAngle(fieldOfView) / width;
+        return Math.min(PI, 2 * Math.atan(planeRadius));
+    }
+
+    /**
+     * Faintest magnitude worth drawing through a canvas: it rises smoothly as the view is zoomed in (or the canvas
+     * widened), gaining 5 magnitudes per tenfold increase of the number of pixels per degree
+     *
+     * @param fieldOfView (double) angle covered by the canvas' width, in radians
+     * @param width       (double) canvas' width, in pixels
+     * @return (double) limiting magnitude, infinite (nothing left out) if the canvas has no width
+     */
+    public static double limitingMagnitude(double fieldOfView, double width) {
+        if (width <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        final double pixelsPerDegree = width / Math.toDegrees(fieldOfView);
+        return REFERENCE_MAGNITUDE + 5 * Math.log10(pixelsPerDegree / REFERENCE_DENSITY);
+    }
+
+    /**
+     * @return (int) number of stars which went through conversion and projection
+     */
+    public int processedStarCount() {
+        return processedStarCount;
+    }
+
+    /**
+     * @return (int) number of stars culled before conversion and projection, whose positions are NaN
+     */
+    public int culledStarCount() {
+        return starX.length - processedStarCount;
+    }
+
+    /**
+     * @return (int) number of stars whose positions were computed, any other star's position being NaN: at most the
+     *         stars in view and the asterisms' ones when culling
+     * @throws IllegalStateException if this sky has been recycled
+     */
+    public int computedStarCount() {
+        checkNotRecycled();
+        return computedCount;
+    }
+
+    /**
+     * Lists the stars whose positions were computed, so that going through them takes time proportional to their
+     * number rather than to the catalogue's size
+     *
+     * @param rank (int) rank of the star in the list, in [0, computedStarCount()[, which follows no particular order
+     * @return (int) index in the catalogue of a star whose position was computed (which is still NaN if it was found
+     *         below the horizon)
+     * @throws IllegalStateException if this sky has been recycled
+     */
+    public int computedStar(int rank) {
+        checkNotRecycled();
+        Objects.checkIndex(rank, computedCount);
+        return allStarsComputed ? rank : culledIndices[rank];
+    }
+
+    /**
+     * @return (int) number of stars, whose positions are indexed like in the catalogue
+     */
+    public int starCount() {
+        return starX.length;
+    }
 
-        /* parallelStream proved to shorten the execution time upon testing (0.55 ms to 0.40 ms at step 11, may be
-           reduced at step 12 with improved thread management) */
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (double) star's x coordinate on the plane, NaN if culled
+     * @throws IllegalStateException if this sky has been recycled
+     */
+    public double x(int index) {
+        checkNotRecycled();
+        return starX[index];
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (double) star's y coordinate on the plane, NaN if culled
+     * @throws IllegalStateException if this sky has been recycled
+     */
+    public double y(int index) {
+        checkNotRecycled();
+        return starY[index];
+    }
+
+    /**
+     * Writes the positions of some celestial objects on the plane into arrays, at the same indices as in the given
+     * list: a map free alternative to mapObjectsToPosition, used for orbits
+     *
+     * @param objects (List<? extends CelestialObject>) objects to place
+     * @param x       (double[]) output x coordinates, at least as long as objects
+     * @param y       (double[]) output y coordinates, at least as long as objects
+     * @throws IllegalArgumentException if an output array is shorter than objects
+     */
+    public void positionsOf(List<? extends CelestialObject> objects, double[] x, double[] y) {
+        Preconditions.checkArgument(x.length >= objects.size() && y.length >= objects.size());
+        for (int i = 0; i < objects.size(); ++i) {
+            final CartesianCoordinates position = eqToHor.andThen(stereoProj).apply(objects.get(i).equatorialPos());
+            x[i] = position.x();
+            y[i] = position.y();
+        }
     }
 
     /**
-     * @return (Map<Star, CartesianCoordinates>) the stars associated to their Cartesian Coordinates
+     * Projects positions given as equatorial unit vectors onto the plane, like the stars: used for orbits
+     *
+     * @param unitX (double[]) components towards the vernal equinox
+     * @param unitY (double[]) components towards right ascension 6h
+     * @param unitZ (double[]) components towards the north celestial pole
+     * @param count (int) number of positions, from index 0
+     * @param x     (double[]) output x coordinates
+     * @param y     (double[]) output y coordinates
+     * @throws IllegalArgumentException if an array is shorter than count
+     */
+    public void positionsOf(double[] unitX, double[] unitY, double[] unitZ, int count, double[] x, double[] y) {
+        kernel.apply(unitX, unitY, unitZ, 0, count, x, y);
+    }
+
+    /**
+     * @return (Map<Star, CartesianCoordinates>) the stars associated to their Cartesian Coordinates (NaN for culled
+     *          stars)
+     * @throws IllegalStateException if this sky has been recycled before the map was first asked for
      */
     public Map<Star, CartesianCoordinates> starsMap() {
-        return starMap;
+        Map<Star, CartesianCoordinates> map = starMap;
+        if (map == null) {
+            synchronized (this) {
+                if ((map = starMap) == null) {
+                    checkNotRecycled();
+                    starMap = map = Collections.unmodifiableMap(IntStream.range(0, starX.length).boxed()
+                            .collect(Collectors.toMap(catalogue::star,
+                                    i -> CartesianCoordinates.of(starX[i], starY[i]), (u, v) -> v)));
+                }
+            }
+        }
+        return map;
     }
 
     /**
@@ -131,6 +398,13 @@ public final class ObservedSky {
         return catalogue.stars();
     }
 
+    /**
+     * @return (StarCatalogue) catalogue of the stars, whose columns are indexed like the stars' positions
+     */
+    public StarCatalogue catalogue() {
+        return catalogue;
+    }
+
     /**
      * @return (Set<Asterism>) set of asterisms in current observed sky
      */
@@ -145,6 +419,16 @@ public final class ObservedSky {
         return catalogue.asterismIndices(asterism);
     }
 
+    /**
+     * @param asterism (int) compiled asterism's number in the catalogue
+     * @return (boolean) false if none of the asterism's stars is within this sky's view radius, so that it need not
+     *         be drawn
+     * @see StarCatalogue#asterismMayIntersect(int, double, double, double, double)
+     */
+    public boolean asterismMayBeVisible(int asterism) {
+        return viewRadius >= PI || catalogue.asterismMayIntersect(asterism, axisX, axisY, axisZ, viewRadius);
+    }
+
     /**
      * @return (Map<Planet, CartesianCoordinates>) the planets associated to their Cartesian Coordinates
      */
@@ -192,7 +476,18 @@ public final class ObservedSky {
      *          their cartesian position
      */
     public Map<CelestialObject, CartesianCoordinates> celestialObjMap() {
-        return celestObjToCoordsMap;
+        Map<CelestialObject, CartesianCoordinates> map = celestObjToCoordsMap;
+        if (map == null) {
+            synchronized (this) {
+                if ((map = celestObjToCoordsMap) == null) {
+                    celestObjToCoordsMap = map = Collections.unmodifiableMap(
+                            Stream.of(starsMap(), planetMap, sunMap, moonMap)
+                            .flatMap(l -> l.entrySet().stream())
+                            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (u, v) -> v)));
+                }
+            }
+        }
+        return map;
     }
 
     /**
@@ -232,6 +527,128 @@ public final class ObservedSky {
                         (u, v) -> v)));
     }
 
+    /**
+     * Computes the positions of the Sun, the Moon, the planets and the stars on the plane, the models and conversion
+     * having been run by the horizontal stage
+     */
+    private void computePositions() {
+        final SkyPipeline.Ephemeris ephemeris = horizontal.ephemeris();
+        this.sunMap = Map.of(ephemeris.sun(), stereoProj.apply(horizontal.sunPosition()));
+        this.moonMap = Map.of(ephemeris.moon(), stereoProj.apply(horizontal.moonPosition()));
+        final Map<Planet, CartesianCoordinates> planets = new HashMap<>();
+        for (int i = 0; i < ephemeris.planets().size(); ++i) {
+            planets.put(ephemeris.planets().get(i), stereoProj.apply(horizontal.planetPositions().get(i)));
+        }
+        this.planetMap = Collections.unmodifiableMap(planets);
+        final int brighterCount = catalogue.brighterThanCount(limitingMagnitude);
+        //Stars expected in the cap: its share of the sphere's area, the catalogue being about uniform on it
+        final double capCount = catalogue.starCount() * (1 - Math.cos(viewRadius)) / 2;
+        if (brighterCount == catalogue.starCount() && viewRadius >= PI && !aboveHorizonOnly) {
+            projectStars();
+        } else if (brighterCount < capCount) {
+            projectBrightestStars(brighterCount);
+        } else {
+            projectVisibleStars();
+        }
+        starGrid.build(starX, starY, allStarsComputed ? null : culledIndices, computedCount);
+        //Built once per sky, off the JavaFX thread, so that picking at mouse rate only looks at a few cells
+    }
+
+    /**
+     * Projects all the catalogue's stars into the position buffers, in parallel slices of the catalogue. Apart from the
+     * tasks themselves, nothing is allocated.
+     */
+    private void projectStars() {
+        final int starCount = starX.length;
+        IntStream.range(0, (starCount + STARS_PER_TASK - 1) / STARS_PER_TASK).parallel().forEach(task -> {
+            final int from = task * STARS_PER_TASK;
+            kernel.apply(catalogue.unitXColumn(), catalogue.unitYColumn(), catalogue.unitZColumn(),
+                    from, Math.min(starCount, from + STARS_PER_TASK), starX, starY);
+        });
+        processedStarCount = starCount;
+        allStarsComputed = true;
+        computedCount = starCount;
+    }
+
+    /**
+     * Projects only the stars which may be in the visible cap, and the asterisms' ones, found through the catalogue's
+     * spherical index; the other positions are left NaN
+     */
+    private void projectVisibleStars() {
+        final int[] asterismStars = catalogue.asterismStarsColumn();
+        System.arraycopy(asterismStars, 0, culledIndices, 0, asterismStars.length);
+        final EquatorialCoordinates axis = eqToHor.inverseApply(stereoProj.center());
+        final int end = catalogue.sphericalIndex().coneCandidates(axis.ra(), axis.dec(), viewRadius,
+                culledIndices, asterismStars.length);
+        //Asterisms' stars found again in the cap are dropped so that each star is processed once
+        int count = asterismStars.length;
+        for (int k = asterismStars.length; k < end; ++k) {
+            final int i = culledIndices[k];
+            if (!catalogue.isAsterismStar(i) && catalogue.magnitude(i) <= limitingMagnitude) {
+                culledIndices[count++] = i;
+            }
+        }
+        projectCulledIndices(count);
+    }
+
+    /**
+     * Projects only the brightestCount first stars of the catalogue's magnitude order, and the asterisms' ones, the
+     * other positions being left NaN: stars outside the visible cap are projected as well, there being fewer of
+     * them than of stars in the cap
+     */
+    private void projectBrightestStars(int brightestCount) {
+        final int[] asterismStars = catalogue.asterismStarsColumn();
+        final int[] magnitudeOrder = catalogue.magnitudeOrderColumn();
+        System.arraycopy(asterismStars, 0, culledIndices, 0, asterismStars.length);
+        int count = asterismStars.length;
+        for (int rank = 0; rank < brightestCount; ++rank) {
+            if (!catalogue.isAsterismStar(magnitudeOrder[rank])) {
+                culledIndices[count++] = magnitudeOrder[rank];
+            }
+        }
+        projectCulledIndices(count);
+    }
+
+    /**
+     * Projects the stars whose indices are the count first ones of culledIndices, in parallel slices
+     */
+    private void projectCulledIndices(int toProject) {
+        allStarsComputed = false;
+        computedCount = toProject;
+        processedStarCount = IntStream.range(0, (toProject + STARS_PER_TASK - 1) / STARS_PER_TASK).parallel()
+                .map(task -> {
+                    final int from = task * STARS_PER_TASK;
+                    return kernel.apply(catalogue.unitXColumn(), catalogue.unitYColumn(), catalogue.unitZColumn(),
+                            culledIndices, from, Math.min(toProject, from + STARS_PER_TASK), aboveHorizonOnly,
+                            starX, starY);
+                }).sum();
+    }
+
+    /**
+     * Sets back to NaN the positions this sky computed, before its buffers are handed over to another sky: only those
+     * of the stars it kept are written again when it culled
+     */
+    private void clearComputedPositions() {
+        if (allStarsComputed) {
+            Arrays.fill(starX, Double.NaN);
+            Arrays.fill(starY, Double.NaN);
+        } else {
+            for (int k = 0; k < computedCount; ++k) {
+                starX[culledIndices[k]] = Double.NaN;
+                starY[culledIndices[k]] = Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if this sky's buffers have been handed over to another sky
+     */
+    private void checkNotRecycled() {
+        if (isRecycled) {
+            throw new IllegalStateException("ObservedSky: star positions of a recycled sky are no longer available.");
+        }
+    }
+
     /**
      * Map creator: Key: item after applying f on them (identical keys are merged)
      * Value: item's CartesianCoordinates
@@ -248,14 +665,9 @@ public final class ObservedSky {
     }
 
     /**
-     * Applies at() method of given CelestialObjectModel and returns corresponding CelestialObject
-     *
-     * @param <K>                  CelestialObject's type to be computed and returned
-     * @param celestialObjectModel (CelestialObjectModel<K>) corresponding Model
-     * @return (K extends CelestialObject) parametrized CelestialObject
-     * @see CelestialObjectModel#at(double, EclipticToEquatorialConversion)
+     * @return (SkyPipeline.HorizontalSky) a fresh, unshared horizontal stage
      */
-    private <K extends CelestialObject> K applyModel(CelestialObjectModel<K> celestialObjectModel) {
-        return celestialObjectModel.at(daysUntilJ2010, eclToEqu);
+    private static SkyPipeline.HorizontalSky horizontalAt(ZonedDateTime date, GeographicCoordinates geoCoords) {
+        return new SkyPipeline.HorizontalSky(new SkyPipeline.Ephemeris(date), date, geoCoords);
     }
 }
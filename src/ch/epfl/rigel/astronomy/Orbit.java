@@ -1,71 +1,172 @@
 package ch.epfl.rigel.astronomy;
 
+import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
-import ch.epfl.rigel.math.graphs.Cycle;
 
 import java.time.ZonedDateTime;
-import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.function.DoubleFunction;
-import java.util.function.Supplier;
-import java.util.stream.Collectors;
-import java.util.stream.DoubleStream;
 
 /**
- * Orbit prediction class for solar system's components.
+ * Orbit prediction class for solar system's components: the object's equatorial positions over a window of time
+ * ending at the latest instant, at a fixed resolution, stored as unit vectors in a ring buffer.
+ *
+ * Index 0 is the latest instant, later indices going back in time. When simulated time advances, only the positions
+ * at the new instants are computed, overwriting the oldest ones.
  *
  * @author Alexandre Sallinen (303162)
  * @author Salim Najib (310003)
  */
-public final class Orbit<T extends CelestialObject> extends Cycle<Supplier<T>> {
+public final class Orbit<T extends CelestialObject> {
 
     private final static double HOURS_IN_DAY = 24d; //(non sideral)
-    private int currentModulo, currentLength;
-    private List<T> currentRepresentativeList;
-    //Even though these 3 attributes are not final, to the outside world, Orbit is indeed immutable. This simply avoids
-    //unnecessary re-computation.
+    //Instants a whole number of steps away must not be pushed back one step by rounding
+    private final static double STEP_EPSILON = 1e-9;
+
+    private final CelestialObjectModel<T> model;
+    private final EclipticToEquatorialConversion conversion;
+    private final double initialDays;
+    private final double stepDays;
+    private final double[] unitX, unitY, unitZ;
+    //Ring position of index 0, and number of steps between the initial instant and index 0's instant
+    private int head;
+    private long headStep;
 
     /**
      * Orbit constructor with calculation parameters
-     *  @param initialTime      (ZonedDateTime) start time of orbit prediction
+     *
+     * @param initialTime       (ZonedDateTime) start time of orbit prediction
      * @param resolutionInHours (int) discrete simulation step in hours
-     * @param maxLength         (long) orbit will be computed from initialTime to roughly initialTime + maxLength
+     * @param maxLength         (long) orbit will be computed from initialTime to roughly initialTime - maxLength days
      * @param model             (CelestialObjectModel<T>) model used to compute the orbit
-     * @param conversion        (EclipticToEquatorialConversion)
-     * @param executorService   (ExecutorService)
+     * @param conversion        (EclipticToEquatorialConversion) conversion used at all the orbit's instants
+     * @throws IllegalArgumentException if resolutionInHours or maxLength is not strictly positive
      */
     public Orbit(ZonedDateTime initialTime, int resolutionInHours, long maxLength, CelestialObjectModel<T> model,
-                 EclipticToEquatorialConversion conversion, ExecutorService executorService) throws ExecutionException, InterruptedException {
+                 EclipticToEquatorialConversion conversion) {
+        Preconditions.checkArgument(resolutionInHours > 0 && maxLength > 0);
+        this.model = model;
+        this.conversion = conversion;
+        this.initialDays = Epoch.J2010.daysUntil(initialTime);
+        this.stepDays = resolutionInHours / HOURS_IN_DAY;
 
-        super(executorService.submit(() -> construct(Epoch.J2010.daysUntil(initialTime), resolutionInHours, maxLength, model, conversion)).get());
+        final int length = (int) Math.ceil(maxLength * HOURS_IN_DAY / resolutionInHours);
+        this.unitX = new double[length];
+        this.unitY = new double[length];
+        this.unitZ = new double[length];
+        fill(0);
     }
 
     /**
-     * Get a list of representatives of the celestial object's orbit
+     * Moves the orbit's latest instant to the last step not after the given instant: if time advanced by fewer steps
+     * than the orbit's length, only the new positions are computed, otherwise (or if time went back) all of them are
      *
-     * @param indexUntil (int) maximum number of representatives
-     * @param stepModulo (int) get every 'stepModulo' representative
-     * @return (List<T>) said list
+     * @param daysSinceJ2010 (double) current instant, in days since J2010
      */
-    public List<T> representatives(int indexUntil, int stepModulo) {
-        if (currentRepresentativeList == null || stepModulo != currentModulo || indexUntil != currentLength) {
-            currentRepresentativeList = List.copyOf(flow(indexUntil)
-                    .suchThat(supplier -> indexOf(supplier) % stepModulo == 0)
-                    .image(Supplier::get).getRawData());
-            currentModulo = stepModulo;
-            currentLength = indexUntil;
+    public synchronized void advanceTo(double daysSinceJ2010) {
+        final long step = (long) Math.floor((daysSinceJ2010 - initialDays) / stepDays + STEP_EPSILON);
+        final long newSteps = step - headStep;
+        if (newSteps == 0) {
+            return;
         }
-        return currentRepresentativeList;
+        if (newSteps < 0 || newSteps >= length()) {
+            fill(step);
+            return;
+        }
+
+        final int count = (int) newSteps;
+        final double[] days = new double[count];
+        for (int k = 0; k < count; ++k) {
+            days[k] = daysAt(headStep + k + 1);
+        }
+        final EphemerisSeries series = new EphemerisSeries(count);
+        model.at(days, conversion, series);
+        for (int k = 0; k < count; ++k) {
+            write(Math.floorMod(head - k - 1, length()), series, k);
+        }
+        head = Math.floorMod(head - count, length());
+        headStep = step;
     }
 
-    private static <T extends CelestialObject> List<Supplier<T>> construct(double initialDaysSince2010, int resolutionInHours,
-            long maxDays, CelestialObjectModel<T> model, EclipticToEquatorialConversion eclToEqu) {
+    /**
+     * @param when (ZonedDateTime) current instant
+     * @see #advanceTo(double)
+     */
+    public void advanceTo(ZonedDateTime when) {
+        advanceTo(Epoch.J2010.daysUntil(when));
+    }
+
+    /**
+     * @return (int) number of positions in the orbit
+     */
+    public int length() {
+        return unitX.length;
+    }
+
+    /**
+     * @param indexUntil (int) maximum number of positions considered
+     * @param step       (int) keep every 'step' position
+     * @return (int) number of representatives written by representatives with these parameters
+     * @throws IllegalArgumentException if step is not strictly positive
+     */
+    public int representativeCount(int indexUntil, int step) {
+        Preconditions.checkArgument(step > 0);
+        final int until = Math.max(0, Math.min(indexUntil, length()));
+        return (until + step - 1) / step;
+    }
+
+    /**
+     * Writes every 'step' position among the first indexUntil ones, as equatorial unit vectors, at the start of the
+     * given arrays, in O(indexUntil / step)
+     *
+     * @param indexUntil (int) maximum number of positions considered
+     * @param step       (int) keep every 'step' position
+     * @param x          (double[]) output components towards the vernal equinox
+     * @param y          (double[]) output components towards right ascension 6h
+     * @param z          (double[]) output components towards the north celestial pole
+     * @return (int) number of representatives written
+     * @throws IllegalArgumentException if step is not strictly positive or an output array is too short
+     */
+    public synchronized int representatives(int indexUntil, int step, double[] x, double[] y, double[] z) {
+        final int count = representativeCount(indexUntil, step);
+        Preconditions.checkArgument(x.length >= count && y.length >= count && z.length >= count);
+
+        int position = head;
+        for (int i = 0; i < count; ++i) {
+            x[i] = unitX[position];
+            y[i] = unitY[position];
+            z[i] = unitZ[position];
+            position += step;
+            if (position >= length()) {
+                position -= length();
+            }
+        }
+        return count;
+    }
+
+    private double daysAt(long step) {
+        return initialDays + step * stepDays;
+    }
+
+    /**
+     * Recomputes all the positions, index 0 being at the given step
+     */
+    private void fill(long step) {
+        final double[] days = new double[length()];
+        for (int i = 0; i < days.length; ++i) {
+            days[i] = daysAt(step - i);
+        }
+        final EphemerisSeries series = new EphemerisSeries(days.length);
+        model.at(days, conversion, series);
+        for (int i = 0; i < days.length; ++i) {
+            write(i, series, i);
+        }
+        head = 0;
+        headStep = step;
+    }
 
-        return DoubleStream.iterate(initialDaysSince2010, daysSince2010 -> daysSince2010 > initialDaysSince2010 - maxDays,
-                daysSince2010 -> daysSince2010 - resolutionInHours / HOURS_IN_DAY)
-                .parallel()
-                .mapToObj(daysSinceJ2010 -> (Supplier<T>) (() -> model.at(daysSinceJ2010, eclToEqu)))
-                .collect(Collectors.toList());
+    private void write(int position, EphemerisSeries series, int index) {
+        final double cosDec = Math.cos(series.dec(index));
+        unitX[position] = cosDec * Math.cos(series.ra(index));
+        unitY[position] = cosDec * Math.sin(series.ra(index));
+        unitZ[position] = Math.sin(series.dec(index));
     }
 }
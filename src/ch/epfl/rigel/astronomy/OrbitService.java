@@ -0,0 +1,178 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Computes and keeps the orbits of the solar system's objects in the background, so that showing one does not wait for
+ * it: orbits are cached per model, resolution and length, and moved to the current window of time when asked for.
+ * Every model is evaluated through a Chebyshev cache, consecutive windows overlapping most of the time.
+ *
+ * The service is the only owner of the orbits it hands out: they are only moved on its executor, callers must only read
+ * them. Requests for the same orbit are ordered: moving it for a request is dropped if a newer request was made
+ * meanwhile, so a late request for an older instant never moves the orbit back.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class OrbitService {
+
+    /**
+     * Models whose orbits are precomputed: the Sun, the Moon and the planets other than the Earth
+     */
+    public static final List<CelestialObjectModel<? extends CelestialObject>> MODELS = EphemerisCaches.MODELS;
+
+    private final int resolutionInHours;
+    private final long maxLength;
+    private final ExecutorService executor;
+    private final EphemerisCaches caches;
+    private final Map<Key, CachedOrbit> orbits = new ConcurrentHashMap<>();
+
+    /**
+     * @param resolutionInHours (int) default discrete simulation step of the orbits, in hours
+     * @param maxLength         (long) default length of the orbits, in days
+     * @param executor          (ExecutorService) executor on which orbits are computed
+     * @throws IllegalArgumentException if resolutionInHours or maxLength is not strictly positive
+     */
+    public OrbitService(int resolutionInHours, long maxLength, ExecutorService executor) {
+        this(resolutionInHours, maxLength, new EphemerisCaches(executor));
+    }
+
+    /**
+     * @param resolutionInHours (int) default discrete simulation step of the orbits, in hours
+     * @param maxLength         (long) default length of the orbits, in days
+     * @param caches            (EphemerisCaches) caches the models are evaluated through, orbits being computed on
+     *                          their executor
+     * @throws IllegalArgumentException if resolutionInHours or maxLength is not strictly positive
+     */
+    public OrbitService(int resolutionInHours, long maxLength, EphemerisCaches caches) {
+        Preconditions.checkArgument(resolutionInHours > 0 && maxLength > 0);
+        this.resolutionInHours = resolutionInHours;
+        this.maxLength = maxLength;
+        this.executor = caches.executor();
+        this.caches = caches;
+    }
+
+    /**
+     * Computes in the background the orbits of all the models in MODELS, with the default resolution and length,
+     * ending at the given instant: to be called at startup and whenever the date jumps
+     *
+     * @param when (ZonedDateTime) latest instant of the orbits
+     * @return (CompletableFuture<List<Orbit<?>>>) completed with the orbits, in MODELS' order, once all are computed
+     */
+    public CompletableFuture<List<Orbit<?>>> precompute(ZonedDateTime when) {
+        final List<CompletableFuture<? extends Orbit<?>>> futures = MODELS.stream()
+                .map(model -> orbit(model, when))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(v -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toUnmodifiableList()));
+    }
+
+    /**
+     * @param model (CelestialObjectModel<T>) model of the object
+     * @param when  (ZonedDateTime) latest instant of the orbit
+     * @return (CompletableFuture<Orbit<T>>) the object's orbit with the default resolution and length
+     * @see #orbit(CelestialObjectModel, ZonedDateTime, int, long)
+     */
+    public <T extends CelestialObject> CompletableFuture<Orbit<T>> orbit(CelestialObjectModel<T> model,
+                                                                         ZonedDateTime when) {
+        return orbit(model, when, resolutionInHours, maxLength);
+    }
+
+    /**
+     * Gets an orbit ending at the given instant: a cached orbit with the same model, resolution and length is moved
+     * to the instant, which only computes the positions at the new steps; otherwise the orbit is computed. Either way
+     * this happens on the executor, the returned future being completed right after if the orbit is already there.
+     * If another request for the same orbit is made before it is moved, it is left for that request to move: the
+     * returned orbit then ends at the newest request's instant, once all the futures are completed.
+     *
+     * @param model             (CelestialObjectModel<T>) model of the object
+     * @param when              (ZonedDateTime) latest instant of the orbit
+     * @param resolutionInHours (int) discrete simulation step in hours
+     * @param maxLength         (long) length of the orbit, in days
+     * @return (CompletableFuture<Orbit<T>>) the object's orbit, ending at the given instant
+     * @throws IllegalArgumentException if resolutionInHours or maxLength is not strictly positive
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends CelestialObject> CompletableFuture<Orbit<T>> orbit(CelestialObjectModel<T> model,
+                                                                         ZonedDateTime when, int resolutionInHours,
+                                                                         long maxLength) {
+        Preconditions.checkArgument(resolutionInHours > 0 && maxLength > 0);
+        final CachedOrbit cached = orbits.computeIfAbsent(new Key(model, resolutionInHours, maxLength),
+                key -> new CachedOrbit(CompletableFuture.supplyAsync(() -> new Orbit<>(when, resolutionInHours,
+                        maxLength, caches.of(model), new EclipticToEquatorialConversion(when)), executor)));
+        final long request = cached.lastRequest.incrementAndGet();
+
+        return cached.orbit.thenApplyAsync(orbit -> {
+            //Checked and moved under the orbit's lock, so that no older request can move it after a newer one
+            synchronized (orbit) {
+                if (cached.lastRequest.get() == request) {
+                    orbit.advanceTo(when);
+                }
+            }
+            return (Orbit<T>) orbit;
+        }, executor);
+    }
+
+    /**
+     * @return (int) number of orbits cached or being computed
+     */
+    public int cachedOrbitCount() {
+        return orbits.size();
+    }
+
+    /**
+     * A cached orbit, and the number of requests made for it so far
+     */
+    private static final class CachedOrbit {
+
+        private final CompletableFuture<Orbit<?>> orbit;
+        private final AtomicLong lastRequest = new AtomicLong();
+
+        private CachedOrbit(CompletableFuture<Orbit<?>> orbit) {
+            this.orbit = orbit;
+        }
+    }
+
+    /**
+     * Key of a cached orbit: the window of time is not part of it, cached orbits being moved to the asked window
+     */
+    private static final class Key {
+
+        private final CelestialObjectModel<?> model;
+        private final int resolutionInHours;
+        private final long maxLength;
+
+        private Key(CelestialObjectModel<?> model, int resolutionInHours, long maxLength) {
+            this.model = model;
+            this.resolutionInHours = resolutionInHours;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) o;
+            return model == that.model && resolutionInHours == that.resolutionInHours && maxLength == that.maxLength;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(model, resolutionInHours, maxLength);
+        }
+    }
+}
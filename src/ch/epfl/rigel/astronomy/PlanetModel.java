@@ -12,7 +12,7 @@ import java.util.List;
  * @author Alexandre Sallinen (303162)
  * @author Salim Najib (310003)
  */
-public enum PlanetModel implements CelestialObjectModel<Planet> {
+public enum PlanetModel implements InterpolableModel<Planet> {
 
     MERCURY("Mercure", 0.24085, 75.5671, 77.612, 0.205627,
             0.387098, 7.0051, 48.449, 6.74, -0.42),
@@ -61,6 +61,84 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
      */
     @Override
     public Planet at(double daysSinceJ2010, EclipticToEquatorialConversion eclipToEquaConversion) {
+        final double[] channels = new double[CHANNEL_COUNT];
+        channels(daysSinceJ2010, channels);
+        return fromChannels(channels, eclipToEquaConversion);
+    }
+
+    /**
+     * Builds a Planet from the context's Earth position
+     *
+     * @param context (EphemerisContext) shared state at the instant
+     * @return (Planet) Fully created Planet with appropriate time, geographic and physical parameters.
+     */
+    @Override
+    public Planet at(EphemerisContext context) {
+        final double[] channels = new double[CHANNEL_COUNT];
+        channels(context.daysSinceJ2010(), context.earthHelioLon(), context.earthDistanceToSun(), channels);
+        return fromChannels(channels, context.conversion());
+    }
+
+    /**
+     * Computes the planet's channels, the extra one being its magnitude
+     *
+     * @param daysSinceJ2010 (double) days between J2010 and the instant
+     * @param out            (double[]) output channels
+     */
+    @Override
+    public void channels(double daysSinceJ2010, double[] out) {
+        channels(daysSinceJ2010, EARTH.helioLon(daysSinceJ2010), EARTH.distanceToSun(daysSinceJ2010), out);
+    }
+
+    /**
+     * @param channels   (double[]) channels
+     * @param conversion (EclipticToEquatorialConversion) conversion at the instant
+     * @return (Planet) the planet with the given channels
+     */
+    @Override
+    public Planet fromChannels(double[] channels, EclipticToEquatorialConversion conversion) {
+        return new Planet(name,
+                conversion.apply(EclipticCoordinates.of(channels[LON],
+                        Math.max(-Math.PI / 2, Math.min(Math.PI / 2, channels[LAT])))),
+                (float) channels[SIZE],
+                (float) channels[EXTRA]);
+    }
+
+    /**
+     * @see InterpolableModel#toColumns(double[], EclipticToEquatorialConversion, EphemerisSeries, int)
+     */
+    @Override
+    public void toColumns(double[] channels, EclipticToEquatorialConversion conversion, EphemerisSeries out,
+                          int index) {
+        conversion.apply(channels[LON], Math.max(-Math.PI / 2, Math.min(Math.PI / 2, channels[LAT])),
+                out.ra, out.dec, index);
+        out.angularSize[index] = (float) channels[SIZE];
+        out.magnitude[index] = (float) channels[EXTRA];
+        out.phase[index] = Double.NaN;
+    }
+
+    /**
+     * @param daysSinceJ2010 (double) days between J2010 and the instant
+     * @return (double) heliocentric longitude at the instant, in radians (not normalized)
+     */
+    double helioLon(double daysSinceJ2010) {
+        return trueAnomaly(daysSinceJ2010) + lonPer;
+    }
+
+    /**
+     * @param daysSinceJ2010 (double) days between J2010 and the instant
+     * @return (double) distance to the Sun at the instant, in AU
+     */
+    double distanceToSun(double daysSinceJ2010) {
+        return a * (1 - excent * excent) / (1 + excent * Math.cos(trueAnomaly(daysSinceJ2010)));
+    }
+
+    private double trueAnomaly(double daysSinceJ2010) {
+        double meanAnomaly = (daysSinceJ2010 * QUOTIENT) / Tp + epsilon - lonPer;
+        return meanAnomaly + 2 * excent * Math.sin(meanAnomaly);
+    }
+
+    private void channels(double daysSinceJ2010, double helioLon_E, double distanceToSun_E, double[] out) {
 
         //DETERMINATION OF COORDINATES LAMBDA AND BETA
         double meanAnomaly = (daysSinceJ2010*QUOTIENT)/Tp + epsilon - lonPer;
@@ -73,13 +151,7 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
         double distanceToSun_Pr = distanceToSun * Math.cos(psi);
         double helioLon_Pr = Math.atan2(sinl_LonN * Math.cos(inc), Math.cos(helioLon - lonN)) + lonN;
 
-        //Making private auxiliary methods for computing meanAnomaly, trueAnomaly, distanceToSun & helioLon values for the
-        //Earth seemed a little bit overkill.
-        double meanAnomaly_E = (QUOTIENT * daysSinceJ2010) / EARTH.Tp + EARTH.epsilon - EARTH.lonPer;
-        double trueAnomaly_E = meanAnomaly_E + 2 * EARTH.excent * Math.sin(meanAnomaly_E);
-        double distanceToSun_E = EARTH.a * (1 - EARTH.excent * EARTH.excent) / (1 + EARTH.excent * Math.cos(trueAnomaly_E));
-        double helioLon_E = trueAnomaly_E + EARTH.lonPer;
-
+        //The Earth's heliocentric position is given, shared by all the planets at the same instant
         double sinl_Pr_L = Math.sin(helioLon_Pr - helioLon_E);
 
         double lambda = (this.ordinal() <= 1) ?
@@ -92,11 +164,10 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
         double rho = Math.sqrt(distanceToSun_E * distanceToSun_E + distanceToSun * distanceToSun - 2 * distanceToSun_E *
                 distanceToSun * Math.cos(helioLon - helioLon_E) * Math.cos(psi));
 
-        return new Planet(name,
-                eclipToEquaConversion.apply(EclipticCoordinates.of(lambda,
-                        Math.atan((distanceToSun_Pr * Math.tan(psi) * Math.sin(lambda - helioLon_Pr)) / (distanceToSun_E * sinl_Pr_L)))),
-                (float) (theta0 / rho),
-                (float) (V0 + 5 * Math.log10(distanceToSun * rho / Math.sqrt((1 + Math.cos(lambda - helioLon)) / 2))));
+        out[LON] = lambda;
+        out[LAT] = Math.atan((distanceToSun_Pr * Math.tan(psi) * Math.sin(lambda - helioLon_Pr)) / (distanceToSun_E * sinl_Pr_L));
+        out[SIZE] = theta0 / rho;
+        out[EXTRA] = V0 + 5 * Math.log10(distanceToSun * rho / Math.sqrt((1 + Math.cos(lambda - helioLon)) / 2));
     }
 
     /**
@@ -3,14 +3,9 @@ package ch.epfl.rigel.astronomy;
 import ch.epfl.rigel.coordinates.GeographicCoordinates;
 import ch.epfl.rigel.math.Polynomial;
 
-import java.time.LocalDateTime;
-import java.time.OffsetDateTime;
-import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
 
 import static ch.epfl.rigel.astronomy.Epoch.J2000;
-import static ch.epfl.rigel.astronomy.Epoch.until;
 import static ch.epfl.rigel.math.Angle.normalizePositive;
 import static ch.epfl.rigel.math.Angle.ofHr;
 
@@ -37,6 +32,8 @@ public final class SiderealTime {
     private static final double S_ONE_COEFF = 1.002737909;
     private static final Polynomial POLYNOM = Polynomial.of(S_ZERO_COEFF_0, 2400.051336, 6.697374558);
     private static final double COEFF_TO_HOURS = 1d / (60 * 60 * 1000);
+    private static final long SECONDS_IN_DAY = 24 * 60 * 60;
+    private static final double HOURS_IN_DAY = 24;
 
     /**
      * Computes sidereal Greenwich time
@@ -45,10 +42,31 @@ public final class SiderealTime {
      * @return (double) Greenwich's sidereal time normalized to [0,TAU[ interval
      */
     public static double greenwich(ZonedDateTime when) {
-        ZonedDateTime dayOfWhen = when.withZoneSameInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+        return greenwich(when.toEpochSecond(), when.getNano());
+    }
+
+    /**
+     * Same as greenwich(ZonedDateTime), creating no object: for evaluations at many instants
+     *
+     * @param epochMillis (long) instant, in milliseconds since 1970-01-01T00:00Z
+     * @return (double) Greenwich's sidereal time normalized to [0,TAU[ interval
+     */
+    public static double greenwich(long epochMillis) {
+        return greenwich(Math.floorDiv(epochMillis, 1000), Math.floorMod(epochMillis, 1000) * 1_000_000);
+    }
+
+    /**
+     * Same as greenwich(ZonedDateTime), creating no object: for evaluations at many instants
+     *
+     * @param julianDate (double) instant, as a Julian Date (UT)
+     * @return (double) Greenwich's sidereal time normalized to [0,TAU[ interval
+     */
+    public static double greenwichJulianDate(double julianDate) {
+        //Julian days start at noon: the UTC day starts at the previous half
+        final double dayJulianDate = Math.floor(julianDate - 0.5) + 0.5;
 
-        final double T = J2000.julianCenturiesUntil(dayOfWhen);
-        final double t = until(dayOfWhen, when) * COEFF_TO_HOURS;
+        final double T = J2000.julianCenturiesUntilJulianDate(dayJulianDate);
+        final double t = (julianDate - dayJulianDate) * HOURS_IN_DAY;
 
         return normalizePositive(ofHr(POLYNOM.at(T) + S_ONE_COEFF * t));
     }
@@ -63,4 +81,39 @@ public final class SiderealTime {
     public static double local(ZonedDateTime when, GeographicCoordinates where) {
         return normalizePositive(greenwich(when) + where.lon());
     }
+
+    /**
+     * Same as local(ZonedDateTime, GeographicCoordinates), creating no object: for evaluations at many instants
+     *
+     * @param epochMillis (long) instant, in milliseconds since 1970-01-01T00:00Z
+     * @param where       (GeographicCoordinates) geographic coordinates of point of interest
+     * @return (double) local sidereal time normalized to [0,TAU[ interval
+     */
+    public static double local(long epochMillis, GeographicCoordinates where) {
+        return normalizePositive(greenwich(epochMillis) + where.lon());
+    }
+
+    /**
+     * Same as local(ZonedDateTime, GeographicCoordinates), creating no object: for evaluations at many instants
+     *
+     * @param julianDate (double) instant, as a Julian Date (UT)
+     * @param where      (GeographicCoordinates) geographic coordinates of point of interest
+     * @return (double) local sidereal time normalized to [0,TAU[ interval
+     */
+    public static double localJulianDate(double julianDate, GeographicCoordinates where) {
+        return normalizePositive(greenwichJulianDate(julianDate) + where.lon());
+    }
+
+    /**
+     * Greenwich sidereal time at the instant given by its UTC epoch second and nanosecond of second: the UTC day is
+     * found by integer division rather than by truncating a date
+     */
+    private static double greenwich(long epochSecond, int nano) {
+        final long dayStartSecond = Math.floorDiv(epochSecond, SECONDS_IN_DAY) * SECONDS_IN_DAY;
+
+        final double T = J2000.julianCenturiesUntil(dayStartSecond * 1000);
+        final double t = ((epochSecond - dayStartSecond) * 1000 + nano * 1e-6) * COEFF_TO_HOURS;
+
+        return normalizePositive(ofHr(POLYNOM.at(T) + S_ONE_COEFF * t));
+    }
 }
@@ -0,0 +1,255 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Computes observed skies in three memoized stages, each recomputed only when its own inputs change:
+ * the ephemeris (Sun, Moon and planets) depends on the instant only, the horizontal stage on the instant and the
+ * place of observation, and the projected stage (the ObservedSky itself) on the view. Moving the view thus only pays
+ * for the projection.
+ *
+ * Stages are immutable; this class only remembers the latest one of each kind and may be used from any thread.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class SkyPipeline {
+
+    private final StarCatalogue catalogue;
+    private final CelestialObjectModel<Sun> sunModel;
+    private final CelestialObjectModel<Moon> moonModel;
+    private final List<CelestialObjectModel<Planet>> planetModels;
+    private volatile Ephemeris lastEphemeris;
+    private volatile HorizontalSky lastHorizontal;
+
+    /**
+     * @param catalogue (StarCatalogue) stars and asterisms of the skies computed
+     */
+    public SkyPipeline(StarCatalogue catalogue) {
+        this.catalogue = catalogue;
+        this.sunModel = SunModel.SUN;
+        this.moonModel = MoonModel.MOON;
+        this.planetModels = List.copyOf(PlanetModel.EXTRATERRESTRIAL);
+    }
+
+    /**
+     * Pipeline whose ephemeris stage goes through Chebyshev caches of the models, fitted on the given executor: when
+     * time runs fast or is scrubbed through, most instants then fall in already fitted spans
+     *
+     * @param catalogue (StarCatalogue) stars and asterisms of the skies computed
+     * @param executor  (ExecutorService) executor on which the caches' spans are fitted
+     * @see ChebyshevEphemeris
+     */
+    public SkyPipeline(StarCatalogue catalogue, ExecutorService executor) {
+        this(catalogue, new EphemerisCaches(executor));
+    }
+
+    /**
+     * Pipeline whose ephemeris stage goes through the given Chebyshev caches, which may be shared with others
+     *
+     * @param catalogue (StarCatalogue) stars and asterisms of the skies computed
+     * @param caches    (EphemerisCaches) caches the models are evaluated through
+     */
+    public SkyPipeline(StarCatalogue catalogue, EphemerisCaches caches) {
+        this.catalogue = catalogue;
+        this.sunModel = caches.of(SunModel.SUN);
+        this.moonModel = caches.of(MoonModel.MOON);
+        this.planetModels = PlanetModel.EXTRATERRESTRIAL.stream()
+                .map(caches::of)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * @param date (ZonedDateTime) observation date and time
+     * @return (Ephemeris) positions of the solar system's objects at that instant, recomputed only if the instant is
+     *         not the last one asked for
+     */
+    public Ephemeris ephemeris(ZonedDateTime date) {
+        final Ephemeris last = lastEphemeris;
+        if (last != null && last.instant.equals(date.toInstant())) {
+            return last;
+        }
+        final Ephemeris ephemeris = new Ephemeris(date, sunModel, moonModel, planetModels);
+        lastEphemeris = ephemeris;
+        return ephemeris;
+    }
+
+    /**
+     * @param date      (ZonedDateTime) observation date and time
+     * @param geoCoords (GeographicCoordinates) point of observation
+     * @return (HorizontalSky) horizontal stage at that instant and place, recomputed only if either is not the last one
+     *         asked for
+     */
+    public HorizontalSky horizontal(ZonedDateTime date, GeographicCoordinates geoCoords) {
+        final HorizontalSky last = lastHorizontal;
+        //Coordinates do not support equals: compared by value
+        if (last != null && last.ephemeris.instant.equals(date.toInstant())
+                && last.lon == geoCoords.lon() && last.lat == geoCoords.lat()) {
+            return last;
+        }
+        final HorizontalSky horizontal = new HorizontalSky(ephemeris(date), date, geoCoords);
+        lastHorizontal = horizontal;
+        return horizontal;
+    }
+
+    /**
+     * Computes the projected stage, in the calling thread, reusing the previous stages if their inputs are unchanged
+     *
+     * @param date             (ZonedDateTime) observation date and time, with timezone
+     * @param geoCoords        (GeographicCoordinates) point of observation
+     * @param projection       (StereographicProjection) center of projection
+     * @param viewRadius       (double) angular radius of the visible cap around the center of projection, in radians
+     * @param aboveHorizonOnly (boolean) whether stars below the horizon are culled as well
+     * @param recycled         (ObservedSky) sky no longer in use whose buffers are taken over, may be null
+     * @return (ObservedSky) sky at the given instant and place, seen through the given view
+     * @throws IllegalArgumentException if viewRadius is not in [0, pi]
+     * @see ObservedSky#ObservedSky(HorizontalSky, StereographicProjection, StarCatalogue, double, boolean, ObservedSky)
+     */
+    public ObservedSky observe(ZonedDateTime date, GeographicCoordinates geoCoords, StereographicProjection projection,
+                               double viewRadius, boolean aboveHorizonOnly, ObservedSky recycled) {
+        return new ObservedSky(horizontal(date, geoCoords), projection, catalogue, viewRadius, aboveHorizonOnly,
+                recycled);
+    }
+
+    /**
+     * Same as above, also leaving out the stars fainter than a limiting magnitude
+     *
+     * @param limitingMagnitude (double) faintest magnitude of the stars kept, infinite to keep them all
+     * @see #observe(ZonedDateTime, GeographicCoordinates, StereographicProjection, double, boolean, ObservedSky)
+     * @see ObservedSky#limitingMagnitude(double, double)
+     */
+    public ObservedSky observe(ZonedDateTime date, GeographicCoordinates geoCoords, StereographicProjection projection,
+                               double viewRadius, boolean aboveHorizonOnly, double limitingMagnitude,
+                               ObservedSky recycled) {
+        return new ObservedSky(horizontal(date, geoCoords), projection, catalogue, viewRadius, aboveHorizonOnly,
+                limitingMagnitude, recycled);
+    }
+
+    /**
+     * First stage: the Sun, the Moon and the planets at a given instant
+     */
+    public static final class Ephemeris {
+
+        private final Instant instant;
+        private final Sun sun;
+        private final Moon moon;
+        private final List<Planet> planets;
+
+        /**
+         * @param date (ZonedDateTime) observation date and time
+         */
+        public Ephemeris(ZonedDateTime date) {
+            this(date, SunModel.SUN, MoonModel.MOON, List.copyOf(PlanetModel.EXTRATERRESTRIAL));
+        }
+
+        private Ephemeris(ZonedDateTime date, CelestialObjectModel<Sun> sunModel, CelestialObjectModel<Moon> moonModel,
+                          List<? extends CelestialObjectModel<Planet>> planetModels) {
+            //All the bodies are evaluated from one context: the Sun and the Earth are only computed once
+            final EphemerisContext context = EphemerisContext.at(date);
+
+            this.instant = date.toInstant();
+            this.sun = sunModel.at(context);
+            this.moon = moonModel.at(context);
+            this.planets = planetModels.stream()
+                    .map(model -> model.at(context))
+                    .collect(Collectors.toUnmodifiableList());
+        }
+
+        /**
+         * @return (Sun) the Sun at this instant
+         */
+        public Sun sun() {
+            return sun;
+        }
+
+        /**
+         * @return (Moon) the Moon at this instant
+         */
+        public Moon moon() {
+            return moon;
+        }
+
+        /**
+         * @return (List<Planet>) the planets other than the Earth at this instant, in PlanetModel.EXTRATERRESTRIAL's
+         *         order (immutable)
+         */
+        public List<Planet> planets() {
+            return planets;
+        }
+    }
+
+    /**
+     * Second stage: the conversion to horizontal coordinates at a given instant and place, and the solar system's
+     * objects' horizontal positions
+     */
+    public static final class HorizontalSky {
+
+        private final Ephemeris ephemeris;
+        private final double lon, lat;
+        private final EquatorialToHorizontalConversion conversion;
+        private final HorizontalCoordinates sunPosition;
+        private final HorizontalCoordinates moonPosition;
+        private final List<HorizontalCoordinates> planetPositions;
+
+        /**
+         * @param ephemeris (Ephemeris) first stage, at the same instant as date
+         * @param date      (ZonedDateTime) observation date and time
+         * @param geoCoords (GeographicCoordinates) point of observation
+         */
+        public HorizontalSky(Ephemeris ephemeris, ZonedDateTime date, GeographicCoordinates geoCoords) {
+            this.ephemeris = ephemeris;
+            this.lon = geoCoords.lon();
+            this.lat = geoCoords.lat();
+            this.conversion = new EquatorialToHorizontalConversion(date, geoCoords);
+            this.sunPosition = conversion.apply(ephemeris.sun.equatorialPos());
+            this.moonPosition = conversion.apply(ephemeris.moon.equatorialPos());
+            this.planetPositions = ephemeris.planets.stream()
+                    .map(planet -> conversion.apply(planet.equatorialPos()))
+                    .collect(Collectors.toUnmodifiableList());
+        }
+
+        /**
+         * @return (Ephemeris) the first stage this one was computed from
+         */
+        public Ephemeris ephemeris() {
+            return ephemeris;
+        }
+
+        /**
+         * @return (EquatorialToHorizontalConversion) conversion at this instant and place
+         */
+        public EquatorialToHorizontalConversion conversion() {
+            return conversion;
+        }
+
+        /**
+         * @return (HorizontalCoordinates) the Sun's horizontal position
+         */
+        public HorizontalCoordinates sunPosition() {
+            return sunPosition;
+        }
+
+        /**
+         * @return (HorizontalCoordinates) the Moon's horizontal position
+         */
+        public HorizontalCoordinates moonPosition() {
+            return moonPosition;
+        }
+
+        /**
+         * @return (List<HorizontalCoordinates>) the planets' horizontal positions, in the ephemeris' order (immutable)
+         */
+        public List<HorizontalCoordinates> planetPositions() {
+            return planetPositions;
+        }
+    }
+}
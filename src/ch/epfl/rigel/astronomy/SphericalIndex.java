@@ -0,0 +1,224 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.rigel.math.ClosedInterval;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static java.lang.Math.*;
+
+/**
+ * Projection independent index of a catalogue's stars on the celestial sphere, built once with the catalogue.
+ *
+ * The sphere is cut into equal-area cells: bands of equal height in sin(declination) (Lambert's cylindrical
+ * equal-area projection), each cut into the same number of right ascension sectors. As in HEALPix, every cell thus
+ * covers the same solid angle, so that stars spread evenly among them. Cells are stored in compressed form: the
+ * indices of the stars in cell c are cellStars[cellStart[c]] to cellStars[cellStart[c + 1] - 1].
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class SphericalIndex {
+
+    private static final int STARS_PER_CELL = 4;
+    private static final double SECTORS_PER_BAND = PI; //Makes equatorial cells about as wide as they are high
+    private static final ClosedInterval RADIUS_INTERVAL = ClosedInterval.of(0, PI);
+
+    private final int bands, sectors;
+    private final int[] cellStart, cellStars;
+    private final double[] ra, unitX, unitY, unitZ;
+
+    /**
+     * Builds the index of the given stars, whose columns are not copied
+     *
+     * @param ra    (double[]) stars' right ascensions
+     * @param unitX (double[]) stars' equatorial unit vectors' x components
+     * @param unitY (double[]) stars' equatorial unit vectors' y components
+     * @param unitZ (double[]) stars' equatorial unit vectors' z components
+     */
+    SphericalIndex(double[] ra, double[] unitX, double[] unitY, double[] unitZ) {
+        this.ra = ra;
+        this.unitX = unitX;
+        this.unitY = unitY;
+        this.unitZ = unitZ;
+
+        final int count = ra.length;
+        this.bands = max(1, (int) ceil(sqrt(count / (STARS_PER_CELL * SECTORS_PER_BAND))));
+        this.sectors = max(1, (int) ceil(bands * SECTORS_PER_BAND));
+
+        //Counting sort of the stars by cell
+        final int[] cells = new int[count];
+        this.cellStart = new int[cellCount() + 1];
+        for (int i = 0; i < count; ++i) {
+            cells[i] = cellOfStar(i);
+            ++cellStart[cells[i] + 1];
+        }
+        for (int c = 0; c < cellCount(); ++c) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.cellStars = new int[count];
+        final int[] next = Arrays.copyOf(cellStart, cellCount());
+        for (int i = 0; i < count; ++i) {
+            cellStars[next[cells[i]]++] = i;
+        }
+    }
+
+    /**
+     * @return (int) number of cells, all of the same area
+     */
+    public int cellCount() {
+        return bands * sectors;
+    }
+
+    /**
+     * @param ra  (double) right ascension in radians
+     * @param dec (double) declination in radians
+     * @return (int) cell containing the given position
+     */
+    public int cellOf(double ra, double dec) {
+        return cellOfNormalized(Angle.normalizePositive(ra), sin(dec));
+    }
+
+    /**
+     * @param cell (int) cell, in [0, cellCount()[
+     * @return (int[]) catalogue indices of the stars in the given cell, in increasing order
+     * @throws IndexOutOfBoundsException if the cell does not exist
+     */
+    public int[] starsInCell(int cell) {
+        return Arrays.copyOfRange(cellStars, cellStart[cell], cellStart[cell + 1]);
+    }
+
+    /**
+     * @param ra     (double) right ascension of the cone's axis, in radians
+     * @param dec    (double) declination of the cone's axis, in radians
+     * @param radius (double) angular radius of the cone, in radians
+     * @return (int[]) catalogue indices of the stars within the cone, in increasing order
+     * @throws IllegalArgumentException if the radius is not in [0, pi]
+     */
+    public int[] cone(double ra, double dec, double radius) {
+        Preconditions.checkInInterval(RADIUS_INTERVAL, radius);
+        final double axisX = cos(dec) * cos(ra), axisY = cos(dec) * sin(ra), axisZ = sin(dec);
+        final double minCos = cos(radius);
+
+        final IntStream.Builder found = IntStream.builder();
+        forEachCandidateCell(ra, dec, radius, (from, to) -> {
+            for (int k = from; k < to; ++k) {
+                final int i = cellStars[k];
+                if (unitX[i] * axisX + unitY[i] * axisY + unitZ[i] * axisZ >= minCos) found.add(i);
+            }
+        });
+        return found.build().sorted().toArray();
+    }
+
+    /**
+     * Copies to out, from offset on, the catalogue indices of all the stars of the cells which may intersect the
+     * given cone: a superset of the cone's stars, in no particular order, found without any per star test
+     *
+     * @param ra     (double) right ascension of the cone's axis, in radians
+     * @param dec    (double) declination of the cone's axis, in radians
+     * @param radius (double) angular radius of the cone, in radians
+     * @param out    (int[]) output indices, must have room for offset plus the catalogue's size
+     * @param offset (int) first index of out written to
+     * @return (int) index of out following the last one written to
+     */
+    int coneCandidates(double ra, double dec, double radius, int[] out, int offset) {
+        Preconditions.checkInInterval(RADIUS_INTERVAL, radius);
+        final int[] end = {offset};
+        forEachCandidateCell(ra, dec, radius, (from, to) -> {
+            System.arraycopy(cellStars, from, out, end[0], to - from);
+            end[0] += to - from;
+        });
+        return end[0];
+    }
+
+    /**
+     * @param ra  (double) right ascension of the position, in radians
+     * @param dec (double) declination of the position, in radians
+     * @param k   (int) number of stars wanted
+     * @return (int[]) catalogue indices of the (at most) k stars closest to the given position by angular distance,
+     *         from the closest to the farthest
+     * @throws IllegalArgumentException if k is negative
+     */
+    public int[] nearest(double ra, double dec, int k) {
+        Preconditions.checkArgument(k >= 0);
+        final int wanted = min(k, this.ra.length);
+        if (wanted == 0) {
+            return new int[0];
+        }
+        final double axisX = cos(dec) * cos(ra), axisY = cos(dec) * sin(ra), axisZ = sin(dec);
+
+        //Expanding cone search, starting with a cone whose area (about pi r^2) should hold k stars on average: once a
+        //cone holds k stars, the k closest ones are all in it
+        double radius = min(PI, sqrt(4.0 * wanted / this.ra.length));
+        int[] candidates = cone(ra, dec, radius);
+        while (candidates.length < wanted && radius < PI) {
+            radius = min(PI, 2 * radius);
+            candidates = cone(ra, dec, radius);
+        }
+
+        return Arrays.stream(candidates).boxed()
+                .sorted((i, j) -> Double.compare(
+                        unitX[j] * axisX + unitY[j] * axisY + unitZ[j] * axisZ,
+                        unitX[i] * axisX + unitY[i] * axisY + unitZ[i] * axisZ))
+                .limit(wanted)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Functional interface receiving ranges of cellStars
+     */
+    private interface RangeConsumer {
+        void accept(int from, int to);
+    }
+
+    /**
+     * Gives to action the ranges of cellStars of all the cells which may intersect the given cone
+     */
+    private void forEachCandidateCell(double ra, double dec, double radius, RangeConsumer action) {
+        final double minDec = dec - radius, maxDec = dec + radius;
+        //Ranges are widened by a cell on each side so that rounding never leaves out a star lying on a cell border
+        final int fromBand = max(0, bandOf(sin(max(-PI / 2, minDec))) - 1);
+        final int toBand = min(bands - 1, bandOf(sin(min(PI / 2, maxDec))) + 1);
+
+        //Largest right ascension difference within the cone, unless it contains a pole
+        final double halfWidth = (minDec <= -PI / 2 || maxDec >= PI / 2) ? PI : asin(min(1, sin(radius) / cos(dec)));
+        final int fromSector, toSector;
+        if (halfWidth >= PI) {
+            fromSector = 0;
+            toSector = sectors - 1;
+        } else {
+            fromSector = (int) floor((Angle.normalizePositive(ra) - halfWidth) / (2 * PI) * sectors) - 1;
+            toSector = (int) floor((Angle.normalizePositive(ra) + halfWidth) / (2 * PI) * sectors) + 1;
+        }
+
+        for (int band = fromBand; band <= toBand; ++band) {
+            if (toSector - fromSector + 1 >= sectors) {
+                action.accept(cellStart[band * sectors], cellStart[(band + 1) * sectors]);
+            } else {
+                //The sectors of a band are contiguous, but the sector range may wrap around right ascension 0
+                final int from = floorMod(fromSector, sectors), to = floorMod(toSector, sectors);
+                if (from <= to) {
+                    action.accept(cellStart[band * sectors + from], cellStart[band * sectors + to + 1]);
+                } else {
+                    action.accept(cellStart[band * sectors + from], cellStart[(band + 1) * sectors]);
+                    action.accept(cellStart[band * sectors], cellStart[band * sectors + to + 1]);
+                }
+            }
+        }
+    }
+
+    private int cellOfStar(int i) {
+        return cellOfNormalized(Angle.normalizePositive(ra[i]), unitZ[i]);
+    }
+
+    private int cellOfNormalized(double normalizedRa, double sinDec) {
+        return bandOf(sinDec) * sectors + min(sectors - 1, (int) (normalizedRa / (2 * PI) * sectors));
+    }
+
+    private int bandOf(double sinDec) {
+        return max(0, min(bands - 1, (int) floor((sinDec + 1) / 2 * bands)));
+    }
+}
@@ -26,13 +26,39 @@ public final class Star extends CelestialObject {
      * @throws IllegalArgumentException if hipparcosId < 0 or colorIndex not in [-0.5;5.5]
      */
     public Star(int hipparcosId, String name, EquatorialCoordinates equatorialPos, float magnitude, float colorIndex) {
+        this(colorTemperatureOf(colorIndex), hipparcosId, name, equatorialPos, magnitude);
+    }
+
+    /**
+     * Constructor used when the color temperature is already known, typically when materializing a star out of a
+     * columnar StarCatalogue (parameter order differs from the public constructor to avoid overload ambiguities)
+     *
+     * @param colorTemperature (int) Star's temperature in Kelvin
+     * @param hipparcosId      (int) Star's identification integer
+     * @param name             (String)
+     * @param equatorialPos    (EquatorialCoordinates) Star's position
+     * @param magnitude        (float)
+     * @throws IllegalArgumentException if hipparcosId < 0
+     */
+    Star(int colorTemperature, int hipparcosId, String name, EquatorialCoordinates equatorialPos, float magnitude) {
         super(name, equatorialPos, 0, magnitude);
 
         Preconditions.checkArgument(hipparcosId >= 0);
-        Preconditions.checkInInterval(COLOR_INTERVAL, colorIndex);
 
         this.hipparcosId = hipparcosId;
-        this.colorTemperature = (int) Math.floor(4600 * (1 / (0.92 * colorIndex + 1.7) + 1 / (0.92 * colorIndex + 0.62)));
+        this.colorTemperature = colorTemperature;
+    }
+
+    /**
+     * Computes a star's color temperature from its color index
+     *
+     * @param colorIndex (float)
+     * @return (int) temperature in Kelvin
+     * @throws IllegalArgumentException if colorIndex not in [-0.5;5.5]
+     */
+    static int colorTemperatureOf(float colorIndex) {
+        Preconditions.checkInInterval(COLOR_INTERVAL, colorIndex);
+        return (int) Math.floor(4600 * (1 / (0.92 * colorIndex + 1.7) + 1 / (0.92 * colorIndex + 0.62)));
     }
 
     /***
@@ -1,24 +1,32 @@
 package ch.epfl.rigel.astronomy;
 
 import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
 import ch.epfl.rigel.math.sets.abstraction.AbstractMathSet;
 import ch.epfl.rigel.math.sets.implement.MathSet;
 import ch.epfl.rigel.math.sets.implement.PartitionSet;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 /**
  * Catalogue of stars and asterisms
@@ -28,8 +36,31 @@ import java.util.stream.Stream;
  */
 public final class StarCatalogue {
 
+    private static final double CAP_MARGIN = 1e-9;
+
+    private final int starCount;
+    private final double[] ra, dec;
+    private final float[] magnitude;
+    private final int[] colorTemperature, hipparcosId;
+    private final String[] names;
+    private final double[] unitX, unitY, unitZ;
+    private final SphericalIndex sphericalIndex;
+    //Catalogue indices from the brightest star to the faintest, and the magnitudes in that order
+    private final int[] magnitudeOrder;
+    private final float[] sortedMagnitudes;
+    //Structure of arrays: each star is a column index rather than an object, Star instances are only materialized
+    //upon request (and then cached so that their identity remains stable)
+    private final AtomicReferenceArray<Star> materializedStars;
     private final List<Star> starList;
+
     private final Map<Asterism, List<Integer>> asterismMap;
+    private final int[] asterismStars;
+    //Asterisms compiled in compressed form: asterism a joins stars asterismEdges[asterismEdgeStart[a]] to
+    //asterismEdges[asterismEdgeStart[a + 1] - 1], each to the next; its stars lie in the cap of axis asterismCap[XYZ]
+    //and angular radius asterismCapRadius
+    private final int[] asterismEdgeStart, asterismEdges;
+    private final double[] asterismCapX, asterismCapY, asterismCapZ, asterismCapRadius;
+    private final boolean[] isAsterismStar;
     private final Map<Star, Integer> starToIndexMap;
     private final Set<Asterism> immutableAsterismSet;
     private final Map<Star, AbstractMathSet<Star>> constellationsMap;
@@ -42,10 +73,52 @@ public final class StarCatalogue {
      * @throws IllegalArgumentException if a star in an asterim isn't listed in stars
      */
     public StarCatalogue(List<Star> stars, List<Asterism> asterisms) {
-        
-        this.starToIndexMap = Collections.unmodifiableMap(IntStream.range(0,stars.size()).boxed()
-                .collect(Collectors.toMap(stars::get,Function.identity(), (o1,o2)->o1)));
-        //Although this map causes some spatial complexity, it avoids an O(n*m) call to indexOf below
+        this(new Builder().addAllStars(stars), asterisms);
+    }
+
+    /**
+     * Constructs a catalogue from the columns of a builder, which are copied
+     *
+     * @param columns   (Builder) builder whose star columns are to be copied
+     * @param asterisms (List<Asterism>) List of asterisms grouping some or all the stars in columns
+     * @throws IllegalArgumentException if a star in an asterim isn't listed in columns
+     */
+    private StarCatalogue(Builder columns, List<Asterism> asterisms) {
+
+        this.starCount = columns.starCount;
+        this.ra = Arrays.copyOf(columns.ra, starCount);
+        this.dec = Arrays.copyOf(columns.dec, starCount);
+        this.magnitude = Arrays.copyOf(columns.magnitude, starCount);
+        this.colorTemperature = Arrays.copyOf(columns.colorTemperature, starCount);
+        this.hipparcosId = Arrays.copyOf(columns.hipparcosId, starCount);
+        this.names = Arrays.copyOf(columns.names, starCount);
+
+        this.unitX = new double[starCount];
+        this.unitY = new double[starCount];
+        this.unitZ = new double[starCount];
+        for (int i = 0; i < starCount; ++i) {
+            final double cosDec = Math.cos(dec[i]);
+            unitX[i] = cosDec * Math.cos(ra[i]);
+            unitY[i] = cosDec * Math.sin(ra[i]);
+            unitZ[i] = Math.sin(dec[i]);
+        }
+        //Equatorial positions never change: their trigonometry is done once here rather than for every frame
+        this.sphericalIndex = new SphericalIndex(ra, unitX, unitY, unitZ);
+        this.magnitudeOrder = IntStream.range(0, starCount).boxed()
+                .sorted(Comparator.comparingDouble(i -> magnitude[i]))
+                .mapToInt(Integer::intValue).toArray();
+        this.sortedMagnitudes = new float[starCount];
+        for (int rank = 0; rank < starCount; ++rank) {
+            sortedMagnitudes[rank] = magnitude[magnitudeOrder[rank]];
+        }
+        //Stars keep their catalogue indices (asterisms refer to them): only this order is sorted by magnitude, so that
+        //the stars brighter than a limit are a prefix of it
+        this.materializedStars = new AtomicReferenceArray<>(Arrays.copyOf(columns.materializedStars, starCount));
+        this.starList = new LazyStarList(this::star, () -> starCount);
+
+        this.starToIndexMap = Collections.unmodifiableMap(new HashMap<>(columns.starToIndexMap));
+        //Although this map causes some spatial complexity, it avoids an O(n*m) call to indexOf below. Only the stars
+        //that have been materialized (all of them if the catalogue was built from Star objects) are in it.
 
         this.asterismMap = asterisms.stream().collect(Collectors.toMap(Function.identity(),
                 asterism -> {
@@ -53,6 +126,26 @@ public final class StarCatalogue {
                 return asterism.stars().stream().map(starToIndexMap::get).collect(Collectors.toUnmodifiableList());},
                 (v, u) -> u));
 
+        this.asterismStars = asterismMap.values().stream().flatMapToInt(l -> l.stream().mapToInt(Integer::intValue))
+                .distinct().sorted().toArray();
+        this.isAsterismStar = new boolean[starCount];
+        for (final int i : asterismStars) {
+            isAsterismStar[i] = true;
+        }
+
+        final List<List<Integer>> compiled = asterisms.stream().distinct().map(asterismMap::get)
+                .collect(Collectors.toList());
+        this.asterismEdgeStart = new int[compiled.size() + 1];
+        this.asterismEdges = compiled.stream().flatMapToInt(l -> l.stream().mapToInt(Integer::intValue)).toArray();
+        this.asterismCapX = new double[compiled.size()];
+        this.asterismCapY = new double[compiled.size()];
+        this.asterismCapZ = new double[compiled.size()];
+        this.asterismCapRadius = new double[compiled.size()];
+        for (int a = 0; a < compiled.size(); ++a) {
+            asterismEdgeStart[a + 1] = asterismEdgeStart[a] + compiled.get(a).size();
+            computeAsterismCap(a);
+        }
+
         /* (*): starToIndexMap is a HashMap, therefore calling containsAll upon its keySet may be better but no worse
                 than upon a List - depends of the hash. In this case, it proved to speed up the construction of
                 StarCatalogue instances by 20+ times in average.*/
@@ -86,7 +179,6 @@ public final class StarCatalogue {
 
         });
 
-        this.starList = List.copyOf(stars);
         this.immutableAsterismSet = Collections.unmodifiableSet(asterismMap.keySet());
         //keySet allows for retain & retainAll, need to make it immutable; as the map's visibility is restrained to this
         //class and the Asterisms are immutable objects, this O(1) call suffices.
@@ -94,12 +186,228 @@ public final class StarCatalogue {
     }
 
     /**
-     * @return (List <Star>) all the stars in the catalogue as a list (immutable)
+     * @return (List <Star>) all the stars in the catalogue as a list (immutable). This list is a lazy view over the
+     *         catalogue's columns: stars are materialized upon first access, always yielding the same instance.
      */
     public List<Star> stars() {
         return starList;
     }
 
+    /**
+     * @return (int) number of stars in the catalogue
+     */
+    public int starCount() {
+        return starCount;
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (Star) said star, materialized out of the columns upon first call
+     * @throws IndexOutOfBoundsException if index is not in [0, starCount()[
+     */
+    public Star star(int index) {
+        Star star = materializedStars.get(index);
+        if (star == null) {
+            materializedStars.compareAndSet(index, null, new Star(colorTemperature[index], hipparcosId[index],
+                    names[index], EquatorialCoordinates.of(ra[index], dec[index]), magnitude[index]));
+            star = materializedStars.get(index);
+            //Another thread may have won the race: always returning the stored instance keeps identities consistent
+        }
+        return star;
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (double) star's right ascension in radians
+     */
+    public double ra(int index) {
+        return ra[index];
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (double) star's declination in radians
+     */
+    public double dec(int index) {
+        return dec[index];
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (float) star's apparent magnitude
+     */
+    public float magnitude(int index) {
+        return magnitude[index];
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (int) star's temperature in Kelvin
+     */
+    public int colorTemperature(int index) {
+        return colorTemperature[index];
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (int) star's identification number
+     */
+    public int hipparcosId(int index) {
+        return hipparcosId[index];
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (String) star's name
+     */
+    public String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (double) x component of the star's equatorial unit vector, towards the vernal equinox
+     */
+    public double unitX(int index) {
+        return unitX[index];
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (double) y component of the star's equatorial unit vector, towards right ascension 6h
+     */
+    public double unitY(int index) {
+        return unitY[index];
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (double) z component of the star's equatorial unit vector, towards the north celestial pole
+     */
+    public double unitZ(int index) {
+        return unitZ[index];
+    }
+
+    /**
+     * @param rank (int) rank of a star by magnitude, 0 being the brightest star
+     * @return (int) index of said star in the catalogue
+     * @throws IndexOutOfBoundsException if rank is not in [0, starCount()[
+     */
+    public int starByMagnitude(int rank) {
+        return magnitudeOrder[rank];
+    }
+
+    /**
+     * @param limitingMagnitude (double) faintest magnitude kept
+     * @return (int) number of stars whose magnitude is at most limitingMagnitude: they are the stars of rank 0 to
+     *         this number (excluded) in starByMagnitude, found in O(log(starCount()))
+     */
+    public int brighterThanCount(double limitingMagnitude) {
+        int low = 0, high = starCount;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (sortedMagnitudes[middle] <= limitingMagnitude) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return (int[]) the catalogue indices ordered by increasing magnitude, as in starByMagnitude, for batch kernels
+     *         (which must not modify it)
+     */
+    int[] magnitudeOrderColumn() {
+        return magnitudeOrder;
+    }
+
+    /**
+     * @return (SphericalIndex) index of the stars on the celestial sphere, independent of time and view
+     */
+    public SphericalIndex sphericalIndex() {
+        return sphericalIndex;
+    }
+
+    /**
+     * @return (int[]) the indices of the stars in at least one asterism, in increasing order (must not be modified)
+     */
+    int[] asterismStarsColumn() {
+        return asterismStars;
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (boolean) whether the star is in at least one asterism
+     */
+    boolean isAsterismStar(int index) {
+        return isAsterismStar[index];
+    }
+
+    /**
+     * @return (double[]) the unit vectors' x column itself, for batch kernels (which must not modify it)
+     */
+    double[] unitXColumn() {
+        return unitX;
+    }
+
+    /**
+     * @return (double[]) the unit vectors' y column itself, for batch kernels (which must not modify it)
+     */
+    double[] unitYColumn() {
+        return unitY;
+    }
+
+    /**
+     * @return (double[]) the unit vectors' z column itself, for batch kernels (which must not modify it)
+     */
+    double[] unitZColumn() {
+        return unitZ;
+    }
+
+    /**
+     * @return (int) number of compiled asterisms, numbered in the order they were added in
+     */
+    public int asterismCount() {
+        return asterismCapRadius.length;
+    }
+
+    /**
+     * @param asterism (int) compiled asterism's number, in [0, asterismCount()], asterismCount() giving the end of
+     *                 the last one
+     * @return (int) index of the compiled asterism's first star in asterismEdgeStar: its stars go up to the next
+     *         asterism's first one, excluded
+     * @throws IndexOutOfBoundsException if asterism is not in [0, asterismCount()]
+     */
+    public int asterismEdgeStart(int asterism) {
+        return asterismEdgeStart[asterism];
+    }
+
+    /**
+     * @param k (int) index in the compiled asterisms' stars
+     * @return (int) catalogue index of said star, joined to the next one if they are in the same asterism
+     * @throws IndexOutOfBoundsException if k is not in [0, asterismEdgeStart(asterismCount())[
+     */
+    public int asterismEdgeStar(int k) {
+        return asterismEdges[k];
+    }
+
+    /**
+     * @param asterism (int) compiled asterism's number
+     * @param axisX    (double) x component of the cone's axis, as an equatorial unit vector
+     * @param axisY    (double) y component of the cone's axis
+     * @param axisZ    (double) z component of the cone's axis
+     * @param radius   (double) angular radius of the cone, in radians
+     * @return (boolean) whether the compiled asterism's bounding cap intersects the cone: false if none of its stars
+     *         is in the cone
+     */
+    public boolean asterismMayIntersect(int asterism, double axisX, double axisY, double axisZ, double radius) {
+        final double cosAngle = asterismCapX[asterism] * axisX + asterismCapY[asterism] * axisY
+                + asterismCapZ[asterism] * axisZ;
+        return Math.acos(Math.max(-1, Math.min(1, cosAngle))) <= asterismCapRadius[asterism] + radius;
+    }
+
     /**
      * @return (Set <Asterism>) an immutable set of all the asterisms in the catalogue
      */
@@ -131,18 +439,66 @@ public final class StarCatalogue {
     }
 
     /**
-     * Builds a StarCatalogue instance
+     * Bounding cap of a compiled asterism: its axis is the direction of its stars' mean unit vector, its radius the
+     * angle to the farthest of them
+     */
+    private void computeAsterismCap(int asterism) {
+        double x = 0, y = 0, z = 0;
+        for (int k = asterismEdgeStart[asterism]; k < asterismEdgeStart[asterism + 1]; ++k) {
+            x += unitX[asterismEdges[k]];
+            y += unitY[asterismEdges[k]];
+            z += unitZ[asterismEdges[k]];
+        }
+        final double norm = Math.sqrt(x * x + y * y + z * z);
+        if (norm == 0) {
+            //Stars spread all around the sphere: the cap is the whole sphere
+            asterismCapX[asterism] = 1;
+            asterismCapRadius[asterism] = Math.PI;
+            return;
+        }
+        asterismCapX[asterism] = x / norm;
+        asterismCapY[asterism] = y / norm;
+        asterismCapZ[asterism] = z / norm;
+
+        double minCos = 1;
+        for (int k = asterismEdgeStart[asterism]; k < asterismEdgeStart[asterism + 1]; ++k) {
+            final int i = asterismEdges[k];
+            minCos = Math.min(minCos, (unitX[i] * x + unitY[i] * y + unitZ[i] * z) / norm);
+        }
+        //Widened a little so that rounding never leaves out the farthest star
+        asterismCapRadius[asterism] = Math.acos(Math.max(-1, minCos)) + CAP_MARGIN;
+    }
+
+    /**
+     * Builds a StarCatalogue instance, storing its stars column by column
      */
     public static final class Builder {
 
-        private final List<Star> starsToBuild;
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int starCount;
+        private double[] ra, dec;
+        private float[] magnitude;
+        private int[] colorTemperature, hipparcosId;
+        private String[] names;
+        private Star[] materializedStars;
+        private final Map<Star, Integer> starToIndexMap;
+        private final List<Star> starsView;
         private final List<Asterism> asterismsToBuild;
 
         /**
          * Default constructor initializing 2 empty lists of stars and asterisms
          */
         public Builder() {
-            starsToBuild = new ArrayList<>();
+            ra = new double[INITIAL_CAPACITY];
+            dec = new double[INITIAL_CAPACITY];
+            magnitude = new float[INITIAL_CAPACITY];
+            colorTemperature = new int[INITIAL_CAPACITY];
+            hipparcosId = new int[INITIAL_CAPACITY];
+            names = new String[INITIAL_CAPACITY];
+            materializedStars = new Star[INITIAL_CAPACITY];
+            starToIndexMap = new HashMap<>();
+            starsView = new LazyStarList(this::star, () -> starCount);
             asterismsToBuild = new ArrayList<>();
         }
 
@@ -153,7 +509,31 @@ public final class StarCatalogue {
          * @return (Builder) this
          */
         public Builder addStar(Star star) {
-            starsToBuild.add(star);
+            EquatorialCoordinates pos = star.equatorialPos();
+            int index = appendStar(star.hipparcosId(), star.name(), pos.ra(), pos.dec(), (float) star.magnitude(),
+                    star.colorTemperature());
+            materializedStars[index] = star;
+            starToIndexMap.putIfAbsent(star, index);
+            return this;
+        }
+
+        /**
+         * Add star to catalogue without creating any Star object (columnar storage)
+         *
+         * @param hipparcosId (int) Star's identification integer
+         * @param name        (String)
+         * @param ra          (double) right ascension in radians
+         * @param dec         (double) declination in radians
+         * @param magnitude   (float)
+         * @param colorIndex  (float)
+         * @return (Builder) this
+         * @throws IllegalArgumentException if hipparcosId < 0, colorIndex not in [-0.5;5.5] or ra/dec are not valid
+         *                                  equatorial coordinates
+         * @throws NullPointerException     if name is null
+         */
+        public Builder addStar(int hipparcosId, String name, double ra, double dec, float magnitude, float colorIndex) {
+            EquatorialCoordinates.of(ra, dec); //Same checks as for a Star, the instance itself is not kept
+            appendStar(hipparcosId, name, ra, dec, magnitude, Star.colorTemperatureOf(colorIndex));
             return this;
         }
 
@@ -169,10 +549,41 @@ public final class StarCatalogue {
         }
 
         /**
-         * @return (List <Star>) unmodifiable view of the starList being built
+         * @return (List <Star>) unmodifiable view of the starList being built (stars are materialized upon access)
          */
         public List<Star> stars() {
-            return Collections.unmodifiableList(starsToBuild);
+            return starsView;
+        }
+
+        /**
+         * @return (int) number of stars added so far
+         */
+        public int starCount() {
+            return starCount;
+        }
+
+        /**
+         * @param index (int) index of a star added to this builder
+         * @return (Star) said star, materialized out of the columns upon first call
+         * @throws IndexOutOfBoundsException if index is not in [0, starCount()[
+         */
+        public Star star(int index) {
+            Objects.checkIndex(index, starCount);
+            if (materializedStars[index] == null) {
+                materializedStars[index] = new Star(colorTemperature[index], hipparcosId[index], names[index],
+                        EquatorialCoordinates.of(ra[index], dec[index]), magnitude[index]);
+                starToIndexMap.putIfAbsent(materializedStars[index], index);
+            }
+            return materializedStars[index];
+        }
+
+        /**
+         * @param index (int) index of a star added to this builder
+         * @return (int) said star's identification number, without materializing it
+         * @throws IndexOutOfBoundsException if index is not in [0, starCount()[
+         */
+        public int hipparcosId(int index) {
+            return hipparcosId[Objects.checkIndex(index, starCount)];
         }
 
         /**
@@ -199,7 +610,97 @@ public final class StarCatalogue {
          * @return (StarCatalogue) fully built and immutable StarCatalogue
          */
         public StarCatalogue build() {
-            return new StarCatalogue(starsToBuild, asterismsToBuild);
+            return new StarCatalogue(this, asterismsToBuild);
+        }
+
+        /**
+         * Appends a star to the columns, already knowing its color temperature
+         *
+         * @return (int) index of the appended star
+         * @throws IllegalArgumentException if hipparcosId < 0
+         * @throws NullPointerException     if name is null
+         */
+        int appendStar(int hipparcosId, String name, double ra, double dec, float magnitude, int colorTemperature) {
+            Preconditions.checkArgument(hipparcosId >= 0);
+            ensureCapacity(starCount + 1);
+
+            this.hipparcosId[starCount] = hipparcosId;
+            this.names[starCount] = Objects.requireNonNull(name);
+            this.ra[starCount] = ra;
+            this.dec[starCount] = dec;
+            this.magnitude[starCount] = magnitude;
+            this.colorTemperature[starCount] = colorTemperature;
+            return starCount++;
+        }
+
+        /**
+         * Appends whole columns at once, trusting them to be valid (typically because they were checked when a
+         * compiled catalogue was written)
+         *
+         * @return (int) index of the first appended star
+         * @throws IllegalArgumentException if the columns do not all have the same length
+         */
+        int appendColumns(double[] ra, double[] dec, float[] magnitude, int[] colorTemperature, int[] hipparcosId,
+                          String[] names) {
+            final int count = ra.length;
+            Preconditions.checkArgument(dec.length == count && magnitude.length == count
+                    && colorTemperature.length == count && hipparcosId.length == count && names.length == count,
+                    "StarCatalogue.Builder: columns of different lengths.");
+            ensureCapacity(starCount + count);
+
+            System.arraycopy(ra, 0, this.ra, starCount, count);
+            System.arraycopy(dec, 0, this.dec, starCount, count);
+            System.arraycopy(magnitude, 0, this.magnitude, starCount, count);
+            System.arraycopy(colorTemperature, 0, this.colorTemperature, starCount, count);
+            System.arraycopy(hipparcosId, 0, this.hipparcosId, starCount, count);
+            System.arraycopy(names, 0, this.names, starCount, count);
+
+            final int firstIndex = starCount;
+            starCount += count;
+            return firstIndex;
+        }
+
+        private Builder addAllStars(List<Star> stars) {
+            ensureCapacity(stars.size());
+            stars.forEach(this::addStar);
+            return this;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > ra.length) {
+                int newCapacity = Math.max(capacity, 2 * ra.length);
+                ra = Arrays.copyOf(ra, newCapacity);
+                dec = Arrays.copyOf(dec, newCapacity);
+                magnitude = Arrays.copyOf(magnitude, newCapacity);
+                colorTemperature = Arrays.copyOf(colorTemperature, newCapacity);
+                hipparcosId = Arrays.copyOf(hipparcosId, newCapacity);
+                names = Arrays.copyOf(names, newCapacity);
+                materializedStars = Arrays.copyOf(materializedStars, newCapacity);
+            }
+        }
+    }
+
+    /**
+     * Immutable and lazy list view over stars stored column by column
+     */
+    private static final class LazyStarList extends AbstractList<Star> implements RandomAccess {
+
+        private final IntFunction<Star> starAt;
+        private final IntSupplier size;
+
+        private LazyStarList(IntFunction<Star> starAt, IntSupplier size) {
+            this.starAt = starAt;
+            this.size = size;
+        }
+
+        @Override
+        public Star get(int index) {
+            return starAt.apply(Objects.checkIndex(index, size.getAsInt()));
+        }
+
+        @Override
+        public int size() {
+            return size.getAsInt();
         }
     }
 
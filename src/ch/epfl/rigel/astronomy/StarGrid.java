@@ -0,0 +1,194 @@
+package ch.epfl.rigel.astronomy;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid index over the stars' positions on the plane, answering nearest neighbour and radius queries by only
+ * looking at the cells around the queried point.
+ *
+ * Cells are stored in compressed form: the indices of the stars in cell c are cellStars[cellStart[c]] to
+ * cellStars[cellStart[c + 1] - 1]. Stars projected outside the gridded square, far from the center of projection,
+ * are kept aside and only looked at by queries reaching outside of it.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+final class StarGrid {
+
+    //Beyond |x| or |y| = 4, stars are more than 127 degrees away from the center of projection: seldom on screen
+    private static final double HALF_EXTENT = 4;
+    private static final int STARS_PER_CELL = 2;
+
+    private int side;
+    private double cellsPerUnit;
+    private int[] cellStart = new int[0];
+    private int[] cellStars = new int[0];
+    private int[] outsideStars = new int[0];
+    private int outsideCount;
+    private double[] x, y;
+
+    /**
+     * (Re)builds the index over the positions of some stars, the others never being found, in time proportional to
+     * their number and reusing its arrays whenever possible
+     *
+     * @param x       (double[]) stars' x coordinates, indexed like the catalogue
+     * @param y       (double[]) stars' y coordinates, indexed like the catalogue
+     * @param indices (int[]) catalogue indices of the stars to index, null for the count first stars
+     * @param count   (int) number of stars to index, at the start of indices
+     */
+    void build(double[] x, double[] y, int[] indices, int count) {
+        this.x = x;
+        this.y = y;
+        this.side = Math.max(1, (int) Math.ceil(Math.sqrt((double) count / STARS_PER_CELL)));
+        this.cellsPerUnit = side / (2 * HALF_EXTENT);
+
+        final int cellCount = side * side;
+        if (cellStart.length < cellCount + 1) cellStart = new int[cellCount + 1];
+        if (cellStars.length < count) cellStars = new int[count];
+        if (outsideStars.length < count) outsideStars = new int[count];
+        Arrays.fill(cellStart, 0, cellCount + 1, 0);
+        outsideCount = 0;
+
+        //Counting sort: cellStart[c + 1] first counts the stars of cell c, then becomes the end of cell c
+        for (int k = 0; k < count; ++k) {
+            final int i = indices == null ? k : indices[k];
+            final int cell = cellOf(x[i], y[i]);
+            if (cell < 0) {
+                //Culled stars (NaN) can never be picked: they are left out altogether
+                if (!Double.isNaN(x[i])) outsideStars[outsideCount++] = i;
+            } else {
+                ++cellStart[cell + 1];
+            }
+        }
+        for (int c = 0; c < cellCount; ++c) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        for (int k = 0; k < count; ++k) {
+            final int i = indices == null ? k : indices[k];
+            final int cell = cellOf(x[i], y[i]);
+            if (cell >= 0) {
+                cellStars[cellStart[cell]++] = i;
+            }
+        }
+        //Filling shifted every start to the next cell's: shifting back
+        System.arraycopy(cellStart, 0, cellStart, 1, cellCount);
+        cellStart[0] = 0;
+    }
+
+    /**
+     * @param px          (double) x coordinate of the point to approach
+     * @param py          (double) y coordinate of the point to approach
+     * @param maxDistance (double) max allowed distance
+     * @return (int) index of the closest star within maxDistance of (px, py), -1 if there is none
+     */
+    int nearest(double px, double py, double maxDistance) {
+        final double maxDistSquared = maxDistance * maxDistance;
+        int best = -1;
+
+        if (reachesInside(px, py, maxDistance)) {
+            final int fromCol = clampedCoordinate(px - maxDistance), toCol = clampedCoordinate(px + maxDistance);
+            final int fromRow = clampedCoordinate(py - maxDistance), toRow = clampedCoordinate(py + maxDistance);
+            for (int row = fromRow; row <= toRow; ++row) {
+                best = closestOf(cellStars, cellStart[row * side + fromCol], cellStart[row * side + toCol + 1],
+                        px, py, best, maxDistSquared);
+                //The cells of a row are contiguous in cellStars
+            }
+        }
+        if (reachesOutside(px, py, maxDistance)) {
+            best = closestOf(outsideStars, 0, outsideCount, px, py, best, maxDistSquared);
+        }
+        return best;
+    }
+
+    /**
+     * @param px     (double) x coordinate of the center
+     * @param py     (double) y coordinate of the center
+     * @param radius (double) radius
+     * @param action (IntConsumer) applied to the index of every star within radius of (px, py)
+     */
+    void forEachWithin(double px, double py, double radius, IntConsumer action) {
+        final double radiusSquared = radius * radius;
+        forEachCandidate(px, py, radius, i -> {
+            final double dx = x[i] - px, dy = y[i] - py;
+            if (dx * dx + dy * dy <= radiusSquared) action.accept(i);
+        });
+    }
+
+    /**
+     * Applies action to every star in the cells overlapping the square of half side radius around (px, py), as well
+     * as to the stars outside the grid if that square reaches outside of it
+     */
+    private void forEachCandidate(double px, double py, double radius, IntConsumer action) {
+        if (reachesInside(px, py, radius)) {
+            final int fromCol = clampedCoordinate(px - radius), toCol = clampedCoordinate(px + radius);
+            final int fromRow = clampedCoordinate(py - radius), toRow = clampedCoordinate(py + radius);
+            for (int row = fromRow; row <= toRow; ++row) {
+                for (int k = cellStart[row * side + fromCol]; k < cellStart[row * side + toCol + 1]; ++k) {
+                    action.accept(cellStars[k]);
+                }
+            }
+        }
+        if (reachesOutside(px, py, radius)) {
+            for (int k = 0; k < outsideCount; ++k) {
+                action.accept(outsideStars[k]);
+            }
+        }
+    }
+
+    /**
+     * @return (int) closest star to (px, py) among best and indices[from] to indices[to - 1] within the max distance,
+     *         ties going to the smallest index; -1 if there is none
+     */
+    private int closestOf(int[] indices, int from, int to, double px, double py, int best, double maxDistSquared) {
+        double bestDistSquared = best < 0 ? maxDistSquared : distSquared(best, px, py);
+        for (int k = from; k < to; ++k) {
+            final int i = indices[k];
+            final double distSquared = distSquared(i, px, py);
+            if (distSquared < bestDistSquared || (distSquared == bestDistSquared && (best < 0 || i < best))) {
+                bestDistSquared = distSquared;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private double distSquared(int i, double px, double py) {
+        final double dx = x[i] - px, dy = y[i] - py;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * @return (boolean) whether the square of half side radius around (px, py) overlaps the grid
+     */
+    private static boolean reachesInside(double px, double py, double radius) {
+        return px + radius >= -HALF_EXTENT && px - radius < HALF_EXTENT
+                && py + radius >= -HALF_EXTENT && py - radius < HALF_EXTENT;
+    }
+
+    /**
+     * @return (boolean) whether the square of half side radius around (px, py) is not entirely within the grid
+     */
+    private static boolean reachesOutside(double px, double py, double radius) {
+        return !(px - radius >= -HALF_EXTENT && px + radius < HALF_EXTENT
+                && py - radius >= -HALF_EXTENT && py + radius < HALF_EXTENT);
+    }
+
+    /**
+     * @return (int) cell containing (px, py), -1 if it is outside the grid (or not a number)
+     */
+    private int cellOf(double px, double py) {
+        if (!(px >= -HALF_EXTENT && px < HALF_EXTENT && py >= -HALF_EXTENT && py < HALF_EXTENT)) {
+            return -1;
+        }
+        return Math.min(side - 1, (int) ((py + HALF_EXTENT) * cellsPerUnit)) * side
+                + Math.min(side - 1, (int) ((px + HALF_EXTENT) * cellsPerUnit));
+    }
+
+    /**
+     * @return (int) column (or row) of the given coordinate, clamped to the grid
+     */
+    private int clampedCoordinate(double coordinate) {
+        return Math.max(0, Math.min(side - 1, (int) Math.floor((coordinate + HALF_EXTENT) * cellsPerUnit)));
+    }
+}
@@ -14,7 +14,7 @@ import java.util.Objects;
 public final class Sun extends CelestialObject {
 
     private final static String NAME = "Soleil";
-    private final static float MAGNITUDE = -26.7f;
+    final static float MAGNITUDE = -26.7f;
     private final EclipticCoordinates eclipticPos;
     private final float meanAnomaly;
 
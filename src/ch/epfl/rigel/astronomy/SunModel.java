@@ -13,7 +13,7 @@ import static java.lang.Math.sin;
  * @author Alexandre Sallinen (303162)
  * @author Salim Najib (310003)
  */
-public enum SunModel implements CelestialObjectModel<Sun> {
+public enum SunModel implements InterpolableModel<Sun> {
 
     SUN;
 
@@ -33,14 +33,60 @@ public enum SunModel implements CelestialObjectModel<Sun> {
      */
     @Override
     public Sun at(double daysSinceJ2010, EclipticToEquatorialConversion eclipToEquaConversion) {
+        final double[] channels = new double[CHANNEL_COUNT];
+        channels(daysSinceJ2010, channels);
+        return fromChannels(channels, eclipToEquaConversion);
+    }
 
+    /**
+     * Computes the Sun's channels, the extra one being its mean anomaly
+     *
+     * @param daysSinceJ2010 (double) days between J2010 and the instant
+     * @param out            (double[]) output channels
+     */
+    @Override
+    public void channels(double daysSinceJ2010, double[] out) {
         double meanAnomaly = RATIO * daysSinceJ2010 + LON_2010 - LON_PER;
         double trueAnomaly = meanAnomaly + 2 * EXCENT * sin(meanAnomaly);
 
-        EclipticCoordinates eclipCoords = EclipticCoordinates.of(normalizePositive(trueAnomaly + LON_PER), 0);
+        out[LON] = normalizePositive(trueAnomaly + LON_PER);
+        out[LAT] = 0;
+        out[SIZE] = THETA_0 * (1 + EXCENT * cos(trueAnomaly)) / (ONE_MIN_EXC2);
+        out[EXTRA] = meanAnomaly;
+    }
+
+    /**
+     * @param channels   (double[]) channels
+     * @param conversion (EclipticToEquatorialConversion) conversion at the instant
+     * @return (Sun) the Sun with the given channels
+     */
+    @Override
+    public Sun fromChannels(double[] channels, EclipticToEquatorialConversion conversion) {
+        EclipticCoordinates eclipCoords = EclipticCoordinates.of(channels[LON], channels[LAT]);
+
+        return new Sun(eclipCoords, conversion.apply(eclipCoords),
+                (float) channels[SIZE], //Angular size
+                (float) channels[EXTRA]);
+    }
+
+    /**
+     * @see InterpolableModel#toColumns(double[], EclipticToEquatorialConversion, EphemerisSeries, int)
+     */
+    @Override
+    public void toColumns(double[] channels, EclipticToEquatorialConversion conversion, EphemerisSeries out,
+                          int index) {
+        conversion.apply(channels[LON], channels[LAT], out.ra, out.dec, index);
+        out.angularSize[index] = (float) channels[SIZE];
+        out.magnitude[index] = Sun.MAGNITUDE;
+        out.phase[index] = Double.NaN;
+    }
 
-        return new Sun(eclipCoords, eclipToEquaConversion.apply(eclipCoords),
-                (float) (THETA_0 * (1 + EXCENT * cos(trueAnomaly)) / (ONE_MIN_EXC2)), //Angular size
-                (float) (meanAnomaly));
+    /**
+     * @param context (EphemerisContext) shared state at the instant
+     * @return (Sun) the context's Sun, already computed
+     */
+    @Override
+    public Sun at(EphemerisContext context) {
+        return context.sun();
     }
 }
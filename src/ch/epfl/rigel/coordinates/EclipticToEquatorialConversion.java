@@ -59,6 +59,24 @@ public final class EclipticToEquatorialConversion implements Function<EclipticCo
                 asin(0.5 * (term1 * cosEpsilon + term2 * sinEpsilon)));
     }
 
+    /**
+     * Converts an ecliptic position given by its components, writing its equatorial components at the given index of
+     * two arrays: for batch conversions, creating no coordinates objects
+     *
+     * @param lambda (double) ecliptic longitude, in radians
+     * @param beta   (double) ecliptic latitude, in radians
+     * @param ra     (double[]) output right ascensions, in [0, 2pi[
+     * @param dec    (double[]) output declinations, in [-pi/2, pi/2]
+     * @param index  (int) index written to
+     */
+    public void apply(double lambda, double beta, double[] ra, double[] dec, int index) {
+        double term1 = 2 * sin(beta);
+        double term2 = sin(lambda - beta) + sin(lambda + beta);
+
+        ra[index] = Angle.normalizePositive(atan2(term2 * cosEpsilon - term1 * sinEpsilon, 2 * cos(lambda) * cos(beta)));
+        dec[index] = asin(0.5 * (term1 * cosEpsilon + term2 * sinEpsilon));
+    }
+
     /**
      * @throws UnsupportedOperationException (double precision does not allow for equals)
      * @see Object#equals(Object)
@@ -21,6 +21,10 @@ public final class EquatorialToHorizontalConversion implements Function<Equatori
     private final double sinPhi;
     private final double cosPhi;
     private final double localTime;
+    //Rows of the rotation matrix taking an equatorial unit vector to the horizontal (north, east, up) frame
+    private final double northX, northY, northZ;
+    private final double eastX, eastY;
+    private final double upX, upY, upZ;
 
     /**
      * Initialize conversion tool for a given place and time
@@ -34,6 +38,17 @@ public final class EquatorialToHorizontalConversion implements Function<Equatori
         this.cosPhi = epsilonIfZero(cos(where.lat()));
         //added for step 12 to correct latitude at the poles, was causing 1/0 divisions down the line in Stereographic
         //projection which created peculiar skies in 90 and -90 latitudes
+
+        final double sinTime = sin(localTime);
+        final double cosTime = cos(localTime);
+        this.northX = -sinPhi * cosTime;
+        this.northY = -sinPhi * sinTime;
+        this.northZ = cosPhi;
+        this.eastX = -sinTime;
+        this.eastY = cosTime;
+        this.upX = cosPhi * cosTime;
+        this.upY = cosPhi * sinTime;
+        this.upZ = sinPhi;
     }
 
     /**
@@ -56,6 +71,47 @@ public final class EquatorialToHorizontalConversion implements Function<Equatori
                 asin(term1));
     }
 
+    /**
+     * Converts a position given as an equatorial unit vector, as precomputed for the stars by the catalogue: the
+     * rotation only takes multiply-adds, leaving two inverse trigonometric calls per position
+     *
+     * @param x (double) component towards the vernal equinox
+     * @param y (double) component towards right ascension 6h
+     * @param z (double) component towards the north celestial pole
+     * @return (HorizontalCoordinates) Horizontal coordinates corresponding to the input
+     */
+    public HorizontalCoordinates applyToUnitVector(double x, double y, double z) {
+        return HorizontalCoordinates.of(
+                normalizePositive(atan2(eastX * x + eastY * y, northX * x + northY * y + northZ * z)),
+                asin(max(-1, min(1, upX * x + upY * y + upZ * z))));
+                //Rounding may take the vertical component slightly out of [-1, 1]
+    }
+
+    /**
+     * Horizontal -> Equatorial, the rotation matrix being orthogonal its inverse is its transpose
+     *
+     * @param horCoords (HorizontalCoordinates) coordinates to convert back
+     * @return (EquatorialCoordinates) Equatorial coordinates corresponding to the input
+     */
+    public EquatorialCoordinates inverseApply(HorizontalCoordinates horCoords) {
+        final double north = cos(horCoords.alt()) * cos(horCoords.az());
+        final double east = cos(horCoords.alt()) * sin(horCoords.az());
+        final double up = sin(horCoords.alt());
+
+        final double x = northX * north + eastX * east + upX * up;
+        final double y = northY * north + eastY * east + upY * up;
+        final double z = northZ * north + upZ * up;
+        //cosPhi may have been nudged away from 0, which makes the matrix very slightly non orthogonal
+        return EquatorialCoordinates.of(normalizePositive(atan2(y, x)), asin(max(-1, min(1, z / hypot(hypot(x, y), z)))));
+    }
+
+    /**
+     * @return (double[]) the rotation matrix taking equatorial unit vectors to (north, east, up) ones, row by row
+     */
+    double[] rotationMatrix() {
+        return new double[]{northX, northY, northZ, eastX, eastY, 0, upX, upY, upZ};
+    }
+
     /**
      * @throws UnsupportedOperationException (double precision does not allow for equals)
      * @see Object#equals(Object)
@@ -173,6 +173,30 @@ public final class PlanarTransformation implements UnaryOperator<CartesianCoordi
                 CartesianCoordinates.of(Mxx * x + Mxy * y + Tx, Myx * x + Myy * y + Ty);
     }
 
+    /**
+     * @see PlanarTransformation#apply(double, double)
+     * Alternate apply method creating no object at all, for positions stored in primitive arrays
+     *
+     * @param x (double) 1st coefficient of input 2x1 vector
+     * @param y (double) 2nd coefficient of input 2x1 vector
+     * @return (double) 1st coefficient of the 2x1 vector resulting of the product
+     */
+    public double applyX(double x, double y) {
+        return isDiagonal ? Mxx * x + Tx : Mxx * x + Mxy * y + Tx;
+    }
+
+    /**
+     * @see PlanarTransformation#apply(double, double)
+     * Alternate apply method creating no object at all, for positions stored in primitive arrays
+     *
+     * @param x (double) 1st coefficient of input 2x1 vector
+     * @param y (double) 2nd coefficient of input 2x1 vector
+     * @return (double) 2nd coefficient of the 2x1 vector resulting of the product
+     */
+    public double applyY(double x, double y) {
+        return isDiagonal ? Myy * y + Ty : Myx * x + Myy * y + Ty;
+    }
+
     /**
      * Computes the product this * cartesCoords; let cartesCoords = (x,y):
      * [ mxx mxy ] [ x ]    [ mxx * x + mxy * y ]
@@ -0,0 +1,139 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.rigel.Preconditions;
+
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+
+/**
+ * Batch kernel fusing an equatorial to horizontal conversion and a stereographic projection: equatorial unit vectors
+ * are taken to the plane in a single pass, with no intermediate coordinates objects.
+ *
+ * The rotation to the horizontal frame and the stereographic projection's trigonometry are folded together at
+ * construction into three rows, leaving three dot products and one division per position.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class ProjectionKernel {
+
+    //x = (xRow . v) / (1 + denRow . v) and y = (yRow . v) / (1 + denRow . v)
+    private final double xRowX, xRowY, xRowZ;
+    private final double yRowX, yRowY, yRowZ;
+    private final double denRowX, denRowY, denRowZ;
+    //Altitude's sine = upRow . v
+    private final double upRowX, upRowY, upRowZ;
+
+    /**
+     * Initialize kernel for a given conversion and projection
+     *
+     * @param conversion (EquatorialToHorizontalConversion) conversion to horizontal coordinates
+     * @param projection (StereographicProjection) projection of horizontal coordinates onto the plane
+     */
+    public ProjectionKernel(EquatorialToHorizontalConversion conversion, StereographicProjection projection) {
+        final double[] m = conversion.rotationMatrix();
+        final double cosAz = cos(projection.center().az());
+        final double sinAz = sin(projection.center().az());
+        final double cosPhi1 = projection.cosPhi1();
+        final double sinPhi1 = projection.sinPhi1();
+
+        //With (N, E, U) the horizontal unit vector: cos(lambda)cos(phi) = N cosAz + E sinAz and
+        //sin(lambda)cos(phi) = E cosAz - N sinAz, lambda being the azimuth relative to the center of projection
+        final double cX = cosAz * m[0] + sinAz * m[3];
+        final double cY = cosAz * m[1] + sinAz * m[4];
+        final double cZ = cosAz * m[2] + sinAz * m[5];
+
+        this.xRowX = cosAz * m[3] - sinAz * m[0];
+        this.xRowY = cosAz * m[4] - sinAz * m[1];
+        this.xRowZ = cosAz * m[5] - sinAz * m[2];
+
+        this.yRowX = cosPhi1 * m[6] - sinPhi1 * cX;
+        this.yRowY = cosPhi1 * m[7] - sinPhi1 * cY;
+        this.yRowZ = cosPhi1 * m[8] - sinPhi1 * cZ;
+
+        this.denRowX = sinPhi1 * m[6] + cosPhi1 * cX;
+        this.denRowY = sinPhi1 * m[7] + cosPhi1 * cY;
+        this.denRowZ = sinPhi1 * m[8] + cosPhi1 * cZ;
+
+        this.upRowX = m[6];
+        this.upRowY = m[7];
+        this.upRowZ = m[8];
+    }
+
+    /**
+     * Projects the equatorial unit vectors in [from, to[ onto the plane, writing their cartesian coordinates at the
+     * same indices of x and y. Allocates nothing.
+     *
+     * @param unitX (double[]) components towards the vernal equinox
+     * @param unitY (double[]) components towards right ascension 6h
+     * @param unitZ (double[]) components towards the north celestial pole
+     * @param from  (int) first index, inclusive
+     * @param to    (int) last index, exclusive
+     * @param x     (double[]) output x coordinates
+     * @param y     (double[]) output y coordinates
+     * @throws IllegalArgumentException if [from, to[ is not a range of all the arrays
+     */
+    public void apply(double[] unitX, double[] unitY, double[] unitZ, int from, int to, double[] x, double[] y) {
+        Preconditions.checkArgument(0 <= from && from <= to && to <= unitX.length && to <= unitY.length
+                && to <= unitZ.length && to <= x.length && to <= y.length);
+
+        for (int i = from; i < to; ++i) {
+            final double vx = unitX[i], vy = unitY[i], vz = unitZ[i];
+            final double inverseDen = 1 / (1 + denRowX * vx + denRowY * vy + denRowZ * vz);
+            x[i] = (xRowX * vx + xRowY * vy + xRowZ * vz) * inverseDen;
+            y[i] = (yRowX * vx + yRowY * vy + yRowZ * vz) * inverseDen;
+        }
+    }
+
+    /**
+     * Projects the equatorial unit vectors whose indices are in indices[from, to[ onto the plane, writing their
+     * cartesian coordinates at the same indices of x and y. Allocates nothing.
+     *
+     * @param unitX            (double[]) components towards the vernal equinox
+     * @param unitY            (double[]) components towards right ascension 6h
+     * @param unitZ            (double[]) components towards the north celestial pole
+     * @param indices          (int[]) indices of the unit vectors to project
+     * @param from             (int) first index of indices, inclusive
+     * @param to               (int) last index of indices, exclusive
+     * @param aboveHorizonOnly (boolean) whether vectors below the horizon are skipped, their coordinates being set
+     *                         to NaN
+     * @param x                (double[]) output x coordinates
+     * @param y                (double[]) output y coordinates
+     * @return (int) number of vectors actually projected
+     * @throws IllegalArgumentException if [from, to[ is not a range of indices
+     */
+    public int apply(double[] unitX, double[] unitY, double[] unitZ, int[] indices, int from, int to,
+                     boolean aboveHorizonOnly, double[] x, double[] y) {
+        Preconditions.checkArgument(0 <= from && from <= to && to <= indices.length);
+
+        int projected = 0;
+        for (int k = from; k < to; ++k) {
+            final int i = indices[k];
+            final double vx = unitX[i], vy = unitY[i], vz = unitZ[i];
+            if (aboveHorizonOnly && upRowX * vx + upRowY * vy + upRowZ * vz < 0) {
+                x[i] = Double.NaN;
+                y[i] = Double.NaN;
+            } else {
+                final double inverseDen = 1 / (1 + denRowX * vx + denRowY * vy + denRowZ * vz);
+                x[i] = (xRowX * vx + xRowY * vy + xRowZ * vz) * inverseDen;
+                y[i] = (yRowX * vx + yRowY * vy + yRowZ * vz) * inverseDen;
+                ++projected;
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * Projects a single equatorial unit vector onto the plane
+     *
+     * @param unitX (double) component towards the vernal equinox
+     * @param unitY (double) component towards right ascension 6h
+     * @param unitZ (double) component towards the north celestial pole
+     * @return (CartesianCoordinates) projected position
+     */
+    public CartesianCoordinates apply(double unitX, double unitY, double unitZ) {
+        final double inverseDen = 1 / (1 + denRowX * unitX + denRowY * unitY + denRowZ * unitZ);
+        return CartesianCoordinates.of((xRowX * unitX + xRowY * unitY + xRowZ * unitZ) * inverseDen,
+                (yRowX * unitX + yRowY * unitY + yRowZ * unitZ) * inverseDen);
+    }
+}
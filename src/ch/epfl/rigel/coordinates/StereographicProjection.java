@@ -118,6 +118,27 @@ public final class StereographicProjection implements Function<HorizontalCoordin
                 StrictMath.asin(cosC * sinPhi1 + (term * cosPhi1) / p));
     }
 
+    /**
+     * @return (HorizontalCoordinates) center of projection
+     */
+    public HorizontalCoordinates center() {
+        return centerOfProjection;
+    }
+
+    /**
+     * @return (double) cosine of the center's altitude
+     */
+    double cosPhi1() {
+        return cosPhi1;
+    }
+
+    /**
+     * @return (double) sine of the center's altitude
+     */
+    double sinPhi1() {
+        return sinPhi1;
+    }
+
     /**
      * @return (String) "StereographicProjection : (center.az() ; center.alt())"
      */
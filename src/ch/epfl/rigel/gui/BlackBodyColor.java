@@ -46,7 +46,33 @@ public final class BlackBodyColor {
      * @throws IllegalArgumentException if temperature isn't in [1000,40000]
      */
     public static Color colorForTemperature(double temperature) {
-        return ColorListSingleton.getInstance().get((int) Math.round(checkInInterval(TEMP_INTERVAL, temperature) / 100) - 10);
+        return ColorListSingleton.getInstance().get(binForTemperature(temperature));
+    }
+
+    /**
+     * Colors are tabulated every 100 K: the bin of a temperature is the index of its color in that table
+     *
+     * @param temperature (double) temperature in Kelvin
+     * @return (int) index of the temperature's color, in [0, binCount()[
+     * @throws IllegalArgumentException if temperature isn't in [1000,40000]
+     */
+    public static int binForTemperature(double temperature) {
+        return (int) Math.round(checkInInterval(TEMP_INTERVAL, temperature) / 100) - 10;
+    }
+
+    /**
+     * @param bin (int) index of a color, as given by binForTemperature
+     * @return (Color) corresponding color
+     */
+    public static Color colorForBin(int bin) {
+        return ColorListSingleton.getInstance().get(bin);
+    }
+
+    /**
+     * @return (int) number of tabulated colors
+     */
+    public static int binCount() {
+        return ColorListSingleton.getInstance().size();
     }
 
     static private class ColorListSingleton {
@@ -42,6 +42,9 @@ import javafx.util.converter.NumberStringConverter;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -90,6 +93,7 @@ public final class Main extends Application {
     private static final int CUSTOM_FONT_SMALL_SIZE = 10;
     private static final String INPUT_HYGDATA = "/hygdata_v3.csv";
     private static final String INPUT_ASTERISMS = "/asterisms.txt";
+    private static final String INPUT_COMPILED_CATALOGUE = "/catalogue.rglc";
     private static final String INPUT_FONT = "/Font Awesome 5 Free-Solid-900.otf";
 
     //Styles:
@@ -258,9 +262,7 @@ public final class Main extends Application {
     @Override
     public void start(Stage primaryStage) {
 
-        try (InputStream hs = resourceStream(INPUT_HYGDATA);
-             InputStream ast = resourceStream(INPUT_ASTERISMS);
-             InputStream fs = resourceStream(INPUT_FONT);
+        try (InputStream fs = resourceStream(INPUT_FONT);
              InputStream fsSmall = resourceStream(INPUT_FONT)) {
 
             //FRAMERATE TEST
@@ -293,10 +295,7 @@ public final class Main extends Application {
 
             var colorsInit = threadPool.submit(BlackBodyColor::init);
 
-            Future<StarCatalogue> catalogue = threadPool.submit(() -> new StarCatalogue.Builder()
-                    .loadFrom(hs, HygDatabaseLoader.INSTANCE)
-                    .loadFrom(ast, AsterismLoader.INSTANCE)
-                    .build());
+            Future<StarCatalogue> catalogue = threadPool.submit(() -> loadCatalogue());
 
             ZonedDateTime when = ZonedDateTime.now();
             DateTimeBean dateTimeBean = new DateTimeBean();
@@ -531,6 +530,7 @@ public final class Main extends Application {
 
     private Pane canvasPane(SkyCanvasManager manager) {
         Pane canvasPane = new Pane(manager.canvas());
+        canvasPane.getChildren().addAll(manager.layerCanvases());
         manager.canvas().widthProperty().bind(canvasPane.widthProperty());
         manager.canvas().heightProperty().bind(canvasPane.heightProperty());
 
@@ -1004,6 +1004,39 @@ public final class Main extends Application {
         return getClass().getResourceAsStream(s);
     }
 
+    /**
+     * Loads the catalogue out of its compiled form, generated by CatalogueCompiler (memory-mapping it when it is a plain
+     * file); the HYG database and asterisms text files are only opened if the compiled resource is missing
+     *
+     * @return (StarCatalogue) loaded catalogue
+     * @throws IOException (as expected from I/O methods)
+     */
+    private StarCatalogue loadCatalogue() throws IOException {
+        URL compiled = getClass().getResource(INPUT_COMPILED_CATALOGUE);
+        StarCatalogue.Builder builder = new StarCatalogue.Builder();
+
+        if (compiled == null) {
+            try (InputStream hygStream = resourceStream(INPUT_HYGDATA);
+                 InputStream asterismStream = resourceStream(INPUT_ASTERISMS)) {
+                return builder.loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                        .loadFrom(asterismStream, AsterismLoader.INSTANCE)
+                        .build();
+            }
+        }
+        if (compiled.getProtocol().equals("file")) {
+            try {
+                CompiledCatalogueLoader.INSTANCE.load(Path.of(compiled.toURI()), builder);
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        } else {
+            try (InputStream compiledStream = compiled.openStream()) {
+                builder.loadFrom(compiledStream, CompiledCatalogueLoader.INSTANCE);
+            }
+        }
+        return builder.build();
+    }
+
     private static UnaryOperator<TextFormatter.Change> coordFilter(NumberStringConverter stringConv, Predicate<Double> validCoord) {
         return (change -> {
             try {
@@ -0,0 +1,326 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.PlanarTransformation;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Arrays;
+
+/**
+ * Draw commands recorded in the stereographic plane's coordinates, replayed onto a canvas under any transformation:
+ * when only the transformation to the canvas changes (zoom, rotation), a recorded layer is replayed without going
+ * back to the sky or the projection.
+ *
+ * Commands are stored in primitive arrays, positions being transformed through the 2x3 matrix in a tight loop at
+ * replay. Whatever depends on the canvas is done at replay: filled circles are left out if their center is outside the
+ * canvas, polylines are clipped to it (with a margin of their line width), line widths are in pixels. Commands are
+ * replayed onto a graphics context, or any Target.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class PlaneDisplayList {
+
+    private static final int FILL_CIRCLE = 0;
+    private static final int STROKE_CIRCLE = 1;
+    private static final int POLYLINE = 2;
+    private static final int TEXT = 3;
+    private static final int INITIAL_CAPACITY = 64;
+
+    //Each command: its opcode in ops, its paint (and text) in refs, its numbers in numbers, in recording order
+    private int[] ops = new int[INITIAL_CAPACITY];
+    private Object[] refs = new Object[2 * INITIAL_CAPACITY];
+    private double[] numbers = new double[4 * INITIAL_CAPACITY];
+    private int opCount, refCount, numberCount;
+
+    private final PolylineClipper clipper = new PolylineClipper();
+    private double[] polylineX = new double[0], polylineY = new double[0];
+    //Paint and line width of the polyline being replayed, read by the clipper's runs
+    private Paint polylinePaint;
+    private double polylineWidth;
+
+    /**
+     * Forgets all the recorded commands, keeping the buffers
+     */
+    public void clear() {
+        //References are dropped so that the paints and texts of a former frame can be collected
+        Arrays.fill(refs, 0, refCount, null);
+        opCount = refCount = numberCount = 0;
+    }
+
+    /**
+     * @return (int) number of commands recorded
+     */
+    public int commandCount() {
+        return opCount;
+    }
+
+    /**
+     * Records a filled circle, left out at replay if its center is outside the canvas
+     *
+     * @param x           (double) center's x coordinate on the plane
+     * @param y           (double) center's y coordinate on the plane
+     * @param diameter    (double) diameter on the plane
+     * @param extraPixels (double) pixels added to the diameter once transformed
+     * @param paint       (Paint) fill
+     */
+    public void fillCircle(double x, double y, double diameter, double extraPixels, Paint paint) {
+        addOp(FILL_CIRCLE);
+        addRef(paint);
+        addNumbers(x, y, diameter, extraPixels);
+    }
+
+    /**
+     * Records a stroked circle
+     *
+     * @param x         (double) center's x coordinate on the plane
+     * @param y         (double) center's y coordinate on the plane
+     * @param diameter  (double) diameter on the plane
+     * @param lineWidth (double) line width, in pixels
+     * @param paint     (Paint) stroke
+     */
+    public void strokeCircle(double x, double y, double diameter, double lineWidth, Paint paint) {
+        addOp(STROKE_CIRCLE);
+        addRef(paint);
+        addNumbers(x, y, diameter, lineWidth);
+    }
+
+    /**
+     * Records a polyline joining the count first points of x and y, clipped to the canvas at replay. Points with NaN
+     * coordinates cut the polyline.
+     *
+     * @param x         (double[]) points' x coordinates on the plane
+     * @param y         (double[]) points' y coordinates on the plane
+     * @param count     (int) number of points
+     * @param lineWidth (double) line width, in pixels
+     * @param paint     (Paint) stroke
+     * @throws IllegalArgumentException if an array is shorter than count
+     */
+    public void polyline(double[] x, double[] y, int count, double lineWidth, Paint paint) {
+        Preconditions.checkArgument(x.length >= count && y.length >= count);
+        addOp(POLYLINE);
+        addRef(paint);
+        //Point count first, so that replay knows how many numbers follow
+        ensureNumbers(2 + 2 * count);
+        numbers[numberCount++] = count;
+        numbers[numberCount++] = lineWidth;
+        for (int k = 0; k < count; ++k) {
+            numbers[numberCount++] = x[k];
+            numbers[numberCount++] = y[k];
+        }
+    }
+
+    /**
+     * Records a text, horizontally centered on its position and below it
+     *
+     * @param x     (double) position's x coordinate on the plane
+     * @param y     (double) position's y coordinate on the plane
+     * @param text  (String) text
+     * @param paint (Paint) fill
+     */
+    public void text(double x, double y, String text, Paint paint) {
+        addOp(TEXT);
+        addRef(paint);
+        addRef(text);
+        addNumbers(x, y);
+    }
+
+    /**
+     * Receives the replayed commands, in the canvas' coordinates
+     */
+    public interface Target {
+        /**
+         * @param paint (Paint) fill
+         * @param x     (double) center's x coordinate
+         * @param y     (double) center's y coordinate
+         * @param size  (double) diameter
+         */
+        void fillCircle(Paint paint, double x, double y, double size);
+
+        /**
+         * @param paint     (Paint) stroke
+         * @param lineWidth (double) line width
+         * @param x         (double) center's x coordinate
+         * @param y         (double) center's y coordinate
+         * @param size      (double) diameter
+         */
+        void strokeCircle(Paint paint, double lineWidth, double x, double y, double size);
+
+        /**
+         * @param paint     (Paint) stroke
+         * @param lineWidth (double) line width
+         * @param x         (double[]) points' x coordinates, valid up to count only
+         * @param y         (double[]) points' y coordinates, valid up to count only
+         * @param count     (int) number of points, at least 2
+         */
+        void strokePolyline(Paint paint, double lineWidth, double[] x, double[] y, int count);
+
+        /**
+         * @param paint (Paint) fill
+         * @param text  (String) text
+         * @param x     (double) x coordinate of the text's top center
+         * @param y     (double) y coordinate of the text's top center
+         */
+        void fillText(Paint paint, String text, double x, double y);
+    }
+
+    /**
+     * Draws the recorded commands, in recording order, onto a graphics context
+     *
+     * @param context   (GraphicsContext) context drawn on, whose fill, stroke, line width and text alignment change
+     * @param transform (PlanarTransformation) transformation from the plane to the canvas
+     * @param width     (double) canvas' width
+     * @param height    (double) canvas' height
+     */
+    public void replay(GraphicsContext context, PlanarTransformation transform, double width, double height) {
+        context.setTextAlign(TextAlignment.CENTER);
+        context.setTextBaseline(VPos.TOP);
+        replay(new ContextTarget(context), transform, width, height);
+    }
+
+    /**
+     * Gives the recorded commands, in recording order, transformed to the canvas, to a target: circles whose center
+     * is outside the canvas are left out, polylines are clipped to it
+     *
+     * @param target    (Target) receives the commands
+     * @param transform (PlanarTransformation) transformation from the plane to the canvas
+     * @param width     (double) canvas' width
+     * @param height    (double) canvas' height
+     */
+    public void replay(Target target, PlanarTransformation transform, double width, double height) {
+        final double scale = transform.applyDistance(1);
+        final PolylineClipper.RunConsumer stroke = (x, y, count) ->
+                target.strokePolyline(polylinePaint, polylineWidth, x, y, count);
+
+        int ref = 0, number = 0;
+        for (int op = 0; op < opCount; ++op) {
+            final Paint paint = (Paint) refs[ref++];
+            switch (ops[op]) {
+                case FILL_CIRCLE: {
+                    final double x = transform.applyX(numbers[number], numbers[number + 1]);
+                    final double y = transform.applyY(numbers[number], numbers[number + 1]);
+                    if (0 <= x && x <= width && 0 <= y && y <= height) {
+                        target.fillCircle(paint, x, y, scale * numbers[number + 2] + numbers[number + 3]);
+                    }
+                    number += 4;
+                    break;
+                }
+                case STROKE_CIRCLE:
+                    target.strokeCircle(paint, numbers[number + 3],
+                            transform.applyX(numbers[number], numbers[number + 1]),
+                            transform.applyY(numbers[number], numbers[number + 1]), scale * numbers[number + 2]);
+                    number += 4;
+                    break;
+                case POLYLINE: {
+                    final int count = (int) numbers[number];
+                    polylinePaint = paint;
+                    polylineWidth = numbers[number + 1];
+                    //Clipped with a margin, so that the lines' ends are not drawn at the canvas' border
+                    clipper.setBounds(-polylineWidth, -polylineWidth, Math.max(0, width) + polylineWidth,
+                            Math.max(0, height) + polylineWidth);
+                    replayPolyline(transform, count, number + 2, stroke);
+                    number += 2 + 2 * count;
+                    break;
+                }
+                case TEXT:
+                    target.fillText(paint, (String) refs[ref++], transform.applyX(numbers[number], numbers[number + 1]),
+                            transform.applyY(numbers[number], numbers[number + 1]));
+                    number += 2;
+                    break;
+                default:
+                    //Unreachable
+                    throw new IllegalStateException("PlaneDisplayList: unknown command recorded.");
+            }
+        }
+        polylinePaint = null;
+    }
+
+    private void replayPolyline(PlanarTransformation transform, int count, int from,
+                                PolylineClipper.RunConsumer stroke) {
+        if (polylineX.length < count) {
+            polylineX = new double[count];
+            polylineY = new double[count];
+        }
+        for (int k = 0; k < count; ++k) {
+            final double x = numbers[from + 2 * k], y = numbers[from + 2 * k + 1];
+            polylineX[k] = transform.applyX(x, y);
+            polylineY[k] = transform.applyY(x, y);
+        }
+        clipper.clip(polylineX, polylineY, count, stroke);
+    }
+
+    private void addOp(int op) {
+        if (opCount == ops.length) {
+            ops = Arrays.copyOf(ops, 2 * ops.length);
+        }
+        ops[opCount++] = op;
+    }
+
+    private void addRef(Object ref) {
+        if (refCount == refs.length) {
+            refs = Arrays.copyOf(refs, 2 * refs.length);
+        }
+        refs[refCount++] = ref;
+    }
+
+    private void addNumbers(double a, double b, double c, double d) {
+        ensureNumbers(4);
+        numbers[numberCount++] = a;
+        numbers[numberCount++] = b;
+        numbers[numberCount++] = c;
+        numbers[numberCount++] = d;
+    }
+
+    private void addNumbers(double a, double b) {
+        ensureNumbers(2);
+        numbers[numberCount++] = a;
+        numbers[numberCount++] = b;
+    }
+
+    private void ensureNumbers(int extra) {
+        if (numberCount + extra > numbers.length) {
+            numbers = Arrays.copyOf(numbers, Math.max(2 * numbers.length, numberCount + extra));
+        }
+    }
+
+    /**
+     * Draws onto a graphics context, setting its state for each command
+     */
+    private static final class ContextTarget implements Target {
+
+        private final GraphicsContext context;
+
+        private ContextTarget(GraphicsContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public void fillCircle(Paint paint, double x, double y, double size) {
+            context.setFill(paint);
+            context.fillOval(x - size / 2, y - size / 2, size, size);
+        }
+
+        @Override
+        public void strokeCircle(Paint paint, double lineWidth, double x, double y, double size) {
+            context.setStroke(paint);
+            context.setLineWidth(lineWidth);
+            context.strokeOval(x - size / 2, y - size / 2, size, size);
+        }
+
+        @Override
+        public void strokePolyline(Paint paint, double lineWidth, double[] x, double[] y, int count) {
+            context.setStroke(paint);
+            context.setLineWidth(lineWidth);
+            context.strokePolyline(x, y, count);
+        }
+
+        @Override
+        public void fillText(Paint paint, String text, double x, double y) {
+            context.setFill(paint);
+            context.fillText(text, x, y);
+        }
+    }
+}
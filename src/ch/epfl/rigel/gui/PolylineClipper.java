@@ -0,0 +1,150 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.Preconditions;
+
+/**
+ * Clips polylines to a rectangle, cutting them into the runs of consecutive segments which cross it: each segment is
+ * clipped with the Liang-Barsky algorithm, segments missing the rectangle or having an undefined (NaN) end are left
+ * out. Runs are written to buffers reused from a polyline to the next.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class PolylineClipper {
+
+    private double minX, minY, maxX, maxY;
+    private double[] runX = new double[0], runY = new double[0];
+    private int runLength;
+    //Ends of the last clipped segment, and the parameters of these ends along the unclipped one
+    private double x1, y1, x2, y2;
+    private double t0, t1;
+
+    /**
+     * Receives a run of a clipped polyline, as GraphicsContext.strokePolyline does
+     */
+    @FunctionalInterface
+    public interface RunConsumer {
+        /**
+         * @param x     (double[]) abscissas of the run's points, valid up to count only
+         * @param y     (double[]) ordinates of the run's points, valid up to count only
+         * @param count (int) number of points in the run, at least 2
+         */
+        void accept(double[] x, double[] y, int count);
+    }
+
+    /**
+     * @param minX (double) rectangle's left side
+     * @param minY (double) rectangle's top side
+     * @param maxX (double) rectangle's right side
+     * @param maxY (double) rectangle's bottom side
+     * @throws IllegalArgumentException if the rectangle is empty
+     */
+    public void setBounds(double minX, double minY, double maxX, double maxY) {
+        Preconditions.checkArgument(minX <= maxX && minY <= maxY);
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Clips the polyline joining the count first points of x and y, each to the next, giving its runs to out
+     *
+     * @param x     (double[]) abscissas of the polyline's points
+     * @param y     (double[]) ordinates of the polyline's points
+     * @param count (int) number of points
+     * @param out   (RunConsumer) receives each run, in order
+     * @return (int) number of runs given to out
+     * @throws IllegalArgumentException if an array is shorter than count
+     */
+    public int clip(double[] x, double[] y, int count, RunConsumer out) {
+        Preconditions.checkArgument(x.length >= count && y.length >= count);
+        //A polyline's run has at most as many points as the polyline
+        if (runX.length < count) {
+            runX = new double[count];
+            runY = new double[count];
+        }
+
+        int runs = 0;
+        runLength = 0;
+        for (int k = 1; k < count; ++k) {
+            if (!clipSegment(x[k - 1], y[k - 1], x[k], y[k])) {
+                runs += flush(out);
+                continue;
+            }
+            //The run goes on only if the segment starts where it stopped
+            if (runLength > 0 && (x1 != runX[runLength - 1] || y1 != runY[runLength - 1])) {
+                runs += flush(out);
+            }
+            if (runLength == 0) {
+                append(x1, y1);
+            }
+            append(x2, y2);
+            //A segment clipped at its end leaves the rectangle: the next one cannot continue the run
+            if (x2 != x[k] || y2 != y[k]) {
+                runs += flush(out);
+            }
+        }
+        return runs + flush(out);
+    }
+
+    /**
+     * Liang-Barsky clipping of a segment, its clipped ends being stored in x1, y1, x2 and y2
+     *
+     * @return (boolean) whether some of the segment, longer than a single point, is in the rectangle
+     */
+    private boolean clipSegment(double ax, double ay, double bx, double by) {
+        if (Double.isNaN(ax) || Double.isNaN(ay) || Double.isNaN(bx) || Double.isNaN(by)) {
+            return false;
+        }
+        final double dx = bx - ax, dy = by - ay;
+        t0 = 0;
+        t1 = 1;
+        if (!clipSide(-dx, ax - minX) || !clipSide(dx, maxX - ax) || !clipSide(-dy, ay - minY)
+                || !clipSide(dy, maxY - ay) || t0 >= t1) {
+            return false;
+        }
+        //Unclipped ends are kept exact, so that runs can be joined by comparing them
+        x1 = t0 == 0 ? ax : ax + t0 * dx;
+        y1 = t0 == 0 ? ay : ay + t0 * dy;
+        x2 = t1 == 1 ? bx : ax + t1 * dx;
+        y2 = t1 == 1 ? by : ay + t1 * dy;
+        return true;
+    }
+
+    /**
+     * Narrows [t0, t1] to the part of the segment on the inner side of one of the rectangle's sides, p being the
+     * segment's direction towards the outside of that side and q the start's distance to it
+     *
+     * @return (boolean) false if the segment is entirely on the outer side
+     */
+    private boolean clipSide(double p, double q) {
+        if (p == 0) {
+            //Parallel to the side: entirely outside or not constrained by it
+            return q >= 0;
+        }
+        final double t = q / p;
+        if (p < 0) {
+            t0 = Math.max(t0, t);
+        } else {
+            t1 = Math.min(t1, t);
+        }
+        return true;
+    }
+
+    private void append(double x, double y) {
+        runX[runLength] = x;
+        runY[runLength] = y;
+        ++runLength;
+    }
+
+    private int flush(RunConsumer out) {
+        if (runLength < 2) {
+            runLength = 0;
+            return 0;
+        }
+        out.accept(runX, runY, runLength);
+        runLength = 0;
+        return 1;
+    }
+}
@@ -0,0 +1,81 @@
+package ch.epfl.rigel.gui;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces redraw requests into at most one rendering per JavaFX pulse: requests only mark layers dirty, the dirty
+ * layers being rendered together at the next pulse. The timer only runs while a rendering is pending.
+ *
+ * Counts requested and rendered frames, so that the number of renderings saved can be seen.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class RedrawScheduler extends AnimationTimer {
+
+    private final Consumer<Set<SkyLayer>> renderer;
+    private final EnumSet<SkyLayer> dirtyLayers = EnumSet.noneOf(SkyLayer.class);
+    private boolean isScheduled;
+    private long requestedFrameCount, renderedFrameCount;
+
+    /**
+     * @param renderer (Consumer<Set<SkyLayer>>) renders the given layers, on the JavaFX thread
+     */
+    public RedrawScheduler(Consumer<Set<SkyLayer>> renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Marks layers dirty, to be rendered at the next pulse; on the JavaFX thread
+     *
+     * @param layers (Set<SkyLayer>) layers whose inputs changed
+     */
+    public void requestRedraw(Set<SkyLayer> layers) {
+        if (layers.isEmpty()) {
+            return;
+        }
+        ++requestedFrameCount;
+        dirtyLayers.addAll(layers);
+        if (!isScheduled) {
+            isScheduled = true;
+            start();
+        }
+    }
+
+    /**
+     * Renders the dirty layers, if any, then stops until the next request
+     *
+     * @param now (long) pulse's timestamp, in nanoseconds
+     * @see AnimationTimer#handle(long)
+     */
+    @Override
+    public void handle(long now) {
+        isScheduled = false;
+        stop();
+        if (!dirtyLayers.isEmpty()) {
+            //Copied first: rendering may request another frame, which then goes to the next pulse
+            final EnumSet<SkyLayer> layers = EnumSet.copyOf(dirtyLayers);
+            dirtyLayers.clear();
+            ++renderedFrameCount;
+            renderer.accept(layers);
+        }
+    }
+
+    /**
+     * @return (long) number of redraws requested so far
+     */
+    public long requestedFrameCount() {
+        return requestedFrameCount;
+    }
+
+    /**
+     * @return (long) number of frames rendered so far, at most one per pulse whatever the number of requests
+     */
+    public long renderedFrameCount() {
+        return renderedFrameCount;
+    }
+}
@@ -2,13 +2,17 @@ package ch.epfl.rigel.gui;
 
 import ch.epfl.rigel.astronomy.*;
 import ch.epfl.rigel.coordinates.CartesianCoordinates;
-import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
 import ch.epfl.rigel.coordinates.HorizontalCoordinates;
 import ch.epfl.rigel.coordinates.PlanarTransformation;
 import ch.epfl.rigel.coordinates.StereographicProjection;
 import ch.epfl.rigel.gui.searchtool.Searcher;
 import ch.epfl.rigel.math.Angle;
 import ch.epfl.rigel.math.ClosedInterval;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanBinding;
 import javafx.beans.binding.DoubleBinding;
@@ -22,22 +26,25 @@ import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.MouseButton;
 import javafx.scene.paint.Color;
 
+import java.time.ZonedDateTime;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static ch.epfl.rigel.Preconditions.epsilonIfZero;
 
@@ -74,13 +81,31 @@ public final class SkyCanvasManager {
     private final ObjectBinding<StereographicProjection>    projection;
     private final ObjectBinding<PlanarTransformation>       planeToCanvas;
     private final ObjectBinding<PlanarTransformation>       canvasToPlane;
-    private final ObjectBinding<ObservedSky>                observedSky;
+    private final ObjectProperty<ObservedSky>               observedSky;
+
+    //Skies are computed in the background: only the latest request is published, superseded ones are cancelled or
+    //discarded. A sky replaced by a newer one is neither drawn nor picked from anymore, so its buffers are recycled.
+    private final AtomicReference<ObservedSky>  latestSky = new AtomicReference<>();
+    private CompletableFuture<ObservedSky>      skyInFlight = CompletableFuture.completedFuture(null);
+    private long                                skyRequestCount;
+    private boolean                             skyRequestPending;
+    private ObservedSky                         retiredSky;
+    //Dragging or zooming only changes the view: the pipeline then reuses the ephemeris and horizontal stages
+    private final SkyPipeline                   skyPipeline;
 
     private final ObjectBinding<HorizontalCoordinates>      mouseHorizontalPosition;
     private final DoubleBinding maxDistConverted;
 
     private final ObjectBinding<Optional<CelestialObject>>  objectUnderMouse;
     private final ObjectProperty<CartesianCoordinates>      mousePosition;
+    private double pendingMouseX, pendingMouseY;
+    private boolean mouseMovePending;
+    private final AnimationTimer mouseCoalescer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flushMousePosition();
+        }
+    };
     private final DoubleBinding mouseAzDeg;
     private final DoubleBinding mouseAltDeg;
 
@@ -129,6 +154,14 @@ public final class SkyCanvasManager {
     private final ObjectProperty<CelestialObject> wantNewInformationPanel = new SimpleObjectProperty<>();
 
     private final ObjectProperty<Orbit<? extends CelestialObject>> orbitProperty = new SimpleObjectProperty<>();
+    private final OrbitService orbitService;
+    private boolean orbitUpdatePending, orbitPrecomputeRequested;
+    //Layers are painted at most once per pulse, whatever the number of their inputs changed in between
+    private final RedrawScheduler redrawScheduler = new RedrawScheduler(this::paintLayers);
+    //Layers one of whose inputs other than planeToCanvas changed since they were last painted: the others are replayed
+    private final EnumSet<SkyLayer> layersToRecord = EnumSet.allOf(SkyLayer.class);
+    //Model whose orbit was last asked for, null if none: an orbit arriving for another model meanwhile is not shown
+    private CelestialObjectModel<? extends CelestialObject> requestedOrbitModel;
     private final BooleanBinding orbitIsNull;
     private static final List<String> SUGGESTED_GRID_SPACINGS = List.of("5°","10°", "15°", "30°", "45°", "90°");
     private final IntegerProperty horizCoordsGridSpacingDeg = new SimpleIntegerProperty(15);
@@ -142,11 +175,10 @@ public final class SkyCanvasManager {
      * @param dtBean     (DateTimeBean) bean representing a mutable ZonedDateTime object
      * @param obsLocBean (ObserverLocationBean) bean representing a mutable GeographicCoordinates object
      * @param viewBean   (ViewingParametersBean) bean comprised of an fov parameter and the center of projection property
-     * @param execServ   (ExecutorService) executor service for ObservedSky.mapObjectToPosition
+     * @param execServ   (ExecutorService) executor on which skies and orbits are computed
      */
     public SkyCanvasManager(TimeAnimator animator, StarCatalogue catalogue, DateTimeBean dtBean,
-                            ObserverLocationBean obsLocBean, ViewingParametersBean viewBean, ExecutorService execServ)
-            throws ExecutionException, InterruptedException {
+                            ObserverLocationBean obsLocBean, ViewingParametersBean viewBean, ExecutorService execServ) {
 
         this.dtBean     = dtBean;
         this.viewBean   = viewBean;
@@ -154,6 +186,7 @@ public final class SkyCanvasManager {
 
         canvas  = new Canvas(INIT_WIDTH, INIT_HEIGHT); //avoids some ugliness down in planeToCanvas and its inverse
         painter = new SkyCanvasPainter(canvas);
+        painter.setStarRendering(SkyCanvasPainter.StarRendering.SPRITES);
 
         mousePosition = new SimpleObjectProperty<>(CartesianCoordinates.ORIGIN);
 
@@ -161,15 +194,37 @@ public final class SkyCanvasManager {
                 () -> new StereographicProjection(viewBean.getCenter()),
                 viewBean.centerProperty());
 
-        observedSky = Bindings.createObjectBinding(
-                () -> new ObservedSky(dtBean.getZonedDateTime(), obsLocBean.getCoords(), projection.get(), catalogue, execServ),
-                dtBean.zdtProperty(), obsLocBean.coordsProperty(), projection);
-
-        orbitProperty.set(orbitFactory(PlanetModel.MERCURY , execServ));
+        //The pipeline and the orbits share the models' caches, each span being fitted once
+        final EphemerisCaches ephemerisCaches = new EphemerisCaches(execServ);
+        skyPipeline = new SkyPipeline(catalogue, ephemerisCaches);
+        latestSky.set(skyPipeline.observe(dtBean.getZonedDateTime(), obsLocBean.getCoords(), projection.get(),
+                currentViewRadius(), !extendedAltitudeIsOn.get(), null));
+        observedSky = new SimpleObjectProperty<>(latestSky.get());
+        //The first sky is computed synchronously as everything else needs one
+
+        InvalidationListener skyInputsListener = o -> requestSky(obsLocBean, execServ);
+        dtBean.zdtProperty().addListener(skyInputsListener);
+        obsLocBean.coordsProperty().addListener(skyInputsListener);
+        projection.addListener(skyInputsListener);
+        //Culling depends on how much of the sky the canvas shows
+        viewBean.fieldOfViewDegProperty().addListener(skyInputsListener);
+        canvas.widthProperty().addListener(skyInputsListener);
+        canvas.heightProperty().addListener(skyInputsListener);
+        extendedAltitudeIsOn.addListener(skyInputsListener);
+
+        //All the orbits are computed in the background, at startup and whenever the date jumps, so as to be shown
+        //as soon as asked for
+        orbitService = new OrbitService(RESOLUTION_DEFAULT, ORBIT_SIMULATION_LENGTH_DEFAULT, ephemerisCaches);
+        orbitService.precompute(dtBean.getZonedDateTime());
+        showOrbit(PlanetModel.MERCURY);
+        //The orbit shown follows simulated time, moved on the executor and repainted once moved
+        dtBean.zdtProperty().addListener((p, o, n) -> requestOrbitUpdate(!animator.isRunning()));
 
         animator.runningProperty().addListener((p, o, n) -> {
             if (n && !NON_NULL_ACC_ORBIT_LIST.contains(animator.getAccelerator())) {
-                orbitProperty.set(null);
+                hideOrbit();
+            } else if (!n) {
+                precomputeOrbits();
             }
         });
 
@@ -186,11 +241,12 @@ public final class SkyCanvasManager {
         searcher = new Searcher(SEARCH_CACHE_CAPACITY, observedSky.get());
         searcher.lastSelectedNameProperty().addListener((p, o, n) -> {
             if (n != null) {
-                viewBean.setCenter(projection.get().inverseApply(observedSky.get().celestialObjMap().get(
-                        observedSky.get().celestialObjMap().keySet()
+                //Converted from its equatorial position, as a culled star has no position on the plane
+                viewBean.setCenter(new EquatorialToHorizontalConversion(dtBean.getZonedDateTime(),
+                        obsLocBean.getCoords()).apply(observedSky.get().celestialObjMap().keySet()
                                 .stream()
                                 .filter(celest -> celest.name().equals(n))
-                                .findFirst().orElseThrow())));
+                                .findFirst().orElseThrow().equatorialPos()));
                 if (animator.isRunning() && PAUSE_IF_SEARCH_LIST.contains(animator.getAccelerator())) {
                     animator.stop();
                 }
@@ -231,17 +287,29 @@ public final class SkyCanvasManager {
         objectUnderMouse = Bindings.createObjectBinding(
                 () -> {
                     if (mousePosition.get() == CartesianCoordinates.ORIGIN) return Optional.empty();
-                    Optional<CelestialObject> celest = observedSky.get().objectClosestTo(mousePosition.get(), maxDistConverted.get());
+                    Optional<CelestialObject> celest = latestSky.get().objectClosestTo(mousePosition.get(), maxDistConverted.get());
                     if (celest.isEmpty()) return Optional.empty();
                     return drawableClasses.get().contains(celest.get().getClass()) ? celest : Optional.empty();
                 },
                 observedSky, mousePosition, maxDistConverted, drawableClasses);
 
-        canvas.setOnMouseMoved(mouse -> mousePosition.set(canvasToPlane.get().apply(mouse.getX(), mouse.getY())));
+        canvas.setOnMouseMoved(mouse -> {
+            pendingMouseX = mouse.getX();
+            pendingMouseY = mouse.getY();
+            if (!mouseMovePending) {
+                mouseMovePending = true;
+                mouseCoalescer.start();
+            }
+        });
         /* We've chosen to convert the mousePosition to the plane's referential (unlike suggested) to avoid having to
-           convert it later. */
+           convert it later. Mouse moves are coalesced: only the last one of each frame updates the position, so
+           that at most one pick runs per frame. */
 
         canvas.setOnMousePressed(mouse -> {
+            pendingMouseX = mouse.getX();
+            pendingMouseY = mouse.getY();
+            flushMousePosition();
+            //The object under the mouse must be the one under the press, not under the last frame's position
             if (!canvas.isFocused()) canvas.requestFocus();
             mouseXstartOfDrag.set(mouse.getX());
             mouseYstartOfDrag.set(mouse.getY());
@@ -253,16 +321,12 @@ public final class SkyCanvasManager {
 
                     if (!(celestClass = objectUnderMouse.get().get().getClass()).equals(Star.class)
                     && (!animator.isRunning() || NON_NULL_ACC_ORBIT_LIST.contains(animator.getAccelerator()))) {
-                        try {
-                            orbitProperty.set(orbitFactory(getModel(celestClass), execServ));
-                        } catch (ExecutionException | InterruptedException e) {
-                            e.printStackTrace();
-                        }
+                        showOrbit(getModel(celestClass));
                     } else {
-                        orbitProperty.set(null);
+                        hideOrbit();
                     }
                 } else {
-                    orbitProperty.set(null);
+                    hideOrbit();
                     wantNewInformationPanel.set(null);
                 }
             }
@@ -292,7 +356,7 @@ public final class SkyCanvasManager {
                     if (rotation.get() != 0) modifyRotation(-rotation.get());
                     break;
                 case O:
-                    orbitProperty.set(null);
+                    hideOrbit();
                     break;
                 case I:
                     resetInformationPanel();
@@ -323,16 +387,42 @@ public final class SkyCanvasManager {
         //clips to smaller [5; -90] if extentedAltitude is turned off.
 
         //ADDING LISTENERS TO REDRAW SKY
-        ChangeListener<Object> painterEvent =
-                (p, o, n) ->
-                painter.drawMain(observedSky.get(), planeToCanvas.get(), projection.get(), objectsToDraw.get(),
-                        orbitProperty.get(), drawOrbitUntil.get(), orbitDrawingStep.get(), asterismColor.get(),
-                        horizonColor.get(), orbitColor.get(), gridColor.get(), horizCoordsGridSpacingDeg.get());
+        //Each layer is only repainted when one of its own inputs changes, and only replayed when planeToCanvas does
+        planeToCanvas.addListener((p, o, n) -> redrawScheduler.requestRedraw(EnumSet.allOf(SkyLayer.class)));
+        addLayerListener(EnumSet.complementOf(EnumSet.of(SkyLayer.GUIDES)), observedSky);
+        addLayerListener(EnumSet.of(SkyLayer.GUIDES), projection, horizonColor, gridColor, horizCoordsGridSpacingDeg);
+        addLayerListener(EnumSet.of(SkyLayer.ASTERISMS), asterismColor);
+        addLayerListener(EnumSet.of(SkyLayer.ORBIT), orbitProperty, orbitColor, drawOrbitUntil, orbitDrawingStep);
+        objectsToDraw.addListener((p, o, n) -> repaintLayers(SkyLayer.affectedBy(o, n)));
+
+        //The background, under the layers, only needs repainting when the canvas grows
+        canvas.widthProperty().addListener((p, o, n) -> painter.clear());
+        canvas.heightProperty().addListener((p, o, n) -> painter.clear());
+        painter.clear();
+        repaintLayers(EnumSet.allOf(SkyLayer.class));
 
-        Stream.of(observedSky, planeToCanvas, objectsToDraw, orbitProperty, orbitColor, asterismColor, horizonColor,
-                gridColor, horizCoordsGridSpacingDeg, drawOrbitUntil, orbitDrawingStep)
-                .forEach(prop -> prop.addListener(painterEvent));
+    }
 
+    /**
+     * @return (long) number of sky redraws requested so far, one per change of a layer's input
+     */
+    public long requestedFrameCount() {
+        return redrawScheduler.requestedFrameCount();
+    }
+
+    /**
+     * @return (long) number of sky frames actually rendered so far, at most one per pulse
+     */
+    public long renderedFrameCount() {
+        return redrawScheduler.renderedFrameCount();
+    }
+
+    /**
+     * @return (List<Canvas>) canvases of the sky's layers, to be stacked over canvas() in the same parent, which
+     *         keeps receiving the events
+     */
+    public List<Canvas> layerCanvases() {
+        return painter.layerCanvases();
     }
 
     /**
@@ -559,6 +649,87 @@ public final class SkyCanvasManager {
                 inverseRotation.get().apply(azDelta, altDelta));
     }
 
+    /**
+     * Applies the last mouse position received, if any is pending
+     */
+    private void flushMousePosition() {
+        mouseMovePending = false;
+        mouseCoalescer.stop();
+        mousePosition.set(canvasToPlane.get().apply(pendingMouseX, pendingMouseY));
+    }
+
+    /**
+     * Asks for a new sky to be computed once the current pulse's changes are over: any number of changes to the date,
+     * location or projection within a pulse is thus coalesced into a single computation.
+     *
+     * @param obsLocBean (ObserverLocationBean) observer's location
+     * @param execServ   (ExecutorService) executor on which skies are computed
+     */
+    private void requestSky(ObserverLocationBean obsLocBean, ExecutorService execServ) {
+        if (!skyRequestPending) {
+            skyRequestPending = true;
+            Platform.runLater(() -> {
+                skyRequestPending = false;
+                computeSkyAsync(obsLocBean, execServ);
+            });
+        }
+    }
+
+    /**
+     * Starts computing a sky for the current date, location and projection off the JavaFX thread, cancelling the
+     * computation in flight if it has not started yet and discarding its result otherwise
+     *
+     * @param obsLocBean (ObserverLocationBean) observer's location
+     * @param execServ   (ExecutorService) executor on which skies are computed
+     */
+    private void computeSkyAsync(ObserverLocationBean obsLocBean, ExecutorService execServ) {
+        final long request = ++skyRequestCount;
+        final ZonedDateTime when = dtBean.getZonedDateTime();
+        final GeographicCoordinates where = obsLocBean.getCoords();
+        final StereographicProjection proj = projection.get();
+        final double viewRadius = currentViewRadius();
+        final double limitingMagnitude = ObservedSky.limitingMagnitude(Angle.ofDeg(viewBean.getFieldOfViewDeg()),
+                canvas.getWidth());
+        final boolean aboveHorizonOnly = !extendedAltitudeIsOn.get();
+        final ObservedSky recycled = retiredSky;
+        retiredSky = null;
+        //Inputs are read here, on the JavaFX thread, the computation only works on immutable values
+
+        skyInFlight.cancel(false);
+        skyInFlight = CompletableFuture.supplyAsync(() -> skyPipeline.observe(when, where, proj,
+                viewRadius, aboveHorizonOnly, limitingMagnitude, recycled),
+                execServ);
+        skyInFlight.whenComplete((sky, error) -> {
+            if (error instanceof CompletionException) {
+                error.getCause().printStackTrace();
+            } else if (sky != null) {
+                Platform.runLater(() -> publishSky(request, sky));
+            }
+        });
+    }
+
+    /**
+     * @return (double) angular radius of the sky's cap currently shown by the canvas
+     */
+    private double currentViewRadius() {
+        return ObservedSky.viewRadius(Angle.ofDeg(viewBean.getFieldOfViewDeg()), canvas.getWidth(), canvas.getHeight());
+    }
+
+    /**
+     * Publishes a freshly computed sky if it answers the latest request; on the JavaFX thread
+     *
+     * @param request (long) number of the request the sky answers
+     * @param sky     (ObservedSky) computed sky
+     */
+    private void publishSky(long request, ObservedSky sky) {
+        if (request == skyRequestCount) {
+            retiredSky = latestSky.getAndSet(sky);
+            observedSky.set(sky);
+        } else {
+            retiredSky = sky; //Superseded before being shown: its buffers are free
+        }
+    }
+
     /**
      * Modifies the center of projection with given delta vector. It also gives the option to use the full altitude
      * interval instead of the suggested [5, 90] one - would have been a waste without the added mouse movement
@@ -590,9 +761,89 @@ public final class SkyCanvasManager {
         }
     }
 
-    private Orbit<? extends CelestialObject> orbitFactory(CelestialObjectModel<? extends CelestialObject> modelClass, ExecutorService executorService) throws ExecutionException, InterruptedException {
-         return new Orbit<>(dtBean.getZonedDateTime(),
-                RESOLUTION_DEFAULT, ORBIT_SIMULATION_LENGTH_DEFAULT, modelClass,
-                new EclipticToEquatorialConversion(dtBean.getZonedDateTime()), executorService);
+    private void addLayerListener(EnumSet<SkyLayer> layers, ObservableValue<?>... inputs) {
+        final ChangeListener<Object> listener = (p, o, n) -> repaintLayers(layers);
+        for (ObservableValue<?> input : inputs) {
+            input.addListener(listener);
+        }
+    }
+
+    private void repaintLayers(Set<SkyLayer> layers) {
+        layersToRecord.addAll(layers);
+        redrawScheduler.requestRedraw(layers);
+    }
+
+    /**
+     * Paints the given layers with the current inputs; called by the redraw scheduler, once per pulse at most
+     */
+    private void paintLayers(Set<SkyLayer> layers) {
+        //The orbit shown is only read here: it is moved by the orbit service
+        for (SkyLayer layer : layers) {
+            //A layer whose inputs are unchanged only needs its recording drawn under the new transformation
+            if (!layersToRecord.contains(layer) && painter.replayLayer(layer, planeToCanvas.get())) {
+                continue;
+            }
+            layersToRecord.remove(layer);
+            painter.paintLayer(layer, latestSky.get(), planeToCanvas.get(), projection.get(), objectsToDraw.get(),
+                    orbitProperty.get(), drawOrbitUntil.get(), orbitDrawingStep.get(), asterismColor.get(),
+                    horizonColor.get(), orbitColor.get(), gridColor.get(), horizCoordsGridSpacingDeg.get());
+        }
+    }
+
+    /**
+     * Moves the orbit shown, and precomputes all the orbits if asked, to the current date once the current pulse's
+     * changes are over, like requestSky
+     *
+     * @param precompute (boolean) whether all the orbits are precomputed as well
+     */
+    private void requestOrbitUpdate(boolean precompute) {
+        orbitPrecomputeRequested |= precompute;
+        if (!orbitUpdatePending) {
+            orbitUpdatePending = true;
+            Platform.runLater(() -> {
+                orbitUpdatePending = false;
+                if (orbitPrecomputeRequested) {
+                    orbitPrecomputeRequested = false;
+                    precomputeOrbits();
+                } else if (requestedOrbitModel != null) {
+                    showOrbit(requestedOrbitModel);
+                }
+            });
+        }
+    }
+
+    /**
+     * Precomputes all the orbits for the current date, then moves the orbit shown
+     */
+    private void precomputeOrbits() {
+        orbitService.precompute(dtBean.getZonedDateTime());
+        //Asked last, so that the orbit shown is moved by this request, which repaints it, rather than by precompute's
+        if (requestedOrbitModel != null) {
+            showOrbit(requestedOrbitModel);
+        }
+    }
+
+    /**
+     * Shows the orbit of the given model once the orbit service has moved it to the current date, without blocking
+     * the FX thread; the orbit layer is repainted when it arrives
+     */
+    private void showOrbit(CelestialObjectModel<? extends CelestialObject> model) {
+        requestedOrbitModel = model;
+        orbitService.orbit(model, dtBean.getZonedDateTime()).thenAcceptAsync(orbit -> {
+            if (requestedOrbitModel != model) {
+                return;
+            }
+            //The same orbit, moved: setting it again would not notify the listeners
+            if (orbitProperty.get() == orbit) {
+                repaintLayers(EnumSet.of(SkyLayer.ORBIT));
+            } else {
+                orbitProperty.set(orbit);
+            }
+        }, Platform::runLater);
+    }
+
+    private void hideOrbit() {
+        requestedOrbitModel = null;
+        orbitProperty.set(null);
     }
 }
@@ -9,18 +9,18 @@ import ch.epfl.rigel.coordinates.StereographicProjection;
 import ch.epfl.rigel.coordinates.PlanarTransformation;
 import ch.epfl.rigel.math.ClosedInterval;
 import ch.epfl.rigel.math.RightOpenInterval;
-import javafx.geometry.VPos;
+import javafx.geometry.Bounds;
 import javafx.scene.CacheHint;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
-import javafx.scene.text.TextAlignment;
 
+import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
-import java.util.stream.Stream;
 
 import static ch.epfl.rigel.coordinates.StereographicProjection.applyToAngle;
 import static ch.epfl.rigel.math.Angle.ofDeg;
@@ -52,11 +52,35 @@ public final class SkyCanvasPainter {
     private static final Color SUN_COLOR_2_YELLOW   = Color.YELLOW;
     private static final Color SUN_COLOR_3_WHITE    = Color.WHITE;
 
-    private static final Function<Star, Paint> STAR_COLOR       = s -> BlackBodyColor.colorForTemperature(s.colorTemperature());
     private static final Function<Planet, Paint> PLANET_COLOR   = planet -> Color.LIGHTGRAY;
     private static final Function<Moon, Paint> MOON_COLOR       = moon -> Color.WHITE;
     private final Canvas canvas;
-    private final GraphicsContext graphicsContext;
+    private final Map<SkyLayer, Canvas> layers = new EnumMap<>(SkyLayer.class);
+    //Context drawn on: the canvas', or a layer's while it is being painted
+    private GraphicsContext graphicsContext;
+    private double[] orbitX = new double[0], orbitY = new double[0];
+    private double[] asterismX = new double[0], asterismY = new double[0];
+    //Layers' last recordings, in the plane's coordinates, replayed as long as only the transformation changes
+    private final Map<SkyLayer, PlaneDisplayList> recordings = new EnumMap<>(SkyLayer.class);
+    //Recording of the public draw methods, replayed right away
+    private final PlaneDisplayList scratch = new PlaneDisplayList();
+    private final EnumSet<SkyLayer> recorded = EnumSet.noneOf(SkyLayer.class);
+    private double[] orbitUnitX = new double[0], orbitUnitY = new double[0], orbitUnitZ = new double[0];
+    private StarRendering starRendering = StarRendering.SHAPES;
+    //Palette index of the catalogue's stars, and indices of the stars in the canvas, reused from a frame to the next
+    private StarDrawOrder starOrder;
+    private int[] visibleStars = new int[0];
+    private final StarSpriteAtlas starAtlas = new StarSpriteAtlas();
+
+    /**
+     * Ways of drawing the stars
+     */
+    public enum StarRendering {
+        //One filled oval per star
+        SHAPES,
+        //One pre-rasterized sprite per star, drawn out of an atlas image
+        SPRITES
+    }
 
     /**
      * SkyCanvasPainter Constructor
@@ -69,6 +93,36 @@ public final class SkyCanvasPainter {
 
         canvas.setCache(true);
         canvas.setCacheHint(CacheHint.SPEED);
+
+        //Transparent canvases stacked over the given one, which keeps receiving the events
+        for (SkyLayer layer : SkyLayer.values()) {
+            final Canvas layerCanvas = new Canvas();
+            layerCanvas.widthProperty().bind(canvas.widthProperty());
+            layerCanvas.heightProperty().bind(canvas.heightProperty());
+            layerCanvas.setMouseTransparent(true);
+            layerCanvas.setCache(true);
+            layerCanvas.setCacheHint(CacheHint.SPEED);
+            layers.put(layer, layerCanvas);
+        }
+        //Stars are not recorded: they are transformed and drawn straight from the sky's columns
+        for (SkyLayer layer : EnumSet.complementOf(EnumSet.of(SkyLayer.STARS))) {
+            recordings.put(layer, new PlaneDisplayList());
+        }
+    }
+
+    /**
+     * @return (List<Canvas>) the layers' canvases, from the bottom one to the top one, to be stacked over the canvas
+     *         given at construction, in the same parent (immutable)
+     */
+    public List<Canvas> layerCanvases() {
+        return List.copyOf(layers.values());
+    }
+
+    /**
+     * @param starRendering (StarRendering) way of drawing the stars from now on
+     */
+    public void setStarRendering(StarRendering starRendering) {
+        this.starRendering = starRendering;
     }
 
     /**
@@ -80,8 +134,10 @@ public final class SkyCanvasPainter {
     }
 
     /**
-     * Draws objects with possible filters
+     * Clears a single layer and draws its objects on it, leaving the other layers untouched, parameters not concerning
+     * the layer being ignored
      *
+     * @param layer         (SkyLayer) layer to paint
      * @param sky           (ObservedSky) current observed sky
      * @param transform     (PlanarTransformation) current transformation to the canvas
      * @param proj          (StereographicProjection) current projection to the 2D plane
@@ -95,43 +151,115 @@ public final class SkyCanvasPainter {
      * @param gridColor     (Color) desired grid color
      * @param gridSpaceDeg  (int) in degrees: the angular spacing between grid lines
      */
-    public void drawMain(ObservedSky sky, PlanarTransformation transform, StereographicProjection proj,
-                         EnumSet<DrawableObjects> objectsToDraw, Orbit<? extends CelestialObject> orbit,
-                         int orbitUntil, int orbitStep, Color astColor, Color horColor, Color orbitColor,
-                         Color gridColor, int gridSpaceDeg) {
-
-        clear();
-        for (DrawableObjects toDraw : objectsToDraw)
-            switch (toDraw) {
-                case ORBIT:
-                    if (orbit != null) drawOrbit(orbit, sky, transform, orbitUntil, orbitStep, orbitColor);
-                    break;
-                case ASTERISMS:
-                    drawAsterisms(sky, transform, astColor);
-                    break;
-                case GRID:
-                    drawGrid(proj, transform, gridColor, gridSpaceDeg);
-                    break;
-                case STARS:
-                    drawStars(sky, transform);
-                    break;
-                case PLANETS:
-                    drawPlanets(sky, transform);
-                    break;
-                case SUN:
-                    drawSun(sky, transform);
-                    break;
-                case MOON:
-                    drawMoon(sky, transform);
-                    break;
-                case HORIZON:
-                    drawHorizon(proj, transform, horColor);
-                    break;
-                default:
-                    //Unreachable
-                    throw new IllegalStateException("SkyCanvasPainter: unknown drawable object type given.");
+    public void paintLayer(SkyLayer layer, ObservedSky sky, PlanarTransformation transform,
+                           StereographicProjection proj, EnumSet<DrawableObjects> objectsToDraw,
+                           Orbit<? extends CelestialObject> orbit, int orbitUntil, int orbitStep, Color astColor,
+                           Color horColor, Color orbitColor, Color gridColor, int gridSpaceDeg) {
+        final Canvas layerCanvas = layers.get(layer);
+        final PlaneDisplayList recording = recordings.get(layer);
+        graphicsContext = layerCanvas.getGraphicsContext2D();
+        try {
+            graphicsContext.clearRect(0, 0, layerCanvas.getWidth(), layerCanvas.getHeight());
+            if (recording == null) {
+                for (DrawableObjects toDraw : objectsToDraw) {
+                    if (layer.drawables().contains(toDraw)) {
+                        draw(toDraw, sky, transform, proj, orbit, orbitUntil, orbitStep, astColor, horColor,
+                                orbitColor, gridColor, gridSpaceDeg);
+                    }
+                }
+                return;
             }
+            recording.clear();
+            for (DrawableObjects toDraw : objectsToDraw) {
+                if (layer.drawables().contains(toDraw)) {
+                    record(toDraw, recording, sky, proj, orbit, orbitUntil, orbitStep, astColor, horColor,
+                            orbitColor, gridColor, gridSpaceDeg);
+                }
+            }
+            replay(recording, transform);
+            recorded.add(layer);
+        } finally {
+            graphicsContext = canvas.getGraphicsContext2D();
+        }
+    }
+
+    /**
+     * Clears a single layer and replays what paintLayer last recorded on it under a new transformation, without going
+     * back to the sky or the projection: only valid as long as nothing but the transformation changed since
+     *
+     * @param layer     (SkyLayer) layer to repaint
+     * @param transform (PlanarTransformation) current transformation to the canvas
+     * @return (boolean) false, leaving the layer untouched, if it is not recorded (the stars') or was never painted:
+     *         paintLayer must then be used
+     */
+    public boolean replayLayer(SkyLayer layer, PlanarTransformation transform) {
+        if (!recorded.contains(layer)) {
+            return false;
+        }
+        final Canvas layerCanvas = layers.get(layer);
+        graphicsContext = layerCanvas.getGraphicsContext2D();
+        try {
+            graphicsContext.clearRect(0, 0, layerCanvas.getWidth(), layerCanvas.getHeight());
+            replay(recordings.get(layer), transform);
+        } finally {
+            graphicsContext = canvas.getGraphicsContext2D();
+        }
+        return true;
+    }
 
+    private void draw(DrawableObjects toDraw, ObservedSky sky, PlanarTransformation transform,
+                      StereographicProjection proj, Orbit<? extends CelestialObject> orbit, int orbitUntil,
+                      int orbitStep, Color astColor, Color horColor, Color orbitColor, Color gridColor,
+                      int gridSpaceDeg) {
+        if (toDraw == DrawableObjects.STARS) {
+            drawStars(sky, transform);
+            return;
+        }
+        scratch.clear();
+        record(toDraw, scratch, sky, proj, orbit, orbitUntil, orbitStep, astColor, horColor, orbitColor, gridColor,
+                gridSpaceDeg);
+        replay(scratch, transform);
+    }
+
+    /**
+     * Records the commands drawing an object other than the stars, in the plane's coordinates
+     */
+    private void record(DrawableObjects toDraw, PlaneDisplayList list, ObservedSky sky, StereographicProjection proj,
+                        Orbit<? extends CelestialObject> orbit, int orbitUntil, int orbitStep, Color astColor,
+                        Color horColor, Color orbitColor, Color gridColor, int gridSpaceDeg) {
+        switch (toDraw) {
+            case ORBIT:
+                if (orbit != null) recordOrbit(list, orbit, sky, orbitUntil, orbitStep, orbitColor);
+                break;
+            case ASTERISMS:
+                recordAsterisms(list, sky, astColor);
+                break;
+            case GRID:
+                recordGrid(list, proj, gridColor, gridSpaceDeg);
+                break;
+            case PLANETS:
+                recordPlanets(list, sky);
+                break;
+            case SUN:
+                recordSun(list, sky);
+                break;
+            case MOON:
+                recordMoon(list, sky);
+                break;
+            case HORIZON:
+                recordHorizon(list, proj, horColor);
+                break;
+            default:
+                //Unreachable: stars are drawn directly
+                throw new IllegalStateException("SkyCanvasPainter: unknown drawable object type given.");
+        }
+    }
+
+    /**
+     * Draws a recorded list onto the current context
+     */
+    private void replay(PlaneDisplayList list, PlanarTransformation transform) {
+        list.replay(graphicsContext, transform, canvas.getWidth(), canvas.getHeight());
     }
 
     /**
@@ -145,6 +273,13 @@ public final class SkyCanvasPainter {
      */
     public void drawGrid(StereographicProjection projection, PlanarTransformation transform,
                          Color gridColor, int spacingDeg) {
+        scratch.clear();
+        recordGrid(scratch, projection, gridColor, spacingDeg);
+        replay(scratch, transform);
+    }
+
+    private void recordGrid(PlaneDisplayList list, StereographicProjection projection, Color gridColor,
+                            int spacingDeg) {
         Preconditions.checkArgument(360 % spacingDeg == 0 && 90 % spacingDeg == 0,
                 "SkyCanvasPainter.drawGrid: given grid spacing does not divide 360 and 90.");
 
@@ -152,23 +287,21 @@ public final class SkyCanvasPainter {
         final int maxLength =  AZIMUTH_DEGREES / spacingDeg;
         for (int i = 0; i < maxLength; ++i) {
             currHorizCoords = HorizontalCoordinates.ofDeg(0, INTERVAL_SYM180.reduce(i * spacingDeg));
-            drawStrokeCircle(transform.apply(projection.circleCenterForParallel(currHorizCoords)),
-                    transform.applyDistance(2 * projection.circleRadiusForParallel(currHorizCoords)),
-                    gridColor, GRID_LINE_WIDTH);
+            recordStrokeCircle(list, projection.circleCenterForParallel(currHorizCoords),
+                    2 * projection.circleRadiusForParallel(currHorizCoords), gridColor, GRID_LINE_WIDTH);
         }
         final int maxLength2 = ALTITUDE_DEGREES / spacingDeg;
         for (int i = 0; i < maxLength2; ++i) {
             currHorizCoords = HorizontalCoordinates.ofDeg(i * spacingDeg, 0);
-            drawStrokeCircle(transform.apply(projection.circleCenterForMeridian(currHorizCoords)),
-                    transform.applyDistance(2 * projection.circleRadiusForMeridian(currHorizCoords)),
-                    gridColor, GRID_LINE_WIDTH);
+            recordStrokeCircle(list, projection.circleCenterForMeridian(currHorizCoords),
+                    2 * projection.circleRadiusForMeridian(currHorizCoords), gridColor, GRID_LINE_WIDTH);
         }
     }
 
     /**
      * Draws predicted orbit of a celestial object with given parameters
      *
-     * @param orbit     (Orbit<? extends CelestialObject>) a list of celestial object suppliers
+     * @param orbit     (Orbit<? extends CelestialObject>) orbit of a celestial object
      * @param sky       (ObservedSky) current observed sky
      * @param transform (PlanarTransformation) current transformation to the canvas
      * @param length    (int) show up to "length" circles representing the orbit
@@ -177,8 +310,27 @@ public final class SkyCanvasPainter {
      */
     public void drawOrbit(Orbit<? extends CelestialObject> orbit, ObservedSky sky, PlanarTransformation transform,
                           int length, int step, Color orbColor) {
-        pipeline(sky.mapObjectsToPosition(orbit.representatives(length, step), Function.identity()).entrySet().stream(),
-                orb -> ORBIT_CIRCLE_SIZE, orb -> orbColor, transform);
+        scratch.clear();
+        recordOrbit(scratch, orbit, sky, length, step, orbColor);
+        replay(scratch, transform);
+    }
+
+    private void recordOrbit(PlaneDisplayList list, Orbit<? extends CelestialObject> orbit, ObservedSky sky,
+                             int length, int step, Color orbColor) {
+        final int count = orbit.representativeCount(length, step);
+        if (orbitX.length < count) {
+            orbitX = new double[count];
+            orbitY = new double[count];
+            orbitUnitX = new double[count];
+            orbitUnitY = new double[count];
+            orbitUnitZ = new double[count];
+        }
+        orbit.representatives(length, step, orbitUnitX, orbitUnitY, orbitUnitZ);
+        sky.positionsOf(orbitUnitX, orbitUnitY, orbitUnitZ, count, orbitX, orbitY);
+
+        for (int i = 0; i < count; ++i) {
+            list.fillCircle(orbitX[i], orbitY[i], ORBIT_CIRCLE_SIZE, 0, orbColor);
+        }
     }
 
     /**
@@ -191,22 +343,30 @@ public final class SkyCanvasPainter {
      * @param astColor  (Color) current asterism color
      */
     public void drawAsterisms(ObservedSky sky, PlanarTransformation transform, Color astColor) {
-        graphicsContext.setStroke(astColor);
-        graphicsContext.setLineWidth(ASTERISMS_LINE_WIDTH);
-
-        sky.asterisms().forEach(
-                asterism -> {
-                    final CartesianCoordinates mapOfStar0 = transform.apply(getCartesFromIndex(sky, asterism, 0));
-
-                    asterismLineRecurr(mapOfStar0,
-                            transform.apply(getCartesFromIndex(sky, asterism, 1)),
-                            0,
-                            asterism,
-                            sky,
-                            transform,
-                            isInCanvas(mapOfStar0));
-                }
-        );
+        scratch.clear();
+        recordAsterisms(scratch, sky, astColor);
+        replay(scratch, transform);
+    }
+
+    private void recordAsterisms(PlaneDisplayList list, ObservedSky sky, Color astColor) {
+        final StarCatalogue catalogue = sky.catalogue();
+        for (int a = 0; a < catalogue.asterismCount(); ++a) {
+            if (!sky.asterismMayBeVisible(a)) {
+                continue;
+            }
+            final int from = catalogue.asterismEdgeStart(a), to = catalogue.asterismEdgeStart(a + 1);
+            if (asterismX.length < to - from) {
+                asterismX = new double[to - from];
+                asterismY = new double[to - from];
+            }
+            for (int k = from; k < to; ++k) {
+                //A star culled below the horizon has no position: its lines are left out when clipped at replay
+                final int i = catalogue.asterismEdgeStar(k);
+                asterismX[k - from] = sky.x(i);
+                asterismY[k - from] = sky.y(i);
+            }
+            list.polyline(asterismX, asterismY, to - from, ASTERISMS_LINE_WIDTH, astColor);
+        }
     }
 
     /**
@@ -216,8 +376,76 @@ public final class SkyCanvasPainter {
      * @param transform (PlanarTransformation) current transformation to the canvas
      */
     public void drawStars(ObservedSky sky, PlanarTransformation transform) {
-        pipeline(sky.starsMap().entrySet().stream(), SkyCanvasPainter::apparentSize, STAR_COLOR,
-                transform);
+        if (starRendering == StarRendering.SPRITES) {
+            drawStarSprites(sky, transform);
+            return;
+        }
+        final StarCatalogue catalogue = sky.catalogue();
+        final int count = visibleStars(sky, transform);
+        starOrder.sort(visibleStars, count);
+
+        //Stars come grouped by color: the fill only changes between two groups
+        int currentBin = -1;
+        for (int k = 0; k < count; ++k) {
+            final int i = visibleStars[k];
+            final int bin = starOrder.paletteIndex(i);
+            if (bin != currentBin) {
+                graphicsContext.setFill(BlackBodyColor.colorForBin(bin));
+                currentBin = bin;
+            }
+            final double size = transform.applyDistance(apparentSize(catalogue.magnitude(i)));
+            final double x = transform.applyX(sky.x(i), sky.y(i));
+            final double y = transform.applyY(sky.x(i), sky.y(i));
+            graphicsContext.fillOval(x - size / 2, y - size / 2, size, size);
+        }
+    }
+
+    /**
+     * Same as drawStars, but draws each star's sprite out of the atlas, so that the work done scales with the stars
+     * drawn rather than with the canvas' area; stars too large for the sprites are still drawn as ovals
+     */
+    private void drawStarSprites(ObservedSky sky, PlanarTransformation transform) {
+        final StarCatalogue catalogue = sky.catalogue();
+        final int count = visibleStars(sky, transform);
+        for (int k = 0; k < count; ++k) {
+            final int i = visibleStars[k];
+            final double size = transform.applyDistance(apparentSize(catalogue.magnitude(i)));
+            final double x = transform.applyX(sky.x(i), sky.y(i));
+            final double y = transform.applyY(sky.x(i), sky.y(i));
+            if (StarSpriteAtlas.canDraw(size)) {
+                starAtlas.draw(graphicsContext, x, y, size, starOrder.paletteIndex(i));
+            } else {
+                graphicsContext.setFill(BlackBodyColor.colorForBin(starOrder.paletteIndex(i)));
+                graphicsContext.fillOval(x - size / 2, y - size / 2, size, size);
+            }
+        }
+    }
+
+    /**
+     * Writes the catalogue indices of the stars inside the canvas at the start of visibleStars, making sure starOrder
+     * matches the sky's catalogue. Only the stars whose positions the sky computed are looked at, and they are read
+     * from the catalogue's columns, none being materialized
+     *
+     * @return (int) number of stars inside the canvas
+     */
+    private int visibleStars(ObservedSky sky, PlanarTransformation transform) {
+        if (starOrder == null || starOrder.catalogue() != sky.catalogue()) {
+            starOrder = new StarDrawOrder(sky.catalogue());
+        }
+        final int computedCount = sky.computedStarCount();
+        if (visibleStars.length < computedCount) {
+            visibleStars = new int[sky.starCount()];
+        }
+
+        final Bounds bounds = canvas.getBoundsInLocal();
+        int count = 0;
+        for (int k = 0; k < computedCount; ++k) {
+            final int i = sky.computedStar(k);
+            if (bounds.contains(transform.applyX(sky.x(i), sky.y(i)), transform.applyY(sky.x(i), sky.y(i)))) {
+                visibleStars[count++] = i;
+            }
+        }
+        return count;
     }
 
     /**
@@ -227,8 +455,13 @@ public final class SkyCanvasPainter {
      * @param transform (PlanarTransformation) current transformation to the canvas
      */
     public void drawPlanets(ObservedSky sky, PlanarTransformation transform) {
-        pipeline(sky.planetsMap().entrySet().stream(), SkyCanvasPainter::apparentSize, PLANET_COLOR,
-                transform);
+        scratch.clear();
+        recordPlanets(scratch, sky);
+        replay(scratch, transform);
+    }
+
+    private void recordPlanets(PlaneDisplayList list, ObservedSky sky) {
+        recordCelestial(list, sky.planetsMap(), SkyCanvasPainter::apparentSize, PLANET_COLOR);
     }
 
     /**
@@ -238,14 +471,18 @@ public final class SkyCanvasPainter {
      * @param transform (PlanarTransformation) current transformation to the canvas
      */
     public void drawSun(ObservedSky sky, PlanarTransformation transform) {
-        CartesianCoordinates transformedCoords = transform.apply(sky.sunPosition());
+        scratch.clear();
+        recordSun(scratch, sky);
+        replay(scratch, transform);
+    }
 
-        if (isInCanvas(transformedCoords)) {
-            double innerSize = transform.applyDistance(applyToAngle(sky.sun().angularSize()));
-            drawCircle(SUN_COLOR_1_HALO, transformedCoords, innerSize * 2.2);
-            drawCircle(SUN_COLOR_2_YELLOW, transformedCoords, innerSize + 2);
-            drawCircle(SUN_COLOR_3_WHITE, transformedCoords, innerSize);
-        }
+    private void recordSun(PlaneDisplayList list, ObservedSky sky) {
+        //The three circles share their center, so are all drawn or all left out at replay
+        final CartesianCoordinates position = sky.sunPosition();
+        final double innerSize = applyToAngle(sky.sun().angularSize());
+        list.fillCircle(position.x(), position.y(), innerSize * 2.2, 0, SUN_COLOR_1_HALO);
+        list.fillCircle(position.x(), position.y(), innerSize, 2, SUN_COLOR_2_YELLOW);
+        list.fillCircle(position.x(), position.y(), innerSize, 0, SUN_COLOR_3_WHITE);
     }
 
     /**
@@ -255,8 +492,13 @@ public final class SkyCanvasPainter {
      * @param transform (PlanarTransformation) current transformation to the canvas
      */
     public void drawMoon(ObservedSky sky, PlanarTransformation transform) {
-        pipeline(sky.moonMap().entrySet().stream(), moon -> applyToAngle(moon.angularSize()), MOON_COLOR,
-                transform);
+        scratch.clear();
+        recordMoon(scratch, sky);
+        replay(scratch, transform);
+    }
+
+    private void recordMoon(PlaneDisplayList list, ObservedSky sky) {
+        recordCelestial(list, sky.moonMap(), moon -> applyToAngle(moon.angularSize()), MOON_COLOR);
     }
 
     /**
@@ -267,161 +509,55 @@ public final class SkyCanvasPainter {
      * @param horColor   (Color) current horizon color
      */
     public void drawHorizon(StereographicProjection projection, PlanarTransformation transform, Color horColor) {
-        drawStrokeCircle(transform.apply(projection.circleCenterForParallel(EQUATOR)),
-                transform.applyDistance(2 * projection.circleRadiusForParallel(EQUATOR)),
-                horColor,
-                HORIZON_LINE_WIDTH);
+        scratch.clear();
+        recordHorizon(scratch, projection, horColor);
+        replay(scratch, transform);
+    }
 
-        graphicsContext.setFill(horColor);
-        graphicsContext.setTextAlign(TextAlignment.CENTER);
-        graphicsContext.setTextBaseline(VPos.TOP);
+    private void recordHorizon(PlaneDisplayList list, StereographicProjection projection, Color horColor) {
+        recordStrokeCircle(list, projection.circleCenterForParallel(EQUATOR),
+                2 * projection.circleRadiusForParallel(EQUATOR), horColor, HORIZON_LINE_WIDTH);
 
         for (int i = 0; i < 8; ++i)
         {
             HorizontalCoordinates octantHorizCoords = HorizontalCoordinates.ofDeg(45 * i, OCTANTS_ALT_OFFSET);
-            CartesianCoordinates octantTransCoords = transform.apply(projection.apply(octantHorizCoords));
+            CartesianCoordinates octantCoords = projection.apply(octantHorizCoords);
 
-            graphicsContext.fillText(octantHorizCoords.azOctantName("N", "E", "S", "O"), octantTransCoords.x(), octantTransCoords.y());
+            list.text(octantCoords.x(), octantCoords.y(), octantHorizCoords.azOctantName("N", "E", "S", "O"), horColor);
         }
     }
 
     /**
-     * Concatenation of operations, the last of which is the effective drawing
+     * Records circle shaped celestial objects, left out at replay if outside the canvas
      *
-     * @param positions      (Stream<Map.Entry<T, CartesianCoordinates>>) Stream or ParallelStream
-     * @param radiusFunction (Function<T, Double>) how to compute radii for given stream of celestial objects
-     * @param color          (Function<T, Paint>) how to find the color for given stream of celestial objects
-     * @param transform      (PlanarTransformation) current transformation to the canvas
-     * @param <T>            (extends CelestialObject)
-     */
-    private <T extends CelestialObject> void pipeline(Stream<Map.Entry<T, CartesianCoordinates>> positions,
-            Function<T, Double> radiusFunction, Function<T, Paint> color, PlanarTransformation transform) {
-        drawCelestial(checkInCanvas(applyTransform(positions, transform)), radiusFunction, color, transform);
-    }
-
-    /**
-     * Applies transformation on celestial objects' positions
-     *
-     * @param positions (Stream<Map.Entry<T, CartesianCoordinates>>)
-     * @param transform (PlanarTransformation) current transformation to the canvas
-     * @param <T>       (extends CelestialObject)
-     * @return (Stream<Map.Entry<T, CartesianCoordinates>>) transformed positions
-     */
-    private <T extends CelestialObject> Stream<Map.Entry<T, CartesianCoordinates>> applyTransform(
-            Stream<Map.Entry<T, CartesianCoordinates>> positions, PlanarTransformation transform) {
-        return positions.map(entry -> Map.entry(entry.getKey(), transform.apply(entry.getValue())));
-    }
-
-    /**
-     * Filters out celestial objects that are not within canvas' bounds after transformation
-     *
-     * @param positions (Stream<Map.Entry<T, CartesianCoordinates>>)
-     * @param <T>       (extends CelestialObject)
-     * @return (Stream <Map.Entry<T, CartesianCoordinates>>) filtered positions
-     */
-    private <T extends CelestialObject> Stream<Map.Entry<T, CartesianCoordinates>> checkInCanvas(
-            Stream<Map.Entry<T, CartesianCoordinates>> positions) {
-        return positions.filter(entry -> isInCanvas(entry.getValue()));
-    }
-
-    /**
-     * Draws circle shaped celestial objects on canvas
-     *
-     * @param positions      (Stream<Map.Entry<T, CartesianCoordinates>>) mapping celestial objects to their now transformed
-     *                       coordinates
+     * @param list           (PlaneDisplayList) list recorded into
+     * @param positions      (Map<T, CartesianCoordinates>) mapping celestial objects to their position on the plane
      * @param radiusFunction (Function<T, Double> radiusFunction) how to compute radii for given positions
      * @param color          (Function<T, Paint>) how to color given celestial objects
-     * @param transform      (PlanarTransformation) current transformation to the canvas
      * @param <T>            (extends CelestialObject)
      */
-    private <T extends CelestialObject> void drawCelestial(Stream<Map.Entry<T, CartesianCoordinates>> positions,
-            Function<T, Double> radiusFunction, Function<T, Paint> color, PlanarTransformation transform) {
-
-        positions.forEach(e ->
-                drawCircle(color.apply(e.getKey()), e.getValue(), transform.applyDistance(radiusFunction.apply(e.getKey())))
+    private <T extends CelestialObject> void recordCelestial(PlaneDisplayList list,
+            Map<T, CartesianCoordinates> positions, Function<T, Double> radiusFunction, Function<T, Paint> color) {
+        positions.forEach((celest, position) ->
+                list.fillCircle(position.x(), position.y(), radiusFunction.apply(celest), 0, color.apply(celest))
         );
     }
 
     /**
-     * Circle drawing helper method
-     *
-     * @param color        (Paint) color to apply
-     * @param cartesCoords (CartesianCoordinates) transformed coordinates
-     * @param size         (double) radius
-     */
-    private void drawCircle(Paint color, CartesianCoordinates cartesCoords, double size) {
-
-        graphicsContext.setFill(color);
-         double halfSize = size / 2;
-
-        graphicsContext.fillOval(cartesCoords.x() - halfSize, cartesCoords.y() - halfSize, size, size);
-        //Used in drawSun and drawCelestial
-    }
-
-    /**
-     * Stroke circle drawing method
+     * Stroke circle recording method
      *
-     * @param transformedCenter (CartesianCoordinates) center of the circle
-     * @param radius            (double) circle's radius
-     * @param color             (Color) circle's color
-     * @param width             (double) circle's stroke's width
+     * @param list     (PlaneDisplayList) list recorded into
+     * @param center   (CartesianCoordinates) center of the circle on the plane
+     * @param diameter (double) circle's diameter on the plane
+     * @param color    (Color) circle's color
+     * @param width    (double) circle's stroke's width, in pixels
      */
-    private void drawStrokeCircle(CartesianCoordinates transformedCenter, double radius, Color color, double width) {
-        double halfRadius = radius / 2;
-        graphicsContext.setStroke(color);
-        graphicsContext.setLineWidth(width);
-
-        graphicsContext.strokeOval(transformedCenter.x() - halfRadius, transformedCenter.y() - halfRadius, radius, radius);
+    private static void recordStrokeCircle(PlaneDisplayList list, CartesianCoordinates center, double diameter,
+                                           Color color, double width) {
+        list.strokeCircle(center.x(), center.y(), diameter, width, color);
         //used in drawGrid and drawHorizon
     }
 
-    /**
-     * Recursive asterism drawing method: follows its list of stars from stars to finish, drawing lines on the way
-     *
-     * @param c1               (CartesianCoordinates) transformed
-     * @param c2               (CartesianCoordinates) transformed
-     * @param currentStartStar (int) index of the current starting star at starting point in asterism.stars()
-     * @param asterism         (Asterism) current asterism being drawn
-     * @param sky              (ObservedSky) current sky
-     * @param transform        (PlanarTransformation) current transformation to the canvas
-     */
-    private void asterismLineRecurr(CartesianCoordinates c1, CartesianCoordinates c2,
-                                    int currentStartStar, Asterism asterism, ObservedSky sky, PlanarTransformation transform,
-                                    boolean c1InCanvas) {
-
-        boolean c2InCanvas = isInCanvas(c2);
-        if (c1InCanvas || isInCanvas(c2)) {
-            graphicsContext.strokeLine(c1.x(), c1.y(), c2.x(), c2.y());
-        }
-
-        if (currentStartStar <= asterism.stars().size() - 2) {
-            asterismLineRecurr(c2, transform.apply(getCartesFromIndex(sky, asterism, currentStartStar + 1)),
-                    currentStartStar + 1, asterism, sky, transform, c2InCanvas);
-        }
-    }
-
-    /**
-     * Shortcut method for finding a Star's CartesianCoordinates through the Asterism it is a part of
-     *
-     * @param sky   (ObservedSky) current sky
-     * @param aster (Asterism) the star's asterism
-     * @param index (int) star's index in the asterism's list of stars
-     * @return (CartesianCoordinates) star's position (non transformed)
-     */
-    private CartesianCoordinates getCartesFromIndex(ObservedSky sky, Asterism aster, int index) {
-        return sky.starsMap().get(sky.stars().get(sky.asterismIndices(aster).get(index)));
-    }
-
-    /**
-     * Shortcut method for testing if given coords are within canvas' current bounds
-     *
-     * @param coords (CartesianCoordinates coords)
-     * @return (boolean)
-     */
-    private boolean isInCanvas(CartesianCoordinates coords) {
-        return canvas.getBoundsInLocal().contains(coords.x(), coords.y());
-    }
-
     /**
      * Computes planets' and stars' apparent radii using their magnitude
      *
@@ -429,7 +565,11 @@ public final class SkyCanvasPainter {
      * @return (double) apparent radius of celestObj on screen
      */
     private static double apparentSize(final CelestialObject celestObj) {
-        return (99 - 17 * CLIP_INTERVAL.clip(celestObj.magnitude())) * CELEST_SIZE_COEFF;
+        return apparentSize(celestObj.magnitude());
+    }
+
+    private static double apparentSize(double magnitude) {
+        return (99 - 17 * CLIP_INTERVAL.clip(magnitude)) * CELEST_SIZE_COEFF;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package ch.epfl.rigel.gui;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Layers the sky is painted on, each on its own canvas and repainted only when its own inputs change. Listed from the
+ * bottom layer to the top one.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public enum SkyLayer {
+
+    ORBIT(EnumSet.of(DrawableObjects.ORBIT)),
+    GUIDES(EnumSet.of(DrawableObjects.GRID, DrawableObjects.HORIZON)),
+    ASTERISMS(EnumSet.of(DrawableObjects.ASTERISMS)),
+    STARS(EnumSet.of(DrawableObjects.STARS)),
+    SOLAR_SYSTEM(EnumSet.of(DrawableObjects.PLANETS, DrawableObjects.SUN, DrawableObjects.MOON));
+
+    private final Set<DrawableObjects> drawables;
+
+    SkyLayer(EnumSet<DrawableObjects> drawables) {
+        this.drawables = Collections.unmodifiableSet(drawables);
+    }
+
+    /**
+     * @return (Set<DrawableObjects>) objects drawn on this layer (immutable)
+     */
+    public Set<DrawableObjects> drawables() {
+        return drawables;
+    }
+
+    /**
+     * @param oldDrawables (Set<DrawableObjects>) objects previously drawn
+     * @param newDrawables (Set<DrawableObjects>) objects now drawn
+     * @return (EnumSet<SkyLayer>) the layers on which an object was shown or hidden
+     */
+    public static EnumSet<SkyLayer> affectedBy(Set<DrawableObjects> oldDrawables, Set<DrawableObjects> newDrawables) {
+        final EnumSet<SkyLayer> affected = EnumSet.noneOf(SkyLayer.class);
+        for (SkyLayer layer : values()) {
+            for (DrawableObjects drawable : layer.drawables) {
+                if (oldDrawables.contains(drawable) != newDrawables.contains(drawable)) {
+                    affected.add(layer);
+                }
+            }
+        }
+        return affected;
+    }
+}
@@ -0,0 +1,86 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+
+import java.util.Arrays;
+
+/**
+ * Orders the stars to draw by color, so that each of BlackBodyColor's colors is set as fill once per frame rather
+ * than once per star.
+ *
+ * The palette index of every star of the catalogue is computed once, at construction; sorting is a stable counting
+ * sort over the palette, in O(n + binCount()), reusing its buffers from a frame to the next.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class StarDrawOrder {
+
+    private final StarCatalogue catalogue;
+    private final int[] paletteIndices;
+    private final int[] binStarts;
+    private int[] sorted = new int[0];
+
+    /**
+     * @param catalogue (StarCatalogue) catalogue whose stars are to be ordered
+     * @throws IllegalArgumentException if a star's temperature isn't in [1000,40000]
+     */
+    public StarDrawOrder(StarCatalogue catalogue) {
+        this.catalogue = catalogue;
+        this.paletteIndices = new int[catalogue.starCount()];
+        for (int i = 0; i < paletteIndices.length; ++i) {
+            paletteIndices[i] = BlackBodyColor.binForTemperature(catalogue.colorTemperature(i));
+        }
+        this.binStarts = new int[BlackBodyColor.binCount() + 1];
+    }
+
+    /**
+     * @return (StarCatalogue) catalogue the palette indices were computed for
+     */
+    public StarCatalogue catalogue() {
+        return catalogue;
+    }
+
+    /**
+     * @param index (int) index of the star in the catalogue
+     * @return (int) index of the star's color, see BlackBodyColor.colorForBin
+     */
+    public int paletteIndex(int index) {
+        return paletteIndices[index];
+    }
+
+    /**
+     * Sorts the first count catalogue indices of the given array by palette index, keeping their relative order
+     * within a color
+     *
+     * @param indices (int[]) indices of stars in the catalogue, sorted in place
+     * @param count   (int) number of indices to sort, from index 0
+     * @return (int) number of distinct colors among them, i.e. of fill changes needed to draw them
+     * @throws IllegalArgumentException if count is negative or greater than indices' length
+     */
+    public int sort(int[] indices, int count) {
+        Preconditions.checkArgument(0 <= count && count <= indices.length);
+        if (sorted.length < count) {
+            sorted = new int[count];
+        }
+
+        Arrays.fill(binStarts, 0);
+        for (int k = 0; k < count; ++k) {
+            ++binStarts[paletteIndices[indices[k]] + 1];
+        }
+        int colorCount = 0;
+        for (int bin = 1; bin < binStarts.length; ++bin) {
+            if (binStarts[bin] != 0) {
+                ++colorCount;
+            }
+            binStarts[bin] += binStarts[bin - 1];
+        }
+        //binStarts[bin] is now where the stars of that bin start, and is moved forward as they are placed
+        for (int k = 0; k < count; ++k) {
+            sorted[binStarts[paletteIndices[indices[k]]]++] = indices[k];
+        }
+        System.arraycopy(sorted, 0, indices, 0, count);
+        return colorCount;
+    }
+}
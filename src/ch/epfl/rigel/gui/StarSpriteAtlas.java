@@ -0,0 +1,194 @@
+package ch.epfl.rigel.gui;
+
+import ch.epfl.rigel.Preconditions;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pre-rasterized star discs, packed into atlas images and drawn with one drawImage of their part of the atlas each,
+ * instead of being filled as ovals.
+ *
+ * Sprites are keyed by their diameter, quantized to a quarter of a pixel, and by their color's bin (see
+ * BlackBodyColor.binForTemperature); each is rasterized, antialiased, the first time it is needed, and placed on the
+ * shelves of the last atlas page, a new page being started once it is full. Pixels are premultiplied ARGB, and sprites
+ * are composed over what is already drawn by the canvas. Stars are placed to the nearest pixel.
+ *
+ * @author Alexandre Sallinen (303162)
+ * @author Salim Najib (310003)
+ */
+public final class StarSpriteAtlas {
+
+    /**
+     * Largest diameter of the sprites, in pixels: larger stars must be drawn otherwise
+     */
+    public static final double MAX_DIAMETER = 32;
+    private static final int STEPS_PER_PIXEL = 4;
+    private static final int SUPERSAMPLING = 4;
+    private static final int PAGE_SIDE = 512;
+
+    private final int colorCount;
+    //Indexed by size bin * colorCount + color bin: page holding the sprite, -1 until first needed, and its place in it
+    private final int[] spritePage;
+    private final int[] spriteX, spriteY;
+    private final List<WritableImage> pages = new ArrayList<>();
+    //Free space of the last page: sprites are placed left to right on shelves as high as their highest sprite
+    private int shelfX, shelfY, shelfHeight;
+    private int spriteCount;
+
+    /**
+     * Atlas covering the colors of BlackBodyColor
+     */
+    public StarSpriteAtlas() {
+        this.colorCount = BlackBodyColor.binCount();
+        final int spriteSlots = ((int) (MAX_DIAMETER * STEPS_PER_PIXEL) + 1) * colorCount;
+        this.spritePage = new int[spriteSlots];
+        this.spriteX = new int[spriteSlots];
+        this.spriteY = new int[spriteSlots];
+        Arrays.fill(spritePage, -1);
+    }
+
+    /**
+     * @param diameter (double) diameter of a star, in pixels
+     * @return (boolean) whether the atlas can draw a star of that diameter
+     */
+    public static boolean canDraw(double diameter) {
+        return diameter <= MAX_DIAMETER;
+    }
+
+    /**
+     * Draws a star's sprite, composed over what the context already holds
+     *
+     * @param context  (GraphicsContext) context drawn on, with no transformation
+     * @param x        (double) abscissa of the star's center
+     * @param y        (double) ordinate of the star's center
+     * @param diameter (double) star's diameter, in pixels
+     * @param colorBin (int) bin of the star's color
+     * @throws IllegalArgumentException if the atlas cannot draw a star of that diameter or color
+     */
+    public void draw(GraphicsContext context, double x, double y, double diameter, int colorBin) {
+        final int sizeBin = sizeBin(diameter);
+        final int index = sprite(sizeBin, colorBin);
+        final int side = sideOf(sizeBin);
+        context.drawImage(pages.get(spritePage[index]), spriteX[index], spriteY[index], side, side,
+                Math.round(x - side / 2d), Math.round(y - side / 2d), side, side);
+    }
+
+    /**
+     * @param diameter (double) star's diameter, in pixels
+     * @param colorBin (int) bin of the star's color
+     * @return (Image) atlas page draw takes the star's sprite from, rasterizing it if needed
+     * @throws IllegalArgumentException if the atlas cannot draw a star of that diameter or color
+     */
+    public Image image(double diameter, int colorBin) {
+        return pages.get(spritePage[sprite(sizeBin(diameter), colorBin)]);
+    }
+
+    /**
+     * @param diameter (double) star's diameter, in pixels
+     * @param colorBin (int) bin of the star's color
+     * @return (Rectangle2D) part of its atlas page draw takes the star's sprite from, rasterizing it if needed
+     * @throws IllegalArgumentException if the atlas cannot draw a star of that diameter or color
+     */
+    public Rectangle2D viewport(double diameter, int colorBin) {
+        final int sizeBin = sizeBin(diameter);
+        final int index = sprite(sizeBin, colorBin);
+        return new Rectangle2D(spriteX[index], spriteY[index], sideOf(sizeBin), sideOf(sizeBin));
+    }
+
+    /**
+     * @return (int) number of sprites rasterized so far
+     */
+    public int spriteCount() {
+        return spriteCount;
+    }
+
+    /**
+     * @return (int) number of atlas pages started so far
+     */
+    public int pageCount() {
+        return pages.size();
+    }
+
+    private static int sizeBin(double diameter) {
+        Preconditions.checkArgument(canDraw(diameter));
+        return (int) Math.round(Math.max(0, diameter) * STEPS_PER_PIXEL);
+    }
+
+    /**
+     * @return (int) index of the sprite, which is rasterized and written into the atlas first if needed
+     */
+    private int sprite(int sizeBin, int colorBin) {
+        Preconditions.checkArgument(0 <= colorBin && colorBin < colorCount);
+        final int index = sizeBin * colorCount + colorBin;
+        if (spritePage[index] < 0) {
+            final int side = sideOf(sizeBin);
+            if (shelfX + side > PAGE_SIDE) {
+                shelfX = 0;
+                shelfY += shelfHeight;
+                shelfHeight = 0;
+            }
+            if (pages.isEmpty() || shelfY + side > PAGE_SIDE) {
+                //Pages are never rewritten, so that the sprites already drawn in a frame stay valid
+                pages.add(new WritableImage(PAGE_SIDE, PAGE_SIDE));
+                shelfX = shelfY = shelfHeight = 0;
+            }
+            pages.get(pages.size() - 1).getPixelWriter().setPixels(shelfX, shelfY, side, side,
+                    PixelFormat.getIntArgbPreInstance(), rasterize(sizeBin, BlackBodyColor.colorForBin(colorBin)), 0,
+                    side);
+            spritePage[index] = pages.size() - 1;
+            spriteX[index] = shelfX;
+            spriteY[index] = shelfY;
+            shelfX += side;
+            shelfHeight = Math.max(shelfHeight, side);
+            ++spriteCount;
+        }
+        return index;
+    }
+
+    /**
+     * Rasterizes a disc centered in its sprite, each pixel's coverage being estimated on a supersampling grid
+     */
+    private static int[] rasterize(int sizeBin, Color color) {
+        final int side = sideOf(sizeBin);
+        final double radius = (double) sizeBin / STEPS_PER_PIXEL / 2;
+        final double center = side / 2d;
+        final int red = (int) Math.round(color.getRed() * 255);
+        final int green = (int) Math.round(color.getGreen() * 255);
+        final int blue = (int) Math.round(color.getBlue() * 255);
+
+        final int[] sprite = new int[side * side];
+        for (int row = 0; row < side; ++row) {
+            for (int column = 0; column < side; ++column) {
+                int covered = 0;
+                for (int sy = 0; sy < SUPERSAMPLING; ++sy) {
+                    final double dy = row + (sy + 0.5) / SUPERSAMPLING - center;
+                    for (int sx = 0; sx < SUPERSAMPLING; ++sx) {
+                        final double dx = column + (sx + 0.5) / SUPERSAMPLING - center;
+                        if (dx * dx + dy * dy <= radius * radius) {
+                            ++covered;
+                        }
+                    }
+                }
+                final int alpha = (covered * 255 + SUPERSAMPLING * SUPERSAMPLING / 2) / (SUPERSAMPLING * SUPERSAMPLING);
+                sprite[row * side + column] = alpha << 24
+                        | ((red * alpha + 127) / 255) << 16
+                        | ((green * alpha + 127) / 255) << 8
+                        | (blue * alpha + 127) / 255;
+            }
+        }
+        return sprite;
+    }
+
+    private static int sideOf(int sizeBin) {
+        //One more pixel on each side for the antialiased edge
+        return (int) Math.ceil((double) sizeBin / STEPS_PER_PIXEL) + 2;
+    }
+}
@@ -61,6 +61,74 @@ public final class Polynomial {
         return new Polynomial(coefficientN, coefficients);
     }
 
+    /**
+     * @param k (int) index of the node, in [0, n[
+     * @param n (int) number of nodes
+     * @return (double) k-th of the n Chebyshev nodes (of the first kind) on [-1, 1], in decreasing order
+     * @throws IllegalArgumentException if k is not in [0, n[
+     */
+    public static double chebyshevNode(int k, int n) {
+        Preconditions.checkArgument(0 <= k && k < n);
+        return Math.cos(Math.PI * (k + 0.5) / n);
+    }
+
+    /**
+     * Interpolating polynomial, on [-1, 1], of a function sampled at the Chebyshev nodes: interpolating at these nodes
+     * rather than at evenly spaced ones keeps the error close to that of the best polynomial approximation. The
+     * Chebyshev series is computed first, then expanded to the monomial basis.
+     *
+     * @param samples (double[]) values of the function at chebyshevNode(k, samples.length), k in [0, samples.length[
+     * @return (Polynomial) the polynomial of degree less than samples.length taking these values at these nodes
+     * @throws IllegalArgumentException if there are no samples
+     */
+    public static Polynomial ofChebyshevSamples(double[] samples) {
+        final int n = samples.length;
+        Preconditions.checkArgument(n > 0);
+
+        //Chebyshev coefficients, by the discrete orthogonality of T_j over the nodes
+        final double[] chebyshev = new double[n];
+        for (int j = 0; j < n; ++j) {
+            double sum = 0;
+            for (int k = 0; k < n; ++k) {
+                sum += samples[k] * Math.cos(Math.PI * j * (k + 0.5) / n);
+            }
+            chebyshev[j] = (j == 0 ? 1d : 2d) * sum / n;
+        }
+
+        //Monomial coefficients in increasing powers, using T_(j+1) = 2x T_j - T_(j-1)
+        final double[] ascending = new double[n];
+        double[] previous = new double[n], current = new double[n];
+        previous[0] = 1;
+        ascending[0] = chebyshev[0];
+        if (n > 1) {
+            current[1] = 1;
+            ascending[1] = chebyshev[1];
+        }
+        for (int j = 2; j < n; ++j) {
+            final double[] next = new double[n];
+            for (int i = 0; i < j; ++i) {
+                next[i + 1] += 2 * current[i];
+                next[i] -= previous[i];
+            }
+            for (int i = 0; i <= j; ++i) {
+                ascending[i] += chebyshev[j] * next[i];
+            }
+            previous = current;
+            current = next;
+        }
+
+        //Leading zero coefficients are dropped, as of() requires, the zero polynomial being kept as such
+        int degree = n - 1;
+        while (degree > 0 && ascending[degree] == 0) {
+            --degree;
+        }
+        final double[] others = new double[degree];
+        for (int i = 0; i < degree; ++i) {
+            others[i] = ascending[degree - 1 - i];
+        }
+        return new Polynomial(ascending[degree], others);
+    }
+
     /**
      * Interpretation of the polynomial function at a point using horner method
      *
@@ -0,0 +1,122 @@
+package ch.epfl.rigelTest.astronomy;
+
+import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.CelestialObjectModel;
+import ch.epfl.rigel.astronomy.ChebyshevEphemeris;
+import ch.epfl.rigel.astronomy.EphemerisCaches;
+import ch.epfl.rigel.astronomy.Moon;
+import ch.epfl.rigel.astronomy.MoonModel;
+import ch.epfl.rigel.astronomy.OrbitService;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.astronomy.SkyPipeline;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.SunModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.math.Angle;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MyChebyshevEphemerisTest {
+
+    private static final EclipticToEquatorialConversion CONVERSION =
+            new EclipticToEquatorialConversion(ZonedDateTime.parse("2020-04-17T21:00:00+02:00"));
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2020-04-17T21:00:00+02:00");
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void init() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void cachedPositionsAreWithinTheErrorBound() throws ExecutionException, InterruptedException {
+        List<CelestialObjectModel<? extends CelestialObject>> models = new ArrayList<>(PlanetModel.EXTRATERRESTRIAL);
+        models.add(SunModel.SUN);
+        models.add(MoonModel.MOON);
+
+        SplittableRandom rng = new SplittableRandom(2020);
+        for (CelestialObjectModel<? extends CelestialObject> model : models) {
+            ChebyshevEphemeris<? extends CelestialObject> cache = ChebyshevEphemeris.of(model, executor);
+            cache.prefetch(-1000, 1000).get();
+
+            int interpolated = 0;
+            for (int i = 0; i < 2000; ++i) {
+                double days = rng.nextDouble(-1000, 1000);
+                CelestialObject expected = model.at(days, CONVERSION);
+                CelestialObject actual = cache.at(days, CONVERSION);
+                //The conversion only rotates the ecliptic frame, the bound carries over
+                assertEquals(0, Angle.normalizePositive(expected.equatorialPos().ra() - actual.equatorialPos().ra()
+                        + Math.PI) - Math.PI, 2 * ChebyshevEphemeris.ANGLE_TOLERANCE);
+                assertEquals(expected.equatorialPos().dec(), actual.equatorialPos().dec(),
+                        2 * ChebyshevEphemeris.ANGLE_TOLERANCE);
+                assertEquals(expected.angularSize(), actual.angularSize(), 1e-6);
+                assertEquals(expected.magnitude(), actual.magnitude(), 1e-3);
+                //Spans falling back to the model would give exactly its results
+                if (expected.equatorialPos().ra() != actual.equatorialPos().ra()
+                        || expected.equatorialPos().dec() != actual.equatorialPos().dec()) {
+                    ++interpolated;
+                }
+            }
+            //Every span is accurate enough over these 2000 days: most results must come from the polynomials
+            assertTrue(interpolated > 1000, model + ": " + interpolated + " interpolated results");
+        }
+    }
+
+    @Test
+    void cachesAreSharedPerModel() {
+        EphemerisCaches caches = new EphemerisCaches(executor);
+        assertSame(caches.of(PlanetModel.MARS), caches.of(PlanetModel.MARS));
+        assertSame(PlanetModel.EARTH, caches.of(PlanetModel.EARTH));
+
+        new OrbitService(5, 30, caches).orbit(MoonModel.MOON, START).join();
+        new SkyPipeline(new StarCatalogue(List.of(), List.of()), caches).ephemeris(START);
+        //The pipeline reuses the Moon's cache created for its orbit
+        assertEquals(EphemerisCaches.MODELS.size(), caches.cacheCount());
+        assertSame(caches.of(MoonModel.MOON), caches.of(MoonModel.MOON));
+    }
+
+    @Test
+    void unfittedSpansGoToTheModel() {
+        ChebyshevEphemeris<Moon> cache = new ChebyshevEphemeris<>(MoonModel.MOON, 4, 12, 8, executor);
+        Moon expected = MoonModel.MOON.at(123.4, CONVERSION);
+        Moon actual = cache.at(123.4, CONVERSION);
+        assertEquals(expected.equatorialPos().ra(), actual.equatorialPos().ra());
+        assertEquals(expected.phase(), actual.phase());
+    }
+
+    @Test
+    void leastRecentlyUsedSpansAreEvicted() throws ExecutionException, InterruptedException {
+        ChebyshevEphemeris<Moon> cache = new ChebyshevEphemeris<>(MoonModel.MOON, 4, 12, 8, executor);
+        cache.prefetch(0, 100).get();
+        assertEquals(8, cache.fittedSpanCount());
+    }
+
+    @Test
+    void constructorFailsOnInvalidParameters() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ChebyshevEphemeris<>(MoonModel.MOON, 0, 12, 8, executor));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ChebyshevEphemeris<>((days, conversion) -> null, 4, 12, 8, executor));
+    }
+}
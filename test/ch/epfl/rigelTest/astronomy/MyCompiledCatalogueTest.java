@@ -0,0 +1,136 @@
+package ch.epfl.rigelTest.astronomy;
+
+import ch.epfl.rigel.astronomy.AsterismLoader;
+import ch.epfl.rigel.astronomy.CatalogueCompiler;
+import ch.epfl.rigel.astronomy.CompiledCatalogueLoader;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MyCompiledCatalogueTest {
+
+    private static final String HYG_CATALOGUE_NAME =
+            "/hygdata_v3.csv";
+    private static final String AST_CATALOGUE_NAME =
+            "/asterisms.txt";
+    private static final String COMPILED_CATALOGUE_NAME =
+            "/catalogue.rglc";
+    private static StarCatalogue csvCatalogue;
+    private static Path compiled;
+
+    @BeforeAll
+    static void init() throws IOException {
+        try (InputStream hygStream = MyCompiledCatalogueTest.class.getResourceAsStream(HYG_CATALOGUE_NAME);
+             InputStream astStream = MyCompiledCatalogueTest.class.getResourceAsStream(AST_CATALOGUE_NAME)) {
+            csvCatalogue = new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(astStream, AsterismLoader.INSTANCE)
+                    .build();
+        }
+        compiled = Files.createTempFile("rigel", ".rglc");
+        CatalogueCompiler.compile(csvCatalogue, compiled);
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        Files.deleteIfExists(compiled);
+    }
+
+    @Test
+    void mappedCatalogueEqualsCsvCatalogue() throws IOException {
+        StarCatalogue.Builder builder = new StarCatalogue.Builder();
+        CompiledCatalogueLoader.INSTANCE.load(compiled, builder);
+        assertSameCatalogue(csvCatalogue, builder.build());
+
+        try (InputStream fileStream = new FileInputStream(compiled.toFile())) {
+            assertSameCatalogue(csvCatalogue, new StarCatalogue.Builder()
+                    .loadFrom(fileStream, CompiledCatalogueLoader.INSTANCE).build());
+        }
+        try (InputStream byteStream = new ByteArrayInputStream(Files.readAllBytes(compiled))) {
+            assertSameCatalogue(csvCatalogue, new StarCatalogue.Builder()
+                    .loadFrom(byteStream, CompiledCatalogueLoader.INSTANCE).build());
+        }
+    }
+
+    @Test
+    void compilationIsReproducible() throws IOException {
+        //A second build gets its asterisms out of a differently ordered set
+        StarCatalogue rebuilt;
+        try (InputStream hygStream = getClass().getResourceAsStream(HYG_CATALOGUE_NAME);
+             InputStream astStream = getClass().getResourceAsStream(AST_CATALOGUE_NAME)) {
+            rebuilt = new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(astStream, AsterismLoader.INSTANCE)
+                    .build();
+        }
+        Path recompiled = Files.createTempFile("rigel", ".rglc");
+        try {
+            CatalogueCompiler.compile(rebuilt, recompiled);
+            assertArrayEquals(Files.readAllBytes(compiled), Files.readAllBytes(recompiled));
+        } finally {
+            Files.deleteIfExists(recompiled);
+        }
+    }
+
+    @Test
+    void committedCatalogueIsUpToDate() throws IOException {
+        //Fails when the text files changed without catalogue.rglc being regenerated by CatalogueCompiler
+        try (InputStream committed = getClass().getResourceAsStream(COMPILED_CATALOGUE_NAME)) {
+            assertArrayEquals(Files.readAllBytes(compiled), committed.readAllBytes());
+        }
+    }
+
+    @Test
+    void invalidCataloguesAreRejected() throws IOException {
+        byte[] bytes = Files.readAllBytes(compiled);
+
+        byte[] wrongMagic = bytes.clone();
+        wrongMagic[0] = 0;
+        assertThrows(IOException.class, () -> new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(wrongMagic), CompiledCatalogueLoader.INSTANCE));
+
+        byte[] wrongVersion = bytes.clone();
+        wrongVersion[7] = 42;
+        assertThrows(IOException.class, () -> new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(wrongVersion), CompiledCatalogueLoader.INSTANCE));
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+        assertThrows(IOException.class, () -> new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(truncated), CompiledCatalogueLoader.INSTANCE));
+    }
+
+    private static void assertSameCatalogue(StarCatalogue expected, StarCatalogue actual) {
+        assertEquals(expected.starCount(), actual.starCount());
+        for (int i = 0; i < expected.starCount(); ++i) {
+            assertEquals(expected.hipparcosId(i), actual.hipparcosId(i));
+            assertEquals(expected.name(i), actual.name(i));
+            assertEquals(expected.ra(i), actual.ra(i));
+            assertEquals(expected.dec(i), actual.dec(i));
+            assertEquals(expected.magnitude(i), actual.magnitude(i));
+            assertEquals(expected.colorTemperature(i), actual.colorTemperature(i));
+        }
+        assertEquals(asterismIndicesOf(expected), asterismIndicesOf(actual));
+    }
+
+    private static Set<?> asterismIndicesOf(StarCatalogue catalogue) {
+        return catalogue.asterisms().stream()
+                .map(catalogue::asterismIndices)
+                .collect(Collectors.toSet());
+    }
+}
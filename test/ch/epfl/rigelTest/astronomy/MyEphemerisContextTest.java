@@ -0,0 +1,48 @@
+package ch.epfl.rigelTest.astronomy;
+
+import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.CelestialObjectModel;
+import ch.epfl.rigel.astronomy.EphemerisContext;
+import ch.epfl.rigel.astronomy.Moon;
+import ch.epfl.rigel.astronomy.MoonModel;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.astronomy.SunModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class MyEphemerisContextTest {
+
+    @Test
+    void contextEvaluationMatchesDirectEvaluation() {
+        List<CelestialObjectModel<? extends CelestialObject>> models = new ArrayList<>(PlanetModel.EXTRATERRESTRIAL);
+        models.add(SunModel.SUN);
+        models.add(MoonModel.MOON);
+
+        SplittableRandom rng = new SplittableRandom(2020);
+        for (int i = 0; i < 500; ++i) {
+            ZonedDateTime when = ZonedDateTime.parse("2020-04-17T21:00:00+02:00").plusHours(rng.nextInt(-1_000_000, 1_000_000));
+            EphemerisContext context = EphemerisContext.at(when);
+            EclipticToEquatorialConversion conversion = context.conversion();
+
+            for (CelestialObjectModel<? extends CelestialObject> model : models) {
+                CelestialObject expected = model.at(context.daysSinceJ2010(), conversion);
+                CelestialObject actual = model.at(context);
+                assertEquals(expected.equatorialPos().ra(), actual.equatorialPos().ra());
+                assertEquals(expected.equatorialPos().dec(), actual.equatorialPos().dec());
+                assertEquals(expected.angularSize(), actual.angularSize());
+                assertEquals(expected.magnitude(), actual.magnitude());
+            }
+            assertSame(context.sun(), SunModel.SUN.at(context));
+            Moon moon = MoonModel.MOON.at(context);
+            assertEquals(MoonModel.MOON.at(context.daysSinceJ2010(), conversion).info(), moon.info());
+        }
+    }
+}
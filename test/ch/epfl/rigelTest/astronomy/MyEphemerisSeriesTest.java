@@ -0,0 +1,122 @@
+package ch.epfl.rigelTest.astronomy;
+
+import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.CelestialObjectModel;
+import ch.epfl.rigel.astronomy.ChebyshevEphemeris;
+import ch.epfl.rigel.astronomy.EphemerisSeries;
+import ch.epfl.rigel.astronomy.Moon;
+import ch.epfl.rigel.astronomy.MoonModel;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.astronomy.Sun;
+import ch.epfl.rigel.astronomy.SunModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MyEphemerisSeriesTest {
+
+    private static final EclipticToEquatorialConversion CONVERSION =
+            new EclipticToEquatorialConversion(ZonedDateTime.parse("2020-04-17T21:00:00+02:00"));
+
+    private static double[] randomDays(int count) {
+        SplittableRandom rng = new SplittableRandom(2020);
+        double[] days = new double[count];
+        for (int i = 0; i < count; ++i) {
+            days[i] = rng.nextDouble(-20_000, 20_000);
+        }
+        return days;
+    }
+
+    private static List<CelestialObjectModel<? extends CelestialObject>> models() {
+        List<CelestialObjectModel<? extends CelestialObject>> models = new ArrayList<>(PlanetModel.EXTRATERRESTRIAL);
+        models.add(SunModel.SUN);
+        models.add(MoonModel.MOON);
+        return models;
+    }
+
+    private static void assertMatchesObjects(CelestialObjectModel<? extends CelestialObject> model, double[] days,
+                                             EphemerisSeries series, double delta,
+                                             double extraDelta) {
+        for (int i = 0; i < days.length; ++i) {
+            CelestialObject expected = model.at(days[i], CONVERSION);
+            assertEquals(expected.equatorialPos().ra(), series.ra(i), delta);
+            assertEquals(expected.equatorialPos().dec(), series.dec(i), delta);
+            assertEquals(expected.angularSize(), series.angularSize(i), delta);
+            assertEquals(expected.magnitude(), series.magnitude(i), extraDelta);
+            if (expected instanceof Moon) {
+                assertEquals(((Moon) expected).phase(), series.phase(i), extraDelta);
+            } else {
+                assertTrue(Double.isNaN(series.phase(i)));
+            }
+        }
+    }
+
+    @Test
+    void batchEvaluationMatchesObjectEvaluation() {
+        double[] days = randomDays(5000);
+        for (CelestialObjectModel<? extends CelestialObject> model : models()) {
+            EphemerisSeries series = new EphemerisSeries(days.length);
+            model.at(days, CONVERSION, series);
+            assertMatchesObjects(model, days, series, 0, 0);
+        }
+    }
+
+    @Test
+    void cachedBatchEvaluationMatchesModel() throws Exception {
+        double[] days = new double[3000];
+        for (int i = 0; i < days.length; ++i) {
+            days[i] = -300 + i * 0.2;
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (CelestialObjectModel<? extends CelestialObject> model : models()) {
+                ChebyshevEphemeris<? extends CelestialObject> cache = ChebyshevEphemeris.of(model, executor);
+                cache.prefetch(days[0], days[days.length - 1]).get();
+                EphemerisSeries series = new EphemerisSeries(days.length);
+                cache.at(days, CONVERSION, series);
+                assertMatchesObjects(model, days, series, ChebyshevEphemeris.ANGLE_TOLERANCE,
+                        ChebyshevEphemeris.EXTRA_TOLERANCE);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void seriesLargerThanInstantsIsOnlyFilledAtTheirIndices() {
+        EphemerisSeries series = new EphemerisSeries(10);
+        SunModel.SUN.at(new double[]{0, 1}, CONVERSION, series);
+        assertEquals(SunModel.SUN.at(1, CONVERSION).equatorialPos().ra(), series.ra(1));
+        assertEquals(0, series.ra(2));
+    }
+
+    @Test
+    void defaultBatchEvaluationGoesThroughObjects() {
+        double[] days = randomDays(500);
+        CelestialObjectModel<Sun> sun = SunModel.SUN::at;
+        EphemerisSeries series = new EphemerisSeries(days.length);
+        sun.at(days, CONVERSION, series);
+        assertMatchesObjects(SunModel.SUN, days, series, 0, 0);
+
+        CelestialObjectModel<String> notCelestial = (d, conversion) -> "Rigel";
+        assertThrows(IllegalArgumentException.class, () ->
+                notCelestial.at(days, CONVERSION, new EphemerisSeries(days.length)));
+    }
+
+    @Test
+    void batchEvaluationFailsOnTooSmallSeries() {
+        assertThrows(IllegalArgumentException.class, () ->
+                MoonModel.MOON.at(new double[3], CONVERSION, new EphemerisSeries(2)));
+        assertThrows(IllegalArgumentException.class, () -> new EphemerisSeries(-1));
+    }
+}
@@ -5,12 +5,15 @@ import ch.epfl.test.Chronometer;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.InvocationTargetException;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.Month;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.SplittableRandom;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,4 +49,22 @@ class MyEpochTest {
         //assertEquals(-0.196947296,Epoch.J2000.julianCenturiesUntil(d2));
     }
 
+    @Test
+    void primitiveOverloadsMatchZonedDateTime() {
+        SplittableRandom rng = new SplittableRandom(2020);
+        for (int i = 0; i < 10_000; ++i) {
+            long millis = rng.nextLong(-5_000_000_000_000L, 5_000_000_000_000L);
+            ZonedDateTime when = ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis),
+                    ZoneId.of("Europe/Zurich"));
+            for (Epoch epoch : Epoch.values()) {
+                double expected = epoch.daysUntil(when);
+                assertEquals(expected, epoch.daysUntil(millis), 1e-9);
+                assertEquals(expected, epoch.daysUntilJulianDate(Epoch.julianDate(millis)), 1e-9);
+                assertEquals(epoch.julianCenturiesUntil(when), epoch.julianCenturiesUntil(millis), 1e-9 / 36525);
+            }
+        }
+        assertEquals(2_451_545.0, Epoch.julianDate(946_728_000_000L));
+        assertEquals(0, Epoch.J2010.daysUntilJulianDate(2_455_196.5));
+    }
+
 }
\ No newline at end of file
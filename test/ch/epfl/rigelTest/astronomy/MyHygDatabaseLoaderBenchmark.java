@@ -0,0 +1,73 @@
+package ch.epfl.rigelTest.astronomy;
+
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rows per second of the byte-level HYG parser and of the former split-based one (see MyHygDatabaseLoaderTest),
+ * disabled and meant to be run by hand.
+ */
+public class MyHygDatabaseLoaderBenchmark {
+
+    private static final String HYG_CATALOGUE_NAME =
+            "/hygdata_v3.csv";
+    private static final int REPLICATIONS = 24; //About the size of the full HYG database
+    private static final int RUNS = 5;
+
+    @Disabled("Speed run, to be run by hand")
+    @Test
+    void rowsPerSecond() throws IOException {
+        final Path file = Files.createTempFile("hyg", ".csv");
+        try {
+            Files.write(file, hygBytes(REPLICATIONS));
+            int rows = 0;
+            long splitNanos = Long.MAX_VALUE, byteNanos = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; ++run) {
+                long start = System.nanoTime();
+                try (InputStream stream = new FileInputStream(file.toFile())) {
+                    final StarCatalogue.Builder builder = new StarCatalogue.Builder();
+                    MyHygDatabaseLoaderTest.loadWithSplit(stream, builder);
+                    rows = builder.starCount();
+                }
+                splitNanos = Math.min(splitNanos, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                try (InputStream stream = new FileInputStream(file.toFile())) {
+                    assertEquals(rows, new StarCatalogue.Builder()
+                            .loadFrom(stream, HygDatabaseLoader.INSTANCE).starCount());
+                }
+                byteNanos = Math.min(byteNanos, System.nanoTime() - start);
+            }
+            System.out.printf("HYG parsing, %d rows: split %.0f rows/s, byte parser %.0f rows/s%n", rows,
+                    rows * 1e9 / splitNanos, rows * 1e9 / byteNanos);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static byte[] hygBytes(int replications) throws IOException {
+        final byte[] csv;
+        try (InputStream stream = MyHygDatabaseLoaderBenchmark.class.getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            csv = stream.readAllBytes();
+        }
+        int bodyStart = 0;
+        while (csv[bodyStart++] != '\n') ;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(csv, 0, csv.length);
+        for (int i = 1; i < replications; ++i) {
+            out.write(csv, bodyStart, csv.length - bodyStart);
+        }
+        return out.toByteArray();
+    }
+}
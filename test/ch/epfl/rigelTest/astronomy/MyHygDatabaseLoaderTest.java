@@ -5,11 +5,16 @@ import ch.epfl.rigel.astronomy.Star;
 import ch.epfl.rigel.astronomy.StarCatalogue;
 import org.junit.jupiter.api.Test;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MyHygDatabaseLoaderTest {
     private static final String HYG_CATALOGUE_NAME =
@@ -75,4 +80,70 @@ public class MyHygDatabaseLoaderTest {
             }
         }
     }
+
+    @Test
+    void byteParserMatchesSplitParser() throws IOException {
+        final byte[] csv;
+        try (InputStream hygStream = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            csv = hygStream.readAllBytes();
+        }
+        final StarCatalogue.Builder expected = new StarCatalogue.Builder();
+        loadWithSplit(new ByteArrayInputStream(csv), expected);
+        final StarCatalogue.Builder actual = new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(csv), HygDatabaseLoader.INSTANCE);
+        assertSameColumns(expected.build(), actual.build());
+
+        final String crlf = new String(csv, StandardCharsets.US_ASCII).replace("\n", "\r\n");
+        assertSameColumns(expected.build(), new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(crlf.getBytes(StandardCharsets.US_ASCII)),
+                        HygDatabaseLoader.INSTANCE).build());
+    }
+
+    @Test
+    void hygDatabaseLoaderClosesItsStream() throws IOException {
+        final boolean[] closed = {false};
+        final byte[] csv;
+        try (InputStream hygStream = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            csv = hygStream.readAllBytes();
+        }
+        new StarCatalogue.Builder().loadFrom(new ByteArrayInputStream(csv) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        }, HygDatabaseLoader.INSTANCE);
+        assertTrue(closed[0]);
+    }
+
+    private static void assertSameColumns(StarCatalogue expected, StarCatalogue actual) {
+        assertEquals(expected.starCount(), actual.starCount());
+        for (int i = 0; i < expected.starCount(); ++i) {
+            assertEquals(expected.hipparcosId(i), actual.hipparcosId(i));
+            assertEquals(expected.name(i), actual.name(i));
+            assertEquals(expected.ra(i), actual.ra(i));
+            assertEquals(expected.dec(i), actual.dec(i));
+            assertEquals(expected.magnitude(i), actual.magnitude(i));
+            assertEquals(expected.colorTemperature(i), actual.colorTemperature(i));
+        }
+    }
+
+    /**
+     * The former loader, splitting decoded lines (also timed by MyHygDatabaseLoaderBenchmark)
+     */
+    static void loadWithSplit(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream,
+                StandardCharsets.US_ASCII))) {
+            reader.readLine();
+            String lineInFile;
+            while ((lineInFile = reader.readLine()) != null) {
+                final String[] line = lineInFile.split(",");
+                final String name = !line[6].isEmpty() ? line[6] :
+                        (!line[27].isEmpty() ? line[27] : "?") + " " + line[29];
+                builder.addStar(line[1].isEmpty() ? 0 : Integer.parseInt(line[1]), name,
+                        Double.parseDouble(line[23]), Double.parseDouble(line[24]),
+                        line[13].isEmpty() ? 0 : Float.parseFloat(line[13]),
+                        line[16].isEmpty() ? 0 : Float.parseFloat(line[16]));
+            }
+        }
+    }
 }
@@ -0,0 +1,332 @@
+package ch.epfl.rigelTest.astronomy;
+
+import ch.epfl.rigel.astronomy.AsterismLoader;
+import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.Epoch;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.Planet;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.astronomy.SkyPipeline;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.CartesianCoordinates;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static ch.epfl.rigel.coordinates.PlanarTransformation.euclideanDistSquared;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MyObservedSkyTest {
+
+    private static final String HYG_CATALOGUE_NAME =
+            "/hygdata_v3.csv";
+    private static final String AST_CATALOGUE_NAME =
+            "/asterisms.txt";
+    private static final double DELTA = 1e-9;
+    private static final ZonedDateTime TIME = ZonedDateTime.parse("2020-04-04T00:00:00Z");
+    private static final GeographicCoordinates WHERE = GeographicCoordinates.ofDeg(30, 45);
+    private static final StereographicProjection PROJECTION =
+            new StereographicProjection(HorizontalCoordinates.ofDeg(20, 22));
+
+    private static StarCatalogue catalogue;
+    private static ObservedSky sky;
+
+    @BeforeAll
+    static void init() throws IOException {
+        try (InputStream hygStream = MyObservedSkyTest.class.getResourceAsStream(HYG_CATALOGUE_NAME);
+             InputStream astStream = MyObservedSkyTest.class.getResourceAsStream(AST_CATALOGUE_NAME)) {
+            catalogue = new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(astStream, AsterismLoader.INSTANCE)
+                    .build();
+        }
+        sky = new ObservedSky(TIME, WHERE, PROJECTION, catalogue, (ObservedSky) null);
+    }
+
+    @Test
+    void starPositionsAreAlignedWithCatalogue() {
+        EquatorialToHorizontalConversion conversion = new EquatorialToHorizontalConversion(TIME, WHERE);
+        assertEquals(catalogue.starCount(), sky.starCount());
+        for (int i = 0; i < sky.starCount(); ++i) {
+            CartesianCoordinates expected = conversion.andThen(PROJECTION).apply(catalogue.star(i).equatorialPos());
+            assertEquals(expected.x(), sky.x(i), DELTA);
+            assertEquals(expected.y(), sky.y(i), DELTA);
+            assertEquals(sky.x(i), sky.starsMap().get(catalogue.star(i)).x());
+        }
+    }
+
+    @Test
+    void positionsOfMatchesMapObjectsToPosition() {
+        EclipticToEquatorialConversion eclToEqu = new EclipticToEquatorialConversion(TIME);
+        List<Planet> planets = PlanetModel.EXTRATERRESTRIAL.stream()
+                .map(model -> model.at(Epoch.J2010.daysUntil(TIME), eclToEqu))
+                .collect(Collectors.toList());
+        double[] x = new double[planets.size()], y = new double[planets.size()];
+        sky.positionsOf(planets, x, y);
+
+        Map<Planet, CartesianCoordinates> expected = sky.mapObjectsToPosition(planets);
+        for (int i = 0; i < planets.size(); ++i) {
+            assertEquals(expected.get(planets.get(i)).x(), x[i]);
+            assertEquals(expected.get(planets.get(i)).y(), y[i]);
+        }
+    }
+
+    @Test
+    void objectClosestToMatchesExhaustiveSearch() {
+        SplittableRandom rng = new SplittableRandom(2020);
+        for (int i = 0; i < 2000; ++i) {
+            CartesianCoordinates point = CartesianCoordinates.of(rng.nextDouble(-6, 6), rng.nextDouble(-6, 6));
+            double maxDistance = i % 10 == 0 ? rng.nextDouble(0, 3) : rng.nextDouble(0, 0.05);
+            //Covers queries around and across the border of the star grid, whose cells span [-4, 4]
+
+            CelestialObject expected = null;
+            double closest = maxDistance * maxDistance;
+            for (Map.Entry<CelestialObject, CartesianCoordinates> e : sky.celestialObjMap().entrySet()) {
+                double distSquared = euclideanDistSquared(e.getValue(), point);
+                if (distSquared < closest || (distSquared == closest && expected == null)) {
+                    closest = distSquared;
+                    expected = e.getKey();
+                }
+            }
+
+            Optional<CelestialObject> actual = sky.objectClosestTo(point, maxDistance);
+            assertEquals(expected == null, actual.isEmpty());
+            if (expected != null) {
+                assertEquals(closest, euclideanDistSquared(sky.celestialObjMap().get(actual.get()), point));
+            }
+        }
+    }
+
+    @Test
+    void objectClosestToFindsEveryStar() {
+        for (int i = 0; i < sky.starCount(); i += 7) {
+            Optional<CelestialObject> found = sky.objectClosestTo(CartesianCoordinates.of(sky.x(i), sky.y(i)), 0);
+            assertEquals(0, euclideanDistSquared(sky.celestialObjMap().get(found.orElseThrow()),
+                    CartesianCoordinates.of(sky.x(i), sky.y(i))));
+        }
+        assertSame(sky.sun(), sky.objectClosestTo(sky.sunPosition(), 1e-12).orElseThrow());
+    }
+
+    @Test
+    void starIndicesWithinMatchesExhaustiveSearch() {
+        SplittableRandom rng = new SplittableRandom(2021);
+        for (int i = 0; i < 500; ++i) {
+            CartesianCoordinates point = CartesianCoordinates.of(rng.nextDouble(-6, 6), rng.nextDouble(-6, 6));
+            double radius = rng.nextDouble(0, 1);
+            int[] expected = IntStream.range(0, sky.starCount())
+                    .filter(j -> euclideanDistSquared(CartesianCoordinates.of(sky.x(j), sky.y(j)), point)
+                            <= radius * radius)
+                    .toArray();
+            assertArrayEquals(expected, sky.starIndicesWithin(point, radius));
+        }
+    }
+
+    @Test
+    void cullingKeepsEveryStarInView() {
+        double fieldOfView = Math.toRadians(100);
+        double scale = 800 / StereographicProjection.applyToAngle(fieldOfView);
+        ObservedSky culled = new ObservedSky(TIME, WHERE, PROJECTION, catalogue,
+                ObservedSky.viewRadius(fieldOfView, 800, 600), false, null);
+
+        assertEquals(catalogue.starCount(), culled.processedStarCount() + culled.culledStarCount());
+        assertTrue(culled.culledStarCount() > 0);
+        assertEquals(0, sky.culledStarCount());
+        int processed = 0;
+        for (int i = 0; i < sky.starCount(); ++i) {
+            //Whatever the canvas' rotation, a visible star is within its half diagonal of the center
+            if (Math.hypot(sky.x(i), sky.y(i)) * scale <= 500) {
+                assertEquals(sky.x(i), culled.x(i), DELTA);
+                assertEquals(sky.y(i), culled.y(i), DELTA);
+            }
+            if (!Double.isNaN(culled.x(i))) {
+                assertEquals(sky.x(i), culled.x(i), DELTA);
+                ++processed;
+            }
+        }
+        assertEquals(culled.processedStarCount(), processed);
+    }
+
+    @Test
+    void cullingBelowHorizonOnlyKeepsVisibleStars() {
+        EquatorialToHorizontalConversion conversion = new EquatorialToHorizontalConversion(TIME, WHERE);
+        ObservedSky culled = new ObservedSky(TIME, WHERE, PROJECTION, catalogue, Math.PI, true, null);
+        int processed = 0;
+        for (int i = 0; i < sky.starCount(); ++i) {
+            boolean aboveHorizon = conversion.apply(catalogue.star(i).equatorialPos()).alt() >= 0;
+            assertEquals(aboveHorizon, !Double.isNaN(culled.x(i)));
+            if (aboveHorizon) ++processed;
+        }
+        assertEquals(processed, culled.processedStarCount());
+        assertTrue(culled.objectClosestTo(CartesianCoordinates.of(0, -5), 10).isPresent());
+    }
+
+    @Test
+    void viewRadiusFailsOnInvalidRadius() {
+        assertEquals(Math.PI, ObservedSky.viewRadius(Math.toRadians(100), 0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ObservedSky(TIME, WHERE, PROJECTION, catalogue, 4, false, null));
+    }
+
+    @Test
+    void limitingMagnitudeLeavesOutFaintStarsOnly() {
+        SkyPipeline.HorizontalSky horizontal = new SkyPipeline(catalogue).horizontal(TIME, WHERE);
+        for (double viewRadius : new double[]{Math.PI, 1.2, 0.4}) {
+            for (double limit : new double[]{2, 4.5, 7}) {
+                ObservedSky limited = new ObservedSky(horizontal, PROJECTION, catalogue, viewRadius, false, limit,
+                        null);
+                ObservedSky unlimited = new ObservedSky(horizontal, PROJECTION, catalogue, viewRadius, false,
+                        null);
+                int processed = 0;
+                for (int i = 0; i < catalogue.starCount(); ++i) {
+                    if (!Double.isNaN(limited.x(i))) {
+                        ++processed;
+                        assertEquals(sky.x(i), limited.x(i), DELTA);
+                        assertEquals(sky.y(i), limited.y(i), DELTA);
+                        assertTrue(catalogue.magnitude(i) <= limit || isAsterismStar(i));
+                    } else {
+                        //Only faint stars are lost, compared to the same view without limit
+                        assertTrue(Double.isNaN(unlimited.x(i)) || catalogue.magnitude(i) > limit);
+                    }
+                }
+                assertEquals(limited.processedStarCount(), processed);
+            }
+        }
+    }
+
+    @Test
+    void limitedSkyOnlyProcessesAboutTheBrightStars() {
+        SkyPipeline.HorizontalSky horizontal = new SkyPipeline(catalogue).horizontal(TIME, WHERE);
+        ObservedSky limited = new ObservedSky(horizontal, PROJECTION, catalogue, Math.PI, false, 3, null);
+        int asterismStars = (int) catalogue.asterisms().stream()
+                .flatMap(a -> catalogue.asterismIndices(a).stream()).distinct().count();
+        assertTrue(limited.processedStarCount() <= catalogue.brighterThanCount(3) + asterismStars);
+    }
+
+    @Test
+    void limitingMagnitudeRisesSmoothlyWhenZoomingIn() {
+        double previous = Double.NEGATIVE_INFINITY;
+        for (double fov = 150; fov >= 30; fov -= 0.5) {
+            double limit = ObservedSky.limitingMagnitude(Math.toRadians(fov), 800);
+            assertTrue(limit > previous);
+            if (previous != Double.NEGATIVE_INFINITY) assertTrue(limit - previous < 0.1);
+            previous = limit;
+        }
+        assertTrue(ObservedSky.limitingMagnitude(Math.toRadians(100), 1600)
+                > ObservedSky.limitingMagnitude(Math.toRadians(100), 800));
+        assertEquals(Double.POSITIVE_INFINITY, ObservedSky.limitingMagnitude(Math.toRadians(100), 0));
+        assertThrows(IllegalArgumentException.class, () -> new ObservedSky(
+                new SkyPipeline(catalogue).horizontal(TIME, WHERE), PROJECTION, catalogue, Math.PI, false,
+                Double.NaN, null));
+    }
+
+    private static boolean isAsterismStar(int index) {
+        return catalogue.asterisms().stream().anyMatch(a -> catalogue.asterismIndices(a).contains(index));
+    }
+
+    @Test
+    void asterismsOutOfViewAreNotVisible() {
+        SkyPipeline.HorizontalSky horizontal = new SkyPipeline(catalogue).horizontal(TIME, WHERE);
+        double viewRadius = 0.5;
+        ObservedSky culled = new ObservedSky(horizontal, PROJECTION, catalogue, viewRadius, false, null);
+        int invisible = 0;
+        for (int a = 0; a < catalogue.asterismCount(); ++a) {
+            assertTrue(sky.asterismMayBeVisible(a));
+            if (!culled.asterismMayBeVisible(a)) {
+                ++invisible;
+                //None of its stars is within the view radius of the center of projection
+                for (int k = catalogue.asterismEdgeStart(a); k < catalogue.asterismEdgeStart(a + 1); ++k) {
+                    int i = catalogue.asterismEdgeStar(k);
+                    double planeRadius = Math.hypot(culled.x(i), culled.y(i));
+                    assertTrue(2 * Math.atan(planeRadius) > viewRadius);
+                }
+            }
+        }
+        assertTrue(invisible > 0);
+    }
+
+    @Test
+    void recycledSkyFailsFast() {
+        ObservedSky retired = new ObservedSky(TIME, WHERE, PROJECTION, catalogue, (ObservedSky) null);
+        ObservedSky recycling = new ObservedSky(TIME, WHERE, PROJECTION, catalogue, retired);
+        for (int i = 0; i < sky.starCount(); ++i) {
+            assertEquals(sky.x(i), recycling.x(i));
+            assertEquals(sky.y(i), recycling.y(i));
+        }
+
+        CartesianCoordinates point = CartesianCoordinates.of(recycling.x(0), recycling.y(0));
+        assertThrows(IllegalStateException.class, () -> retired.x(0));
+        assertThrows(IllegalStateException.class, () -> retired.y(0));
+        assertThrows(IllegalStateException.class, () -> retired.objectClosestTo(point, 1));
+        assertThrows(IllegalStateException.class, () -> retired.starIndicesWithin(point, 1));
+        assertThrows(IllegalStateException.class, retired::starsMap);
+        assertTrue(recycling.objectClosestTo(point, 1).isPresent());
+    }
+
+    @Test
+    void computedStarsHoldEveryPosition() {
+        SkyPipeline.HorizontalSky horizontal = new SkyPipeline(catalogue).horizontal(TIME, WHERE);
+        ObservedSky inView = new ObservedSky(horizontal, PROJECTION, catalogue, 0.5, false, null);
+        ObservedSky bright = new ObservedSky(horizontal, PROJECTION, catalogue, Math.PI, false, 3, null);
+        assertEquals(sky.starCount(), sky.computedStarCount());
+        assertTrue(inView.computedStarCount() < catalogue.starCount() / 2);
+        assertTrue(bright.computedStarCount() < catalogue.starCount() / 2);
+        for (ObservedSky culled : List.of(inView, bright,
+                new ObservedSky(horizontal, PROJECTION, catalogue, Math.PI, true, null))) {
+            Set<Integer> computed = IntStream.range(0, culled.computedStarCount())
+                    .map(culled::computedStar).boxed().collect(Collectors.toSet());
+            assertEquals(culled.computedStarCount(), computed.size());
+            for (int i = 0; i < catalogue.starCount(); ++i) {
+                assertTrue(computed.contains(i) || Double.isNaN(culled.x(i)));
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> sky.computedStar(sky.computedStarCount()));
+    }
+
+    @Test
+    void recycledSkiesMatchFreshOnes() {
+        SkyPipeline.HorizontalSky horizontal = new SkyPipeline(catalogue).horizontal(TIME, WHERE);
+        StereographicProjection elsewhere = new StereographicProjection(HorizontalCoordinates.ofDeg(200, 60));
+        //Full sky, then culled ones looking elsewhere, limited, below the horizon, then a full one again
+        List<Function<ObservedSky, ObservedSky>> skies = List.of(
+                recycled -> new ObservedSky(horizontal, PROJECTION, catalogue, Math.PI, false, recycled),
+                recycled -> new ObservedSky(horizontal, PROJECTION, catalogue, 0.6, false, recycled),
+                recycled -> new ObservedSky(horizontal, elsewhere, catalogue, 0.6, false, recycled),
+                recycled -> new ObservedSky(horizontal, elsewhere, catalogue, 1.5, false, 3, recycled),
+                recycled -> new ObservedSky(horizontal, PROJECTION, catalogue, Math.PI, true, recycled),
+                recycled -> new ObservedSky(horizontal, PROJECTION, catalogue, Math.PI, false, recycled));
+        ObservedSky previous = null;
+        for (Function<ObservedSky, ObservedSky> skyOf : skies) {
+            ObservedSky fresh = skyOf.apply(null);
+            ObservedSky recycling = skyOf.apply(previous);
+            for (int i = 0; i < catalogue.starCount(); ++i) {
+                assertEquals(fresh.x(i), recycling.x(i));
+                assertEquals(fresh.y(i), recycling.y(i));
+            }
+            CartesianCoordinates point = CartesianCoordinates.of(0.1, -0.2);
+            assertArrayEquals(fresh.starIndicesWithin(point, 0.5), recycling.starIndicesWithin(point, 0.5));
+            assertEquals(fresh.objectClosestTo(point, 1), recycling.objectClosestTo(point, 1));
+            previous = recycling;
+        }
+    }
+}
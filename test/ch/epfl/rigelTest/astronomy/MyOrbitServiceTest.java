@@ -0,0 +1,146 @@
+package ch.epfl.rigelTest.astronomy;
+
+import ch.epfl.rigel.astronomy.Orbit;
+import ch.epfl.rigel.astronomy.OrbitService;
+import ch.epfl.rigel.astronomy.Planet;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MyOrbitServiceTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2020-04-17T21:00:00+02:00");
+
+    /**
+     * Runs its tasks when told to, in submission order or newest first
+     */
+    private static final class ManualExecutor extends AbstractExecutorService {
+
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+        void runAll(boolean newestFirst) {
+            while (!tasks.isEmpty()) {
+                (newestFirst ? tasks.pollLast() : tasks.pollFirst()).run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    private static void assertWindowEndsAt(ZonedDateTime when, Orbit<Planet> actual) {
+        Orbit<Planet> fresh = new Orbit<>(when, 5, 30, PlanetModel.JUPITER, new EclipticToEquatorialConversion(START));
+        double[][] e = new double[3][actual.length()], a = new double[3][actual.length()];
+        fresh.representatives(fresh.length(), 1, e[0], e[1], e[2]);
+        actual.representatives(actual.length(), 1, a[0], a[1], a[2]);
+        for (int c = 0; c < 3; ++c) {
+            for (int i = 0; i < actual.length(); ++i) {
+                assertEquals(e[c][i], a[c][i], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void precomputeCachesAnOrbitPerModel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            OrbitService service = new OrbitService(5, 30, executor);
+            List<Orbit<?>> orbits = service.precompute(START).get();
+            assertEquals(OrbitService.MODELS.size(), orbits.size());
+            assertEquals(OrbitService.MODELS.size(), service.cachedOrbitCount());
+
+            Orbit<Planet> mars = service.orbit(PlanetModel.MARS, START.plusDays(3)).get();
+            assertSame(orbits.get(OrbitService.MODELS.indexOf(PlanetModel.MARS)), mars);
+            //Another resolution is another orbit
+            assertEquals(30 * 24 / 10, service.orbit(PlanetModel.MARS, START, 10, 30).get().length());
+            assertEquals(OrbitService.MODELS.size() + 1, service.cachedOrbitCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void cachedOrbitIsMovedToTheAskedInstant() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            OrbitService service = new OrbitService(5, 30, executor);
+            service.orbit(PlanetModel.JUPITER, START).get();
+            ZonedDateTime later = START.plusDays(400);
+            assertWindowEndsAt(later, service.orbit(PlanetModel.JUPITER, later).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void olderRequestsNeverMoveTheOrbitBack() {
+        ManualExecutor executor = new ManualExecutor();
+        OrbitService service = new OrbitService(5, 30, executor);
+        CompletableFuture<Orbit<Planet>> first = service.orbit(PlanetModel.JUPITER, START);
+        executor.runAll(false);
+        Orbit<Planet> orbit = first.join();
+
+        //The newer request's move runs first, the older one's must then be dropped. Instants are whole steps away
+        //from START, where the moved orbit's steps fall
+        ZonedDateTime t1 = START.plusDays(400), t2 = START.plusHours(5 * 15);
+        CompletableFuture<Orbit<Planet>> older = service.orbit(PlanetModel.JUPITER, t1);
+        CompletableFuture<Orbit<Planet>> newer = service.orbit(PlanetModel.JUPITER, t2);
+        executor.runAll(true);
+        assertSame(orbit, older.join());
+        assertSame(orbit, newer.join());
+        assertWindowEndsAt(t2, orbit);
+
+        //Same in request order
+        ZonedDateTime t3 = START.plusDays(500), t4 = START.plusHours(5 * 50);
+        service.orbit(PlanetModel.JUPITER, t3);
+        service.orbit(PlanetModel.JUPITER, t4);
+        executor.runAll(false);
+        assertWindowEndsAt(t4, orbit);
+    }
+
+    @Test
+    void constructorFailsOnInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new OrbitService(0, 30, (ExecutorService) null));
+        assertThrows(IllegalArgumentException.class, () -> new OrbitService(5, 0, (ExecutorService) null));
+    }
+}
@@ -0,0 +1,80 @@
+package ch.epfl.rigelTest.astronomy;
+
+import ch.epfl.rigel.astronomy.Epoch;
+import ch.epfl.rigel.astronomy.Moon;
+import ch.epfl.rigel.astronomy.MoonModel;
+import ch.epfl.rigel.astronomy.Orbit;
+import ch.epfl.rigel.astronomy.Planet;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MyOrbitTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2020-04-17T21:00:00+02:00");
+    private static final EclipticToEquatorialConversion CONVERSION = new EclipticToEquatorialConversion(START);
+    private static final double DELTA = 1e-9;
+
+    private static void assertSameRepresentatives(Orbit<?> expected, Orbit<?> actual, int step) {
+        int count = expected.representativeCount(expected.length(), step);
+        double[][] e = new double[3][count], a = new double[3][count];
+        assertEquals(count, expected.representatives(expected.length(), step, e[0], e[1], e[2]));
+        assertEquals(count, actual.representatives(actual.length(), step, a[0], a[1], a[2]));
+        for (int c = 0; c < 3; ++c) {
+            for (int i = 0; i < count; ++i) {
+                assertEquals(e[c][i], a[c][i], DELTA);
+            }
+        }
+    }
+
+    @Test
+    void representativesAreTheModelsPositionsGoingBackInTime() {
+        Orbit<Planet> orbit = new Orbit<>(START, 5, 100, PlanetModel.MARS, CONVERSION);
+        assertEquals(480, orbit.length());
+
+        int count = orbit.representativeCount(200, 7);
+        assertEquals(29, count);
+        double[] x = new double[count], y = new double[count], z = new double[count];
+        orbit.representatives(200, 7, x, y, z);
+        for (int i = 0; i < count; ++i) {
+            EquatorialCoordinates expected = PlanetModel.MARS
+                    .at(Epoch.J2010.daysUntil(START) - i * 7 * 5 / 24d, CONVERSION).equatorialPos();
+            assertEquals(Math.cos(expected.dec()) * Math.cos(expected.ra()), x[i], DELTA);
+            assertEquals(Math.cos(expected.dec()) * Math.sin(expected.ra()), y[i], DELTA);
+            assertEquals(Math.sin(expected.dec()), z[i], DELTA);
+        }
+    }
+
+    @Test
+    void advancingMatchesAFreshOrbit() {
+        Orbit<Moon> orbit = new Orbit<>(START, 5, 30, MoonModel.MOON, CONVERSION);
+        ZonedDateTime when = START;
+        for (int hours : new int[]{3, 4, 50, 1, 400, 2000, -700, -3}) {
+            when = when.plusHours(hours);
+            orbit.advanceTo(when);
+        }
+        //Time is now a whole number of steps after the start
+        assertEquals(0, START.until(when, ChronoUnit.HOURS) % 5);
+        Orbit<Moon> fresh = new Orbit<>(when, 5, 30, MoonModel.MOON, CONVERSION);
+        assertSameRepresentatives(fresh, orbit, 1);
+        assertSameRepresentatives(fresh, orbit, 11);
+    }
+
+    @Test
+    void representativesFailOnInvalidArguments() {
+        Orbit<Planet> orbit = new Orbit<>(START, 5, 10, PlanetModel.VENUS, CONVERSION);
+        assertThrows(IllegalArgumentException.class, () -> orbit.representativeCount(10, 0));
+        assertThrows(IllegalArgumentException.class, () ->
+                orbit.representatives(20, 1, new double[19], new double[20], new double[20]));
+        assertThrows(IllegalArgumentException.class, () ->
+                new Orbit<>(START, 0, 10, PlanetModel.VENUS, CONVERSION));
+        assertEquals(orbit.length(), orbit.representativeCount(Integer.MAX_VALUE, 1));
+    }
+}
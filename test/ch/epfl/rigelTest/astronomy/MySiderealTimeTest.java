@@ -1,13 +1,16 @@
 package ch.epfl.rigelTest.astronomy;
 
+import ch.epfl.rigel.astronomy.Epoch;
 import ch.epfl.rigel.astronomy.SiderealTime;
 import ch.epfl.rigel.coordinates.GeographicCoordinates;
 import ch.epfl.rigel.math.Angle;
 import org.junit.jupiter.api.Test;
 
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -38,4 +41,26 @@ class MySiderealTimeTest {
         assertEquals(geoCoords.lon() + SiderealTime.greenwich(date),
                 SiderealTime.local(date,geoCoords));
     }
+
+    @Test
+    void primitiveOverloadsMatchZonedDateTime() {
+        GeographicCoordinates geoCoords = GeographicCoordinates.ofDeg(6.57, 46.52);
+        SplittableRandom rng = new SplittableRandom(2020);
+        for (int i = 0; i < 10_000; ++i) {
+            long millis = rng.nextLong(-5_000_000_000_000L, 5_000_000_000_000L);
+            ZonedDateTime when = ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.of("Asia/Kolkata"));
+            //1e-9 days of sidereal rotation
+            double delta = 1e-9 * Angle.TAU * 1.002737909;
+            assertEquals(SiderealTime.greenwich(when), SiderealTime.greenwich(millis), EPSILON);
+            assertEquals(0, angularDistance(SiderealTime.greenwich(when),
+                    SiderealTime.greenwichJulianDate(Epoch.julianDate(millis))), delta);
+            assertEquals(SiderealTime.local(when, geoCoords), SiderealTime.local(millis, geoCoords), EPSILON);
+            assertEquals(0, angularDistance(SiderealTime.local(when, geoCoords),
+                    SiderealTime.localJulianDate(Epoch.julianDate(millis), geoCoords)), delta);
+        }
+    }
+
+    private static double angularDistance(double a, double b) {
+        return Math.abs(Angle.normalizePositive(a - b + Math.PI) - Math.PI);
+    }
 }
\ No newline at end of file
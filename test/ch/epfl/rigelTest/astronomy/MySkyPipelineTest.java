@@ -0,0 +1,87 @@
+package ch.epfl.rigelTest.astronomy;
+
+import ch.epfl.rigel.astronomy.AsterismLoader;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.Planet;
+import ch.epfl.rigel.astronomy.SkyPipeline;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.CartesianCoordinates;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class MySkyPipelineTest {
+
+    private static final ZonedDateTime TIME = ZonedDateTime.parse("2020-04-04T00:00:00Z");
+    private static final GeographicCoordinates WHERE = GeographicCoordinates.ofDeg(30, 45);
+    private static final StereographicProjection PROJECTION =
+            new StereographicProjection(HorizontalCoordinates.ofDeg(20, 22));
+    private static final double DELTA = 1e-12;
+
+    private static StarCatalogue catalogue;
+
+    @BeforeAll
+    static void init() throws IOException {
+        try (InputStream hygStream = MySkyPipelineTest.class.getResourceAsStream("/hygdata_v3.csv");
+             InputStream astStream = MySkyPipelineTest.class.getResourceAsStream("/asterisms.txt")) {
+            catalogue = new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(astStream, AsterismLoader.INSTANCE)
+                    .build();
+        }
+    }
+
+    @Test
+    void stagesAreOnlyRecomputedWhenTheirInputsChange() {
+        SkyPipeline pipeline = new SkyPipeline(catalogue);
+        SkyPipeline.HorizontalSky horizontal = pipeline.horizontal(TIME, WHERE);
+
+        //Same instant in another zone, same place given anew
+        assertSame(horizontal, pipeline.horizontal(TIME.withZoneSameInstant(ZoneId.of("Europe/Zurich")),
+                GeographicCoordinates.ofDeg(30, 45)));
+
+        SkyPipeline.HorizontalSky moved = pipeline.horizontal(TIME, GeographicCoordinates.ofDeg(31, 45));
+        assertNotSame(horizontal, moved);
+        assertSame(horizontal.ephemeris(), moved.ephemeris());
+
+        assertNotSame(horizontal.ephemeris(), pipeline.horizontal(TIME.plusMinutes(1), WHERE).ephemeris());
+    }
+
+    @Test
+    void observeMatchesFreshSky() {
+        SkyPipeline pipeline = new SkyPipeline(catalogue);
+        ObservedSky expected = new ObservedSky(TIME, WHERE, PROJECTION, catalogue, (ObservedSky) null);
+        pipeline.observe(TIME, WHERE, new StereographicProjection(HorizontalCoordinates.ofDeg(200, 40)),
+                Math.PI, false, null);
+        ObservedSky actual = pipeline.observe(TIME, WHERE, PROJECTION, Math.PI, false, null);
+
+        for (int i = 0; i < expected.starCount(); ++i) {
+            assertEquals(expected.x(i), actual.x(i), DELTA);
+            assertEquals(expected.y(i), actual.y(i), DELTA);
+        }
+        assertEquals(expected.sunPosition().x(), actual.sunPosition().x(), DELTA);
+        assertEquals(expected.moonPosition().y(), actual.moonPosition().y(), DELTA);
+        assertEquals(expected.sun().name(), actual.sun().name());
+        assertEquals(7, actual.planetsMap().size());
+        for (Map.Entry<Planet, CartesianCoordinates> entry : expected.planetsMap().entrySet()) {
+            CartesianCoordinates position = actual.planetsMap().entrySet().stream()
+                    .filter(e -> e.getKey().name().equals(entry.getKey().name()))
+                    .findFirst().orElseThrow().getValue();
+            assertEquals(entry.getValue().x(), position.x(), DELTA);
+            assertEquals(entry.getValue().y(), position.y(), DELTA);
+        }
+    }
+}
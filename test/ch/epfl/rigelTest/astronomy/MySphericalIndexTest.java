@@ -0,0 +1,99 @@
+package ch.epfl.rigelTest.astronomy;
+
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.SphericalIndex;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static java.lang.Math.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MySphericalIndexTest {
+
+    private static final String HYG_CATALOGUE_NAME =
+            "/hygdata_v3.csv";
+    private static StarCatalogue catalogue;
+    private static SphericalIndex index;
+
+    @BeforeAll
+    static void init() throws IOException {
+        try (InputStream hygStream = MySphericalIndexTest.class.getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+        }
+        index = catalogue.sphericalIndex();
+    }
+
+    @Test
+    void cellsPartitionTheCatalogue() {
+        int[] all = IntStream.range(0, index.cellCount())
+                .flatMap(cell -> Arrays.stream(index.starsInCell(cell)))
+                .sorted().toArray();
+        assertArrayEquals(IntStream.range(0, catalogue.starCount()).toArray(), all);
+
+        for (int i = 0; i < catalogue.starCount(); i += 13) {
+            final int star = i;
+            assertTrue(Arrays.stream(index.starsInCell(index.cellOf(catalogue.ra(i), catalogue.dec(i))))
+                    .anyMatch(j -> j == star));
+        }
+    }
+
+    @Test
+    void coneMatchesExhaustiveSearch() {
+        SplittableRandom rng = new SplittableRandom(2020);
+        for (int trial = 0; trial < 300; ++trial) {
+            double ra = rng.nextDouble(0, 2 * PI);
+            double dec = trial % 10 == 0 ? copySign(rng.nextDouble(1.4, PI / 2), rng.nextDouble(-1, 1))
+                    : rng.nextDouble(-PI / 2, PI / 2);
+            double radius = trial % 7 == 0 ? rng.nextDouble(0, PI) : rng.nextDouble(0, 0.3);
+            //Also covers cones around the poles, containing them, and nearly whole skies
+
+            int[] expected = IntStream.range(0, catalogue.starCount())
+                    .filter(i -> angularDistance(i, ra, dec) <= radius - 1e-12)
+                    .toArray();
+            int[] actual = index.cone(ra, dec, radius);
+            int[] strict = Arrays.stream(actual).filter(i -> angularDistance(i, ra, dec) <= radius - 1e-12).toArray();
+            assertArrayEquals(expected, strict);
+            for (int i : actual) {
+                assertTrue(angularDistance(i, ra, dec) <= radius + 1e-12);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> index.cone(0, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> index.cone(0, 0, 4));
+    }
+
+    @Test
+    void nearestMatchesExhaustiveSearch() {
+        SplittableRandom rng = new SplittableRandom(2021);
+        for (int trial = 0; trial < 100; ++trial) {
+            double ra = rng.nextDouble(0, 2 * PI);
+            double dec = rng.nextDouble(-PI / 2, PI / 2);
+            int k = 1 + rng.nextInt(50);
+
+            double[] expected = IntStream.range(0, catalogue.starCount()).boxed()
+                    .sorted(Comparator.comparingDouble(i -> angularDistance(i, ra, dec)))
+                    .limit(k)
+                    .mapToDouble(i -> angularDistance(i, ra, dec)).toArray();
+            double[] actual = Arrays.stream(index.nearest(ra, dec, k)).mapToDouble(i -> angularDistance(i, ra, dec))
+                    .toArray();
+            assertArrayEquals(expected, actual, 1e-12);
+        }
+        assertEquals(0, index.nearest(1, 1, 0).length);
+        assertEquals(catalogue.starCount(), index.nearest(1, 1, Integer.MAX_VALUE).length);
+    }
+
+    private static double angularDistance(int i, double ra, double dec) {
+        return acos(max(-1, min(1, sin(dec) * sin(catalogue.dec(i))
+                + cos(dec) * cos(catalogue.dec(i)) * cos(ra - catalogue.ra(i)))));
+    }
+}
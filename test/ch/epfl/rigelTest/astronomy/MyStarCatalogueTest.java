@@ -15,10 +15,13 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MyStarCatalogueTest {
 
@@ -66,4 +69,87 @@ public class MyStarCatalogueTest {
                 new Asterism(List.of(new Star(242,"lol", EquatorialCoordinates.of(0,0),0,0)))
         )));
     }
+
+    @Test
+    void columnsMatchMaterializedStars() {
+        assertEquals(catalogue.stars().size(), catalogue.starCount());
+        for (int i = 0; i < catalogue.starCount(); ++i) {
+            Star star = catalogue.stars().get(i);
+            assertEquals(star.hipparcosId(), catalogue.hipparcosId(i));
+            assertEquals(star.name(), catalogue.name(i));
+            assertEquals(star.equatorialPos().ra(), catalogue.ra(i));
+            assertEquals(star.equatorialPos().dec(), catalogue.dec(i));
+            assertEquals(star.magnitude(), catalogue.magnitude(i));
+            assertEquals(star.colorTemperature(), catalogue.colorTemperature(i));
+        }
+    }
+
+    @Test
+    void lazyStarsKeepTheirIdentity() {
+        assertSame(catalogue.star(42), catalogue.stars().get(42));
+        assertSame(catalogue.stars().get(4000), catalogue.stars().get(4000));
+        assertThrows(UnsupportedOperationException.class, () -> catalogue.stars().set(0, catalogue.star(1)));
+        assertThrows(IndexOutOfBoundsException.class, () -> catalogue.stars().get(catalogue.starCount()));
+    }
+
+    @Test
+    void columnarBuilderWorks() {
+        StarCatalogue.Builder columnarBuilder = new StarCatalogue.Builder()
+                .addStar(24436, "Rigel", 1.3724303693276385, -0.143145630755865, 0.18f, -0.03f)
+                .addStar(new Star(27989, "Betelgeuse", EquatorialCoordinates.of(1.5497, 0.1292), 0.45f, 1.5f));
+        Star rigel = new Star(24436, "Rigel", EquatorialCoordinates.of(1.3724303693276385, -0.143145630755865),
+                0.18f, -0.03f);
+
+        StarCatalogue built = columnarBuilder.build();
+        assertEquals(2, built.starCount());
+        assertEquals(rigel.colorTemperature(), built.colorTemperature(0));
+        assertEquals("Rigel", built.star(0).name());
+        assertEquals(0.18f, built.magnitude(0));
+        assertSame(columnarBuilder.stars().get(1), built.star(1));
+
+        assertThrows(IllegalArgumentException.class, () -> columnarBuilder.addStar(-1, "x", 0, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> columnarBuilder.addStar(1, "x", 0, 0, 0, 6));
+        assertThrows(IllegalArgumentException.class, () -> columnarBuilder.addStar(1, "x", 7, 0, 0, 0));
+        assertThrows(NullPointerException.class, () -> columnarBuilder.addStar(1, null, 0, 0, 0, 0));
+    }
+
+    @Test
+    void magnitudeOrderIsSortedAndPrefixesHoldTheBrightStars() {
+        boolean[] seen = new boolean[catalogue.starCount()];
+        for (int rank = 0; rank < catalogue.starCount(); ++rank) {
+            seen[catalogue.starByMagnitude(rank)] = true;
+            if (rank > 0) {
+                assertTrue(catalogue.magnitude(catalogue.starByMagnitude(rank - 1))
+                        <= catalogue.magnitude(catalogue.starByMagnitude(rank)));
+            }
+        }
+        for (boolean s : seen) assertTrue(s);
+
+        for (double limit : new double[]{-30, 0.18, 2, 4.5, 6, 30}) {
+            long expected = IntStream.range(0, catalogue.starCount())
+                    .filter(i -> catalogue.magnitude(i) <= limit).count();
+            assertEquals(expected, catalogue.brighterThanCount(limit));
+        }
+        assertEquals(0, catalogue.brighterThanCount(Double.NEGATIVE_INFINITY));
+        assertEquals(catalogue.starCount(), catalogue.brighterThanCount(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void compiledAsterismsFollowTheAsterisms() {
+        List<Asterism> asterisms = builder.asterisms().stream().distinct().collect(Collectors.toList());
+        assertEquals(asterisms.size(), catalogue.asterismCount());
+        assertEquals(0, catalogue.asterismEdgeStart(0));
+        for (int a = 0; a < asterisms.size(); ++a) {
+            List<Integer> indices = catalogue.asterismIndices(asterisms.get(a));
+            int from = catalogue.asterismEdgeStart(a);
+            assertEquals(indices.size(), catalogue.asterismEdgeStart(a + 1) - from);
+            for (int k = 0; k < indices.size(); ++k) {
+                int star = catalogue.asterismEdgeStar(from + k);
+                assertEquals(indices.get(k), star);
+                //Every star is in its asterism's cap, seen from the star itself
+                assertTrue(catalogue.asterismMayIntersect(a, catalogue.unitX(star), catalogue.unitY(star),
+                        catalogue.unitZ(star), 0));
+            }
+        }
+    }
 }
@@ -1,8 +1,15 @@
 package ch.epfl.rigelTest.coordinates;
 
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
 import ch.epfl.rigel.math.Angle;
 import org.junit.jupiter.api.Test;
 
+import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
+
 import static ch.epfl.rigel.math.Angle.normalizePositive;
 import static ch.epfl.rigel.math.Angle.ofDeg;
 import static java.lang.Math.*;
@@ -33,4 +40,38 @@ class MyEquatorialToHorizontalConversionTest {
         assertEquals(h, h_, delta);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void unitVectorConversionMatchesApply() {
+        SplittableRandom rng = new SplittableRandom(2020);
+        for (int i = 0; i < 1000; ++i) {
+            ZonedDateTime when = ZonedDateTime.parse("2020-04-17T21:00:00+02:00").plusMinutes(rng.nextInt(1_000_000));
+            EquatorialToHorizontalConversion conversion = new EquatorialToHorizontalConversion(when,
+                    GeographicCoordinates.ofDeg(rng.nextDouble(-180, 180), rng.nextDouble(-89, 89)));
+            double ra = rng.nextDouble(0, 2 * PI);
+            double dec = rng.nextDouble(-PI / 2, PI / 2);
+
+            HorizontalCoordinates expected = conversion.apply(EquatorialCoordinates.of(ra, dec));
+            HorizontalCoordinates actual = conversion.applyToUnitVector(cos(dec) * cos(ra), cos(dec) * sin(ra),
+                    sin(dec));
+            assertEquals(expected.alt(), actual.alt(), delta);
+            assertEquals(0, Angle.normalizePositive(expected.az() - actual.az() + PI) - PI, delta);
+        }
+    }
+
+    @Test
+    void inverseApplyUndoesApply() {
+        SplittableRandom rng = new SplittableRandom(2021);
+        for (int i = 0; i < 1000; ++i) {
+            ZonedDateTime when = ZonedDateTime.parse("2020-04-17T21:00:00+02:00").plusMinutes(rng.nextInt(1_000_000));
+            EquatorialToHorizontalConversion conversion = new EquatorialToHorizontalConversion(when,
+                    GeographicCoordinates.ofDeg(rng.nextDouble(-180, 180), rng.nextDouble(-89, 89)));
+            double ra = rng.nextDouble(0, 2 * PI);
+            double dec = rng.nextDouble(-1.5, 1.5);
+
+            EquatorialCoordinates actual = conversion.inverseApply(conversion.apply(EquatorialCoordinates.of(ra, dec)));
+            assertEquals(dec, actual.dec(), delta);
+            assertEquals(0, Angle.normalizePositive(ra - actual.ra() + PI) - PI, delta);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ch.epfl.rigelTest.coordinates;
+
+import ch.epfl.rigel.coordinates.CartesianCoordinates;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.ProjectionKernel;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
+
+import static java.lang.Math.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MyProjectionKernelTest {
+
+    private static final double DELTA = 1e-9;
+    private static final int COUNT = 1000;
+
+    @Test
+    void kernelMatchesConversionThenProjection() {
+        SplittableRandom rng = new SplittableRandom(2020);
+        for (int trial = 0; trial < 20; ++trial) {
+            EquatorialToHorizontalConversion conversion = new EquatorialToHorizontalConversion(
+                    ZonedDateTime.parse("2020-02-17T20:15:00+01:00").plusHours(rng.nextInt(100_000)),
+                    GeographicCoordinates.ofDeg(rng.nextDouble(-180, 180), rng.nextDouble(-89, 89)));
+            StereographicProjection projection = new StereographicProjection(
+                    HorizontalCoordinates.ofDeg(rng.nextDouble(0, 360), rng.nextDouble(-89, 89)));
+            ProjectionKernel kernel = new ProjectionKernel(conversion, projection);
+
+            double[] ra = new double[COUNT], dec = new double[COUNT];
+            double[] ux = new double[COUNT], uy = new double[COUNT], uz = new double[COUNT];
+            for (int i = 0; i < COUNT; ++i) {
+                ra[i] = rng.nextDouble(0, 2 * PI);
+                dec[i] = rng.nextDouble(-PI / 2, PI / 2);
+                ux[i] = cos(dec[i]) * cos(ra[i]);
+                uy[i] = cos(dec[i]) * sin(ra[i]);
+                uz[i] = sin(dec[i]);
+            }
+
+            double[] x = new double[COUNT], y = new double[COUNT];
+            kernel.apply(ux, uy, uz, 0, COUNT / 2, x, y);
+            kernel.apply(ux, uy, uz, COUNT / 2, COUNT, x, y);
+
+            for (int i = 0; i < COUNT; ++i) {
+                CartesianCoordinates expected = conversion.andThen(projection)
+                        .apply(EquatorialCoordinates.of(ra[i], dec[i]));
+                double tolerance = DELTA * max(1, expected.x() * expected.x() + expected.y() * expected.y());
+                //Points close to the antipode of the center are projected far away, where errors grow accordingly
+                assertEquals(expected.x(), x[i], tolerance);
+                assertEquals(expected.y(), y[i], tolerance);
+
+                CartesianCoordinates single = kernel.apply(ux[i], uy[i], uz[i]);
+                assertEquals(x[i], single.x());
+                assertEquals(y[i], single.y());
+            }
+
+            //Indexed path, on every other vector, leaving out the ones below the horizon
+            int[] indices = new int[COUNT / 2];
+            for (int k = 0; k < indices.length; ++k) indices[k] = 2 * k;
+            double[] indexedX = new double[COUNT], indexedY = new double[COUNT];
+            int projected = kernel.apply(ux, uy, uz, indices, 0, indices.length, true, indexedX, indexedY);
+            int aboveHorizon = 0;
+            for (int i = 0; i < COUNT; ++i) {
+                boolean isAbove = conversion.apply(EquatorialCoordinates.of(ra[i], dec[i])).alt() >= 0;
+                if (i % 2 != 0) {
+                    assertEquals(0, indexedX[i]);
+                    assertEquals(0, indexedY[i]);
+                } else if (isAbove) {
+                    ++aboveHorizon;
+                    assertEquals(x[i], indexedX[i]);
+                    assertEquals(y[i], indexedY[i]);
+                } else {
+                    assertEquals(Double.NaN, indexedX[i]);
+                    assertEquals(Double.NaN, indexedY[i]);
+                }
+            }
+            assertEquals(aboveHorizon, projected);
+        }
+    }
+
+    @Test
+    void kernelRejectsInvalidRanges() {
+        ProjectionKernel kernel = new ProjectionKernel(
+                new EquatorialToHorizontalConversion(ZonedDateTime.parse("2020-02-17T20:15:00+01:00"),
+                        GeographicCoordinates.ofDeg(6.57, 46.52)),
+                new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45)));
+        double[] a = new double[4], b = new double[3];
+        assertThrows(IllegalArgumentException.class, () -> kernel.apply(a, a, a, 0, 4, b, a));
+        assertThrows(IllegalArgumentException.class, () -> kernel.apply(a, a, a, 3, 2, a, a));
+        assertThrows(IllegalArgumentException.class, () -> kernel.apply(a, a, a, -1, 2, a, a));
+    }
+}
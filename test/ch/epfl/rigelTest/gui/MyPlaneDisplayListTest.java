@@ -0,0 +1,213 @@
+package ch.epfl.rigelTest.gui;
+
+import ch.epfl.rigel.coordinates.PlanarTransformation;
+import ch.epfl.rigel.gui.PlaneDisplayList;
+import ch.epfl.rigel.gui.PolylineClipper;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyPlaneDisplayListTest {
+
+    private static final double WIDTH = 800, HEIGHT = 600;
+    private static final double DELTA = 1e-9;
+
+    //Scaled and flipped, and scaled and rotated
+    private static final PlanarTransformation FLIPPED = PlanarTransformation.ofDilatAndTrans(100, -100, 400, 300);
+    private static final PlanarTransformation ROTATED = PlanarTransformation.of(20 * Math.cos(0.3),
+            -20 * Math.sin(0.3), 20 * Math.sin(0.3), 20 * Math.cos(0.3), 400, 100);
+
+    /**
+     * A replayed command: its kind, paint, numbers and text (null if none)
+     */
+    private static final class Command {
+        private final String kind;
+        private final Paint paint;
+        private final double[] numbers;
+        private final String text;
+
+        private Command(String kind, Paint paint, String text, double... numbers) {
+            this.kind = kind;
+            this.paint = paint;
+            this.numbers = numbers;
+            this.text = text;
+        }
+    }
+
+    private static final class RecordingTarget implements PlaneDisplayList.Target {
+        private final List<Command> commands = new ArrayList<>();
+
+        @Override
+        public void fillCircle(Paint paint, double x, double y, double size) {
+            commands.add(new Command("fill", paint, null, x, y, size));
+        }
+
+        @Override
+        public void strokeCircle(Paint paint, double lineWidth, double x, double y, double size) {
+            commands.add(new Command("stroke", paint, null, lineWidth, x, y, size));
+        }
+
+        @Override
+        public void strokePolyline(Paint paint, double lineWidth, double[] x, double[] y, int count) {
+            double[] numbers = new double[1 + 2 * count];
+            numbers[0] = lineWidth;
+            for (int k = 0; k < count; ++k) {
+                numbers[1 + 2 * k] = x[k];
+                numbers[2 + 2 * k] = y[k];
+            }
+            commands.add(new Command("polyline", paint, null, numbers));
+        }
+
+        @Override
+        public void fillText(Paint paint, String text, double x, double y) {
+            commands.add(new Command("text", paint, text, x, y));
+        }
+    }
+
+    private static List<Command> replay(PlaneDisplayList list, PlanarTransformation transform) {
+        RecordingTarget target = new RecordingTarget();
+        list.replay(target, transform, WIDTH, HEIGHT);
+        return target.commands;
+    }
+
+    private static void assertSameCommands(List<Command> expected, List<Command> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i).kind, actual.get(i).kind);
+            assertEquals(expected.get(i).paint, actual.get(i).paint);
+            assertEquals(expected.get(i).text, actual.get(i).text);
+            assertArrayEquals(expected.get(i).numbers, actual.get(i).numbers, DELTA);
+        }
+    }
+
+    private static boolean inCanvas(double x, double y) {
+        return 0 <= x && x <= WIDTH && 0 <= y && y <= HEIGHT;
+    }
+
+    /**
+     * The commands drawn straight in the canvas' coordinates, as the painter did before recording: the reference
+     * replay is compared to
+     */
+    private static List<Command> drawnDirectly(PlanarTransformation t, double[] polylineX, double[] polylineY) {
+        List<Command> commands = new ArrayList<>();
+        if (inCanvas(t.applyX(0, 0), t.applyY(0, 0))) {
+            commands.add(new Command("fill", Color.WHITE, null, t.applyX(0, 0), t.applyY(0, 0),
+                    t.applyDistance(0.1) + 2));
+        }
+        if (inCanvas(t.applyX(10, 10), t.applyY(10, 10))) {
+            commands.add(new Command("fill", Color.YELLOW, null, t.applyX(10, 10), t.applyY(10, 10),
+                    t.applyDistance(0.5)));
+        }
+        commands.add(new Command("stroke", Color.RED, null, 0.5, t.applyX(0, 0), t.applyY(0, 0),
+                t.applyDistance(1)));
+
+        double[] x = new double[polylineX.length], y = new double[polylineX.length];
+        for (int k = 0; k < x.length; ++k) {
+            x[k] = t.applyX(polylineX[k], polylineY[k]);
+            y[k] = t.applyY(polylineX[k], polylineY[k]);
+        }
+        PolylineClipper clipper = new PolylineClipper();
+        clipper.setBounds(-1, -1, WIDTH + 1, HEIGHT + 1);
+        RecordingTarget runs = new RecordingTarget();
+        clipper.clip(x, y, x.length, (rx, ry, n) -> runs.strokePolyline(Color.BLUE, 1, rx, ry, n));
+        commands.addAll(runs.commands);
+
+        commands.add(new Command("text", Color.RED, "N", t.applyX(0, 0.5), t.applyY(0, 0.5)));
+        return commands;
+    }
+
+    @Test
+    void replayMatchesDrawingDirectlyUnderAnyTransformation() {
+        //Leaves the canvas and comes back under FLIPPED, and is cut by an undefined point
+        double[] polylineX = {-1, 0, 5, 0, Double.NaN, 1, 2};
+        double[] polylineY = {-1, 0, 0, 0.5, 0, 1, 1};
+
+        PlaneDisplayList list = new PlaneDisplayList();
+        list.fillCircle(0, 0, 0.1, 2, Color.WHITE);
+        list.fillCircle(10, 10, 0.5, 0, Color.YELLOW);
+        list.strokeCircle(0, 0, 1, 0.5, Color.RED);
+        list.polyline(polylineX, polylineY, polylineX.length, 1, Color.BLUE);
+        list.text(0, 0.5, "N", Color.RED);
+
+        List<Command> flipped = replay(list, FLIPPED);
+        assertSameCommands(drawnDirectly(FLIPPED, polylineX, polylineY), flipped);
+        //The far circle is culled, the polyline split in three runs
+        assertEquals(6, flipped.size());
+        assertEquals(3, flipped.stream().filter(c -> c.kind.equals("polyline")).count());
+
+        List<Command> rotated = replay(list, ROTATED);
+        assertSameCommands(drawnDirectly(ROTATED, polylineX, polylineY), rotated);
+        //The far circle is in the canvas under this transformation
+        assertEquals(Color.YELLOW, rotated.get(1).paint);
+
+        //Replaying does not consume the recording
+        assertSameCommands(flipped, replay(list, FLIPPED));
+    }
+
+    @Test
+    void replayOntoACanvasRuns() {
+        PlaneDisplayList list = new PlaneDisplayList();
+        list.fillCircle(0, 0, 0.1, 2, Color.WHITE);
+        list.polyline(new double[]{-1, 1}, new double[]{-1, 1}, 2, 1, Color.BLUE);
+        list.text(0, 0, "N", Color.RED);
+        Canvas canvas = new Canvas(WIDTH, HEIGHT);
+        list.replay(canvas.getGraphicsContext2D(), FLIPPED, WIDTH, HEIGHT);
+        list.replay(canvas.getGraphicsContext2D(), FLIPPED, 0, 0);
+        assertEquals(3, list.commandCount());
+    }
+
+    @Test
+    void commandsAreCountedAndCleared() {
+        PlaneDisplayList list = new PlaneDisplayList();
+        assertEquals(0, list.commandCount());
+        list.fillCircle(0, 0, 0.1, 2, Color.WHITE);
+        list.strokeCircle(0, 0, 1, 0.5, Color.RED);
+        list.polyline(new double[]{0, 1, 2}, new double[]{0, 1, 0}, 3, 1, Color.BLUE);
+        list.text(0, 0, "N", Color.RED);
+        assertEquals(4, list.commandCount());
+        list.clear();
+        assertEquals(0, list.commandCount());
+        assertTrue(replay(list, FLIPPED).isEmpty());
+    }
+
+    @Test
+    void buffersGrowWithTheRecording() {
+        PlaneDisplayList list = new PlaneDisplayList();
+        double[] x = new double[1000], y = new double[1000];
+        for (int k = 0; k < x.length; ++k) {
+            x[k] = Math.cos(k) * 2;
+            y[k] = Math.sin(k) * 2;
+        }
+        for (int i = 0; i < 500; ++i) {
+            list.fillCircle(i / 500d, 0, 0.01, 0, Color.WHITE);
+            list.polyline(x, y, x.length, 1, Color.BLUE);
+        }
+        assertEquals(1000, list.commandCount());
+
+        List<Command> commands = replay(list, FLIPPED);
+        assertEquals(1000, commands.size());
+        //Every command keeps its own numbers, the last ones included
+        assertArrayEquals(new double[]{FLIPPED.applyX(499 / 500d, 0), FLIPPED.applyY(499 / 500d, 0), 1},
+                commands.get(998).numbers, DELTA);
+        double[] polyline = commands.get(999).numbers;
+        assertEquals(1 + 2 * x.length, polyline.length);
+        for (int k = 0; k < x.length; ++k) {
+            assertEquals(FLIPPED.applyX(x[k], y[k]), polyline[1 + 2 * k], DELTA);
+            assertEquals(FLIPPED.applyY(x[k], y[k]), polyline[2 + 2 * k], DELTA);
+        }
+    }
+
+    @Test
+    void polylineRejectsShortArrays() {
+        PlaneDisplayList list = new PlaneDisplayList();
+        assertThrows(IllegalArgumentException.class,
+                () -> list.polyline(new double[2], new double[3], 3, 1, Color.BLUE));
+        assertEquals(0, list.commandCount());
+    }
+}
@@ -0,0 +1,81 @@
+package ch.epfl.rigelTest.gui;
+
+import ch.epfl.rigel.gui.PolylineClipper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyPolylineClipperTest {
+
+    private static List<double[]> runs(PolylineClipper clipper, double[] x, double[] y) {
+        List<double[]> runs = new ArrayList<>();
+        int count = clipper.clip(x, y, x.length, (rx, ry, n) -> {
+            double[] run = new double[2 * n];
+            for (int k = 0; k < n; ++k) {
+                run[2 * k] = rx[k];
+                run[2 * k + 1] = ry[k];
+            }
+            runs.add(run);
+        });
+        assertEquals(runs.size(), count);
+        return runs;
+    }
+
+    private static PolylineClipper unitSquare() {
+        PolylineClipper clipper = new PolylineClipper();
+        clipper.setBounds(0, 0, 10, 10);
+        return clipper;
+    }
+
+    @Test
+    void polylineInsideIsOneRun() {
+        List<double[]> runs = runs(unitSquare(), new double[]{1, 5, 9, 2}, new double[]{1, 8, 3, 2});
+        assertEquals(1, runs.size());
+        assertArrayEquals(new double[]{1, 1, 5, 8, 9, 3, 2, 2}, runs.get(0));
+    }
+
+    @Test
+    void segmentsAreClippedToTheRectangle() {
+        List<double[]> runs = runs(unitSquare(), new double[]{-10, 5, 20}, new double[]{5, 5, 5});
+        assertEquals(1, runs.size());
+        assertArrayEquals(new double[]{0, 5, 5, 5, 10, 5}, runs.get(0), 1e-12);
+
+        //Both ends outside, only touching a corner: nothing to draw, not even a dot
+        runs = runs(unitSquare(), new double[]{-5, 15}, new double[]{5, -15});
+        assertEquals(0, runs.size());
+
+        //Both ends outside, going through two opposite corners
+        runs = runs(unitSquare(), new double[]{-5, 15}, new double[]{-5, 15});
+        assertEquals(1, runs.size());
+        assertArrayEquals(new double[]{0, 0, 10, 10}, runs.get(0), 1e-12);
+    }
+
+    @Test
+    void leavingAndReenteringStartsANewRun() {
+        List<double[]> runs = runs(unitSquare(), new double[]{2, 2, 8, 8}, new double[]{2, 20, 20, 2});
+        assertEquals(2, runs.size());
+        assertArrayEquals(new double[]{2, 2, 2, 10}, runs.get(0), 1e-12);
+        assertArrayEquals(new double[]{8, 10, 8, 2}, runs.get(1), 1e-12);
+    }
+
+    @Test
+    void segmentsOutsideOrWithNaNEndsAreLeftOut() {
+        assertTrue(runs(unitSquare(), new double[]{20, 30, 40}, new double[]{20, -5, 20}).isEmpty());
+        List<double[]> runs = runs(unitSquare(), new double[]{1, 2, Double.NaN, 4, 5},
+                new double[]{1, 2, 3, 4, 5});
+        assertEquals(2, runs.size());
+        assertArrayEquals(new double[]{1, 1, 2, 2}, runs.get(0));
+        assertArrayEquals(new double[]{4, 4, 5, 5}, runs.get(1));
+        assertTrue(runs(unitSquare(), new double[]{1}, new double[]{1}).isEmpty());
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PolylineClipper().setBounds(1, 0, 0, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> unitSquare().clip(new double[2], new double[1], 2, (x, y, n) -> { }));
+    }
+}
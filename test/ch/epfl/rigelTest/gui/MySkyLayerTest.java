@@ -0,0 +1,36 @@
+package ch.epfl.rigelTest.gui;
+
+import ch.epfl.rigel.gui.DrawableObjects;
+import ch.epfl.rigel.gui.SkyLayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MySkyLayerTest {
+
+    @Test
+    void everyDrawableIsOnExactlyOneLayer() {
+        for (DrawableObjects drawable : DrawableObjects.values()) {
+            int count = 0;
+            for (SkyLayer layer : SkyLayer.values()) {
+                if (layer.drawables().contains(drawable)) ++count;
+            }
+            assertEquals(1, count, drawable.name());
+        }
+    }
+
+    @Test
+    void affectedByOnlyReturnsTheLayersOfToggledDrawables() {
+        EnumSet<DrawableObjects> all = EnumSet.allOf(DrawableObjects.class);
+        assertEquals(EnumSet.noneOf(SkyLayer.class), SkyLayer.affectedBy(all, all));
+
+        EnumSet<DrawableObjects> noMoon = EnumSet.complementOf(EnumSet.of(DrawableObjects.MOON));
+        assertEquals(EnumSet.of(SkyLayer.SOLAR_SYSTEM), SkyLayer.affectedBy(all, noMoon));
+
+        EnumSet<DrawableObjects> noGridNoStars = EnumSet.complementOf(EnumSet.of(DrawableObjects.GRID,
+                DrawableObjects.STARS));
+        assertEquals(EnumSet.of(SkyLayer.GUIDES, SkyLayer.STARS), SkyLayer.affectedBy(noGridNoStars, all));
+    }
+}
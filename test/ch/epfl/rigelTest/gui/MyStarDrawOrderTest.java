@@ -0,0 +1,76 @@
+package ch.epfl.rigelTest.gui;
+
+import ch.epfl.rigel.astronomy.Star;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.gui.BlackBodyColor;
+import ch.epfl.rigel.gui.StarDrawOrder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyStarDrawOrderTest {
+
+    private static StarCatalogue randomCatalogue(int size) {
+        SplittableRandom rng = new SplittableRandom(2020);
+        List<Star> stars = new ArrayList<>();
+        for (int i = 0; i < size; ++i) {
+            stars.add(new Star(i, "S" + i, EquatorialCoordinates.of(rng.nextDouble(0, 6), rng.nextDouble(-1, 1)),
+                    (float) rng.nextDouble(-1, 6), (float) rng.nextDouble(-0.4, 5)));
+        }
+        return new StarCatalogue(stars, List.of());
+    }
+
+    @Test
+    void paletteIndicesMatchTheStarsColors() {
+        StarCatalogue catalogue = randomCatalogue(200);
+        StarDrawOrder order = new StarDrawOrder(catalogue);
+        assertSame(catalogue, order.catalogue());
+        for (int i = 0; i < catalogue.starCount(); ++i) {
+            assertEquals(BlackBodyColor.colorForTemperature(catalogue.stars().get(i).colorTemperature()),
+                    BlackBodyColor.colorForBin(order.paletteIndex(i)));
+        }
+    }
+
+    @Test
+    void sortGroupsByColorAndKeepsEveryStarOnce() {
+        StarCatalogue catalogue = randomCatalogue(500);
+        StarDrawOrder order = new StarDrawOrder(catalogue);
+        int[] indices = IntStream.range(0, 500).filter(i -> i % 3 != 0).toArray();
+        int count = indices.length - 10;
+        int[] untouched = Arrays.copyOfRange(indices, count, indices.length);
+        int[] expected = Arrays.copyOf(indices, count);
+
+        int colors = order.sort(indices, count);
+
+        assertEquals(IntStream.of(expected).map(order::paletteIndex).distinct().count(), colors);
+        int fillChanges = 1;
+        for (int k = 1; k < count; ++k) {
+            int previous = order.paletteIndex(indices[k - 1]), current = order.paletteIndex(indices[k]);
+            assertTrue(previous <= current);
+            //Stable: catalogue order is kept within a color
+            if (previous == current) {
+                assertTrue(indices[k - 1] < indices[k]);
+            } else {
+                ++fillChanges;
+            }
+        }
+        assertEquals(colors, fillChanges);
+        assertArrayEquals(expected, IntStream.of(indices).limit(count).sorted().toArray());
+        assertArrayEquals(untouched, Arrays.copyOfRange(indices, count, indices.length));
+    }
+
+    @Test
+    void sortHandlesEmptyInputAndRejectsInvalidCounts() {
+        StarDrawOrder order = new StarDrawOrder(randomCatalogue(10));
+        assertEquals(0, order.sort(new int[0], 0));
+        assertThrows(IllegalArgumentException.class, () -> order.sort(new int[3], 4));
+        assertThrows(IllegalArgumentException.class, () -> order.sort(new int[3], -1));
+    }
+}
@@ -0,0 +1,102 @@
+package ch.epfl.rigelTest.gui;
+
+import ch.epfl.rigel.astronomy.AsterismLoader;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.Star;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.PlanarTransformation;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import ch.epfl.rigel.gui.BlackBodyColor;
+import ch.epfl.rigel.gui.SkyCanvasPainter;
+import ch.epfl.rigel.math.ClosedInterval;
+import javafx.geometry.Bounds;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static ch.epfl.rigel.coordinates.StereographicProjection.applyToAngle;
+import static ch.epfl.rigel.math.Angle.ofDeg;
+
+/**
+ * Compares drawing the stars with a fill change per star, in catalogue order, to SkyCanvasPainter's drawing grouped
+ * by color, over the whole catalogue. Without the JavaFX toolkit, this measures recording the canvas' commands, not
+ * rasterizing them. Disabled, like the other speed tests, and meant to be run by hand.
+ */
+public class MyStarDrawingBenchmark {
+
+    private static final double CELEST_SIZE_COEFF = applyToAngle(ofDeg(0.5)) / 140;
+    private static final ClosedInterval CLIP_INTERVAL = ClosedInterval.of(-2, 5);
+    private static final int WIDTH = 800, HEIGHT = 600;
+    private static final int WARM_UP = 200, FRAMES = 1000, RUNS = 5;
+
+    @Disabled("Speed run, to be run by hand")
+    @Test
+    void frameTimes() throws IOException {
+        final StarCatalogue catalogue;
+        try (InputStream hygStream = getClass().getResourceAsStream("/hygdata_v3.csv");
+             InputStream asterismStream = getClass().getResourceAsStream("/asterisms.txt")) {
+            catalogue = new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(asterismStream, AsterismLoader.INSTANCE)
+                    .build();
+        }
+        final ObservedSky sky = new ObservedSky(ZonedDateTime.parse("2020-04-04T00:00:00Z"),
+                GeographicCoordinates.ofDeg(6.57, 46.52), new StereographicProjection(HorizontalCoordinates.ofDeg(180, 22)),
+                catalogue, (ObservedSky) null);
+        final PlanarTransformation transform = PlanarTransformation.ofDilatAndTrans(400, -400, WIDTH / 2d, HEIGHT / 2d);
+
+        final Canvas canvas = new Canvas(WIDTH, HEIGHT);
+        final GraphicsContext context = canvas.getGraphicsContext2D();
+        final SkyCanvasPainter painter = new SkyCanvasPainter(canvas);
+        painter.setStarRendering(SkyCanvasPainter.StarRendering.SHAPES);
+
+        for (int run = 0; run < RUNS; ++run) {
+            final double perStar = msPerFrame(context, () -> drawWithFillPerStar(context, canvas.getBoundsInLocal(),
+                    sky, transform));
+            final double grouped = msPerFrame(context, () -> painter.drawStars(sky, transform));
+            System.out.printf("%d stars: fill per star %.3f ms/frame, grouped by color %.3f ms/frame%n",
+                    sky.starCount(), perStar, grouped);
+        }
+    }
+
+    private static double msPerFrame(GraphicsContext context, Runnable frame) {
+        for (int i = 0; i < WARM_UP; ++i) {
+            frame.run();
+            context.clearRect(0, 0, WIDTH, HEIGHT);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; ++i) {
+            frame.run();
+            context.clearRect(0, 0, WIDTH, HEIGHT);
+        }
+        return (System.nanoTime() - start) / 1e6 / FRAMES;
+    }
+
+    /**
+     * The former drawing: stars in catalogue order, materialized, the fill being set for each
+     */
+    private static void drawWithFillPerStar(GraphicsContext context, Bounds bounds, ObservedSky sky,
+                                            PlanarTransformation transform) {
+        final List<Star> stars = sky.stars();
+        for (int i = 0; i < sky.starCount(); ++i) {
+            final double x = transform.applyX(sky.x(i), sky.y(i));
+            final double y = transform.applyY(sky.x(i), sky.y(i));
+            if (bounds.contains(x, y)) {
+                final Star star = stars.get(i);
+                final double size = transform.applyDistance(
+                        (99 - 17 * CLIP_INTERVAL.clip(star.magnitude())) * CELEST_SIZE_COEFF);
+                context.setFill(BlackBodyColor.colorForTemperature(star.colorTemperature()));
+                context.fillOval(x - size / 2, y - size / 2, size, size);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ch.epfl.rigelTest.gui;
+
+import ch.epfl.rigel.gui.BlackBodyColor;
+import ch.epfl.rigel.gui.StarSpriteAtlas;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MyStarSpriteAtlasTest {
+
+    @Test
+    void binsMatchColorForTemperature() {
+        for (int t = 1000; t <= 40000; t += 37) {
+            assertEquals(BlackBodyColor.colorForTemperature(t),
+                    BlackBodyColor.colorForBin(BlackBodyColor.binForTemperature(t)));
+        }
+        assertEquals(0, BlackBodyColor.binForTemperature(1000));
+        assertEquals(BlackBodyColor.binCount() - 1, BlackBodyColor.binForTemperature(40000));
+        assertThrows(IllegalArgumentException.class, () -> BlackBodyColor.binForTemperature(999));
+    }
+
+    @Test
+    void spritesHaveAnOpaqueCenterAndATransparentEdge() {
+        StarSpriteAtlas atlas = new StarSpriteAtlas();
+        int colorBin = BlackBodyColor.binForTemperature(6000);
+        Rectangle2D viewport = atlas.viewport(6, colorBin);
+        int side = (int) viewport.getWidth();
+        int[] pixels = new int[side * side];
+        atlas.image(6, colorBin).getPixelReader().getPixels((int) viewport.getMinX(), (int) viewport.getMinY(),
+                side, side, PixelFormat.getIntArgbPreInstance(), pixels, 0, side);
+
+        assertEquals(0xFF, pixels[side / 2 * side + side / 2] >>> 24);
+        assertEquals(0, pixels[0]);
+        assertEquals(0, pixels[side * side - 1]);
+        //Premultiplied: no channel above alpha
+        for (int pixel : pixels) {
+            int alpha = pixel >>> 24;
+            assertTrue(((pixel >>> 16) & 0xFF) <= alpha);
+            assertTrue(((pixel >>> 8) & 0xFF) <= alpha);
+            assertTrue((pixel & 0xFF) <= alpha);
+        }
+    }
+
+    @Test
+    void spritesAreRasterizedOnce() {
+        StarSpriteAtlas atlas = new StarSpriteAtlas();
+        GraphicsContext context = new Canvas(20, 20).getGraphicsContext2D();
+        atlas.draw(context, 5, 5, 3, 10);
+        atlas.draw(context, 12, 12, 3.01, 10);
+        assertEquals(1, atlas.spriteCount());
+        atlas.draw(context, 12, 12, 3, 11);
+        assertEquals(2, atlas.spriteCount());
+        assertEquals(atlas.viewport(3, 10), atlas.viewport(3.01, 10));
+    }
+
+    @Test
+    void spritesNeverOverlap() {
+        StarSpriteAtlas atlas = new StarSpriteAtlas();
+        Map<Image, List<Rectangle2D>> viewports = new HashMap<>();
+        for (double diameter = 0; diameter <= StarSpriteAtlas.MAX_DIAMETER; diameter += 0.25) {
+            for (int colorBin = 0; colorBin < 20; ++colorBin) {
+                Image page = atlas.image(diameter, colorBin);
+                Rectangle2D viewport = atlas.viewport(diameter, colorBin);
+                assertTrue(viewport.getMinX() >= 0 && viewport.getMaxX() <= page.getWidth());
+                assertTrue(viewport.getMinY() >= 0 && viewport.getMaxY() <= page.getHeight());
+                for (Rectangle2D other : viewports.computeIfAbsent(page, p -> new ArrayList<>())) {
+                    assertFalse(viewport.intersects(other));
+                }
+                viewports.get(page).add(viewport);
+            }
+        }
+        assertTrue(atlas.pageCount() > 1);
+        assertEquals(atlas.pageCount(), viewports.size());
+    }
+
+    @Test
+    void tooLargeStarsAreRejected() {
+        GraphicsContext context = new Canvas(10, 10).getGraphicsContext2D();
+        assertTrue(StarSpriteAtlas.canDraw(StarSpriteAtlas.MAX_DIAMETER));
+        assertFalse(StarSpriteAtlas.canDraw(StarSpriteAtlas.MAX_DIAMETER + 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new StarSpriteAtlas().draw(context, 5, 5, 40, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new StarSpriteAtlas().draw(context, 5, 5, 4, BlackBodyColor.binCount()));
+    }
+}
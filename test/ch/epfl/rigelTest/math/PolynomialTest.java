@@ -38,4 +38,31 @@ class PolynomialTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void ofChebyshevSamplesInterpolates() {
+        //A polynomial of degree < n is reproduced exactly from n samples
+        Polynomial cubic = Polynomial.of(2, -1, 0.5, 3);
+        double[] samples = new double[6];
+        for (int k = 0; k < samples.length; ++k) {
+            samples[k] = cubic.at(Polynomial.chebyshevNode(k, samples.length));
+        }
+        Polynomial interpolant = Polynomial.ofChebyshevSamples(samples);
+        for (double x = -1; x <= 1; x += 0.125) {
+            assertEquals(cubic.at(x), interpolant.at(x), 1e-12);
+        }
+
+        //A smooth function is approximated closely
+        double[] cosSamples = new double[13];
+        for (int k = 0; k < cosSamples.length; ++k) {
+            cosSamples[k] = Math.cos(2 * Polynomial.chebyshevNode(k, cosSamples.length));
+        }
+        Polynomial cos = Polynomial.ofChebyshevSamples(cosSamples);
+        for (double x = -1; x <= 1; x += 0.01) {
+            assertEquals(Math.cos(2 * x), cos.at(x), 1e-9);
+        }
+
+        assertEquals(0, Polynomial.ofChebyshevSamples(new double[3]).at(0.3));
+        assertThrows(IllegalArgumentException.class, () -> Polynomial.ofChebyshevSamples(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> Polynomial.chebyshevNode(3, 3));
+    }
+}